@@ -1,10 +1,15 @@
 package rs.acs.uns.sw.sct.announcements;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
 import rs.acs.uns.sw.sct.comments.Comment;
 import rs.acs.uns.sw.sct.marks.Mark;
 import rs.acs.uns.sw.sct.realestates.RealEstate;
 import rs.acs.uns.sw.sct.users.User;
+import rs.acs.uns.sw.sct.util.PooledIdGenerator;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
@@ -15,15 +20,30 @@ import java.util.Set;
 
 /**
  * An announcement. Entity which is center of the whole application.
+ * <p>
+ * Listings fetch announcements with {@value #LISTING_GRAPH} entity graph, so that everything needed
+ * for conversion to DTO is loaded with a constant number of queries per page.
  */
 @Entity
 @Table(name = "announcements")
+@NamedEntityGraph(name = Announcement.LISTING_GRAPH,
+        attributeNodes = {
+                @NamedAttributeNode(value = "realEstate", subgraph = "realEstate"),
+                @NamedAttributeNode(value = "author", subgraph = "author")
+        },
+        subgraphs = {
+                @NamedSubgraph(name = "realEstate", attributeNodes = @NamedAttributeNode("location")),
+                @NamedSubgraph(name = "author", attributeNodes = @NamedAttributeNode("company"))
+        })
 public class Announcement implements Serializable {
 
+    public static final String LISTING_GRAPH = "Announcement.listing";
+
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = PooledIdGenerator.NAME)
+    @GenericGenerator(name = PooledIdGenerator.NAME, strategy = PooledIdGenerator.STRATEGY)
     private Long id;
 
     @NotNull
@@ -65,6 +85,23 @@ public class Announcement implements Serializable {
     @Column(nullable = false)
     private Boolean deleted;
 
+    // set once expiration date passes, so listings don't have to compare dates
+    @Column(nullable = false, columnDefinition = "boolean default false")
+    private Boolean expired = false;
+
+    // announcement is published on this date, if it is set
+    @Column
+    private Date publishAt;
+
+    // verifier who claimed the announcement for review, until the lease expires
+    @JsonIgnore
+    @Column
+    private String claimedBy;
+
+    @JsonIgnore
+    @Column
+    private Date claimExpiresAt;
+
     @ManyToOne(cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     @JoinColumn()
     private RealEstate realEstate;
@@ -81,7 +118,11 @@ public class Announcement implements Serializable {
     @OneToMany(mappedBy = "announcement", fetch = FetchType.LAZY)
     private Set<Comment> comments = new HashSet<>(0);
 
+    // images of the whole page are loaded in batches, since collection can't be fetch joined into a paged query,
+    // and only those which are not in the second-level cache are read
     @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @BatchSize(size = 50)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private Set<Image> images = new HashSet<>(0);
 
     /**
@@ -277,6 +318,60 @@ public class Announcement implements Serializable {
         return this;
     }
 
+    public Boolean isExpired() {
+        return expired;
+    }
+
+    public void setExpired(Boolean expired) {
+        this.expired = expired;
+    }
+
+    /**
+     * Setter used for 'method chaining'.
+     *
+     * @param expired representing whether announcement's expiration date has passed.
+     * @return Announcement (this)
+     */
+    public Announcement expired(Boolean expired) {
+        this.expired = expired;
+        return this;
+    }
+
+    public Date getPublishAt() {
+        return publishAt;
+    }
+
+    public void setPublishAt(Date publishAt) {
+        this.publishAt = publishAt;
+    }
+
+    /**
+     * Setter used for 'method chaining'.
+     *
+     * @param publishAt date on which announcement will be published.
+     * @return Announcement (this)
+     */
+    public Announcement publishAt(Date publishAt) {
+        this.publishAt = publishAt;
+        return this;
+    }
+
+    public String getClaimedBy() {
+        return claimedBy;
+    }
+
+    public void setClaimedBy(String claimedBy) {
+        this.claimedBy = claimedBy;
+    }
+
+    public Date getClaimExpiresAt() {
+        return claimExpiresAt;
+    }
+
+    public void setClaimExpiresAt(Date claimExpiresAt) {
+        this.claimExpiresAt = claimExpiresAt;
+    }
+
     public RealEstate getRealEstate() {
         return realEstate;
     }
@@ -423,6 +518,8 @@ public class Announcement implements Serializable {
                 ", type='" + type + '\'' +
                 ", verified='" + verified + '\'' +
                 ", deleted=" + deleted +
+                ", expired=" + expired +
+                ", publishAt=" + publishAt +
                 ", realEstate=" + realEstate +
                 "}";
     }
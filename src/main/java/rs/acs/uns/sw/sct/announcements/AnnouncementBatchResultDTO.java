@@ -0,0 +1,51 @@
+package rs.acs.uns.sw.sct.announcements;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of one announcement from a batch request.
+ * <p>
+ * Contains id of the created or updated announcement, or errors if the announcement couldn't be processed.
+ */
+public class AnnouncementBatchResultDTO implements Serializable {
+
+    private Integer index;
+
+    private Long id;
+
+    private List<String> errors = new ArrayList<>();
+
+    public AnnouncementBatchResultDTO() {
+    }
+
+    public AnnouncementBatchResultDTO(Integer index, List<String> errors) {
+        this.index = index;
+        this.errors = errors;
+    }
+
+    public Integer getIndex() {
+        return index;
+    }
+
+    public void setIndex(Integer index) {
+        this.index = index;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+}
@@ -4,6 +4,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -17,19 +18,27 @@ import rs.acs.uns.sw.sct.users.User;
 import rs.acs.uns.sw.sct.users.UserService;
 import rs.acs.uns.sw.sct.util.AuthorityRoles;
 import rs.acs.uns.sw.sct.util.Constants;
+import rs.acs.uns.sw.sct.util.CountEstimate;
+import rs.acs.uns.sw.sct.util.CursorPage;
 import rs.acs.uns.sw.sct.util.HeaderUtil;
 import rs.acs.uns.sw.sct.util.PaginationUtil;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * REST controller for managing Announcement.
@@ -39,6 +48,8 @@ import java.util.stream.Collectors;
 @SuppressWarnings("unused")
 public class AnnouncementController {
 
+    private static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
+
     @Autowired
     private AnnouncementService announcementService;
 
@@ -57,6 +68,12 @@ public class AnnouncementController {
     @Value("${sct.file_upload.path}")
     private String uploadPath;
 
+    @Value("${sct.batch.max-size}")
+    private Integer maxBatchSize;
+
+    @Value("${sct.verification.max-claim}")
+    private Integer maxClaimCount;
+
     /**
      * POST  /announcements : Create a new announcement.
      *
@@ -108,6 +125,79 @@ public class AnnouncementController {
                 .body(result.convertToDTO());
     }
 
+    /**
+     * POST  /announcements/batch : Create multiple announcements at once.
+     * <p>
+     * Announcements are validated together and saved in one transaction, so either all of them
+     * are created, or none of them.
+     *
+     * @param announcementDTOs the announcements to create
+     * @return the ResponseEntity with status 201 (Created) and with body the result of every announcement,
+     * or with status 400 (Bad Request) and with body the validation errors of every announcement if any of them is not valid,
+     * or with status 400 (Bad Request) if any announcement already has an ID or there are too many announcements
+     */
+    @PreAuthorize("hasAuthority(T(rs.acs.uns.sw.sct.util.AuthorityRoles).ADVERTISER)")
+    @PostMapping("/announcements/batch")
+    public ResponseEntity<List<AnnouncementBatchResultDTO>> createAnnouncements(@RequestBody List<AnnouncementDTO> announcementDTOs) {
+        if (announcementDTOs.size() > maxBatchSize) {
+            return ResponseEntity
+                    .badRequest()
+                    .headers(HeaderUtil.failure(
+                            Constants.EntityNames.ANNOUNCEMENT,
+                            HeaderUtil.ERROR_CODE_BATCH_TOO_LARGE,
+                            HeaderUtil.ERROR_MSG_BATCH_TOO_LARGE))
+                    .body(null);
+        }
+        if (announcementDTOs.stream().anyMatch(annDTO -> annDTO.getId() != null)) {
+            return ResponseEntity
+                    .badRequest()
+                    .headers(HeaderUtil.failure(
+                            Constants.EntityNames.ANNOUNCEMENT,
+                            HeaderUtil.ERROR_CODE_CUSTOM_ID,
+                            HeaderUtil.ERROR_MSG_CUSTOM_ID))
+                    .body(null);
+        }
+
+        final User user = userSecurityUtil.getLoggedUser();
+        if (user == null)
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+
+        // existing real estates of all announcements are read with one query
+        final Set<Long> realEstateIds = announcementDTOs.stream()
+                .filter(annDTO -> annDTO.getRealEstate() != null && annDTO.getRealEstate().getId() != null)
+                .map(annDTO -> annDTO.getRealEstate().getId())
+                .collect(Collectors.toSet());
+        final Map<Long, RealEstate> realEstates = realEstateService.findAll(realEstateIds).stream()
+                .collect(Collectors.toMap(RealEstate::getId, realEstate -> realEstate));
+
+        final List<Announcement> announcements = new ArrayList<>();
+        for (AnnouncementDTO annDTO : announcementDTOs) {
+            annDTO.setAuthor(user.convertToDTO());
+            if (annDTO.getRealEstate() != null && realEstates.containsKey(annDTO.getRealEstate().getId()))
+                annDTO.setRealEstate(realEstates.get(annDTO.getRealEstate().getId()));
+
+            Announcement announcement = annDTO.convertToAnnouncement();
+
+            // set default values
+            announcement.setDeleted(false);
+            announcement.setDateAnnounced(new Date());
+            announcement.setVerified(Constants.VerifiedStatuses.NOT_VERIFIED);
+            announcements.add(announcement);
+        }
+
+        final List<AnnouncementBatchResultDTO> results = announcementService.saveAll(announcements);
+        if (results.stream().anyMatch(result -> !result.getErrors().isEmpty())) {
+            return ResponseEntity
+                    .badRequest()
+                    .headers(HeaderUtil.failure(
+                            Constants.EntityNames.ANNOUNCEMENT,
+                            HeaderUtil.ERROR_CODE_INVALID_BATCH,
+                            HeaderUtil.ERROR_MSG_INVALID_BATCH))
+                    .body(results);
+        }
+        return new ResponseEntity<>(results, HttpStatus.CREATED);
+    }
+
     /**
      * PUT  /announcements : Updates an existing announcement.
      *
@@ -224,6 +314,7 @@ public class AnnouncementController {
         }
 
         persistedAnnouncement.expirationDate(extendedDate)
+                .expired(false)
                 .dateModified(modified);
 
         Announcement result = announcementService.save(persistedAnnouncement);
@@ -237,41 +328,106 @@ public class AnnouncementController {
 
     /**
      * GET  /announcements : get all the announcements.
+     * <p>
+     * If <em>after</em> param is present, keyset pagination is used: empty value requests the first page,
+     * and the next page is requested with the cursor from <em>Link</em> header.
      *
+     * @param after    the cursor of keyset pagination
+     * @param count    false to skip counting all announcements, <em>X-Has-Next</em> header is returned instead of <em>X-Total-Count</em>
      * @param pageable the pagination information
-     * @return the ResponseEntity with status 200 (OK) and the list of announcements in body
+     * @return the ResponseEntity with status 200 (OK) and the list of announcements in body,
+     * or with status 400 (Bad Request) if the cursor is not valid
      * @throws URISyntaxException if there is an error to generate the pagination HTTP headers
      */
     @PreAuthorize("permitAll()")
     @GetMapping("/announcements")
-    public ResponseEntity<List<AnnouncementDTO>> getAllAnnouncements(Pageable pageable)
+    public ResponseEntity<List<AnnouncementDTO>> getAllAnnouncements(@RequestParam(value = "after", required = false) String after,
+                                                                     @RequestParam(value = "count", defaultValue = "true") boolean count,
+                                                                     Pageable pageable)
             throws URISyntaxException {
-        Page<AnnouncementDTO> page = announcementService.findAll(pageable)
-                .map(announcement -> announcement.convertToDTO());
-        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/announcements");
+        if (after != null) {
+            final CursorPage<AnnouncementDTO> page;
+            try {
+                page = announcementService.findAllByStatusAsDTO(null, after, pageable);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity
+                        .badRequest()
+                        .headers(HeaderUtil.failure(
+                                Constants.EntityNames.ANNOUNCEMENT,
+                                HeaderUtil.ERROR_CODE_INVALID_CURSOR,
+                                HeaderUtil.ERROR_MSG_INVALID_CURSOR))
+                        .body(null);
+            }
+            HttpHeaders headers = PaginationUtil.generateCursorHttpHeaders(page, pageable.getPageSize(), "/api/announcements");
+            return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+        }
+
+        if (!count) {
+            Slice<AnnouncementDTO> slice = announcementService.findSliceByStatusAsDTO(null, pageable);
+            HttpHeaders headers = PaginationUtil.generateSliceHttpHeaders(slice);
+            return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+        }
+
+        Page<AnnouncementDTO> page = announcementService.findAllByStatusAsDTO(null, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page);
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
 
+    /**
+     * GET  /announcements/export : export all active announcements as newline-delimited JSON.
+     * <p>
+     * Announcements are streamed to the response as they are read, one JSON object per line.
+     * Response is compressed with gzip if the client accepts it, and quality values of accepted encodings are respected.
+     *
+     * @param acceptEncoding encodings accepted by the client
+     * @param response       the response which receives the export
+     * @throws IOException if writing to the response fails
+     */
+    @PreAuthorize("permitAll()")
+    @GetMapping("/announcements/export")
+    public void exportAnnouncements(@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                    HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON_CONTENT_TYPE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        if (HeaderUtil.acceptsEncoding(acceptEncoding, "gzip")) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            GZIPOutputStream out = new GZIPOutputStream(response.getOutputStream(), true);
+            announcementService.exportActive(out);
+            out.finish();
+        } else {
+            announcementService.exportActive(response.getOutputStream());
+        }
+    }
+
     /**
      * GET  /announcements/deleted/:status : get all the announcements by status - deleted or not.
      *
      * @param status   deleted or not deleted
+     * @param count    false to skip counting all announcements, <em>X-Has-Next</em> header is returned instead of <em>X-Total-Count</em>
      * @param pageable the pagination information
      * @return the ResponseEntity with status 200 (OK) and the list of announcements in body
      * @throws URISyntaxException if there is an error to generate the pagination HTTP headers
      */
     @PreAuthorize("permitAll()")
     @GetMapping("/announcements/deleted/{status}")
-    public ResponseEntity<List<AnnouncementDTO>> getAllAnnouncementsByStatus(Pageable pageable, @PathVariable Boolean status)
+    public ResponseEntity<List<AnnouncementDTO>> getAllAnnouncementsByStatus(Pageable pageable, @PathVariable Boolean status,
+                                                                             @RequestParam(value = "count", defaultValue = "true") boolean count)
             throws URISyntaxException {
 
         // If User is not ADMIN and want to get DELETED announcements
         if (!userSecurityUtil.checkAuthType(AuthorityRoles.ADMIN) && status)
             return new ResponseEntity<>(HttpStatus.METHOD_NOT_ALLOWED);
 
-        Page<AnnouncementDTO> page = announcementService.findAllByStatus(status, pageable)
-                .map(announcement -> announcement.convertToDTO());
-        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/announcements/deleted");
+        if (!count) {
+            Slice<AnnouncementDTO> slice = announcementService.findSliceByStatusAsDTO(status, pageable);
+            HttpHeaders headers = PaginationUtil.generateSliceHttpHeaders(slice);
+            return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+        }
+
+        Page<AnnouncementDTO> page = announcementService.findAllByStatusAsDTO(status, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page);
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
 
@@ -449,6 +605,54 @@ public class AnnouncementController {
     }
 
 
+    /**
+     * POST  /announcements/verification/claim : Claim announcements waiting for verification.
+     * <p>
+     * Claimed announcements are not offered to other verifiers until the claim is released
+     * with a decision, or until it expires.
+     *
+     * @param count maximal number of announcements to claim, limited by the configured maximum
+     * @return the ResponseEntity with status 200 (OK) and with body the claimed announcements,
+     * which is empty if there are no announcements waiting for verification
+     */
+    @PreAuthorize("hasAuthority(T(rs.acs.uns.sw.sct.util.AuthorityRoles).VERIFIER)")
+    @PostMapping("/announcements/verification/claim")
+    public ResponseEntity<List<AnnouncementDTO>> claimForVerification(@RequestParam(value = "count", defaultValue = "10") Integer count) {
+        final List<Announcement> announcements = announcementService.claimForVerification(
+                userSecurityUtil.getLoggedUserUsername(), Math.max(1, Math.min(count, maxClaimCount)));
+
+        return new ResponseEntity<>(announcements.stream()
+                .map(Announcement::convertToDTO)
+                .collect(Collectors.toList()), HttpStatus.OK);
+    }
+
+    /**
+     * PUT  /announcements/verify : Apply decisions about claimed announcements.
+     * <p>
+     * All decisions are applied in one transaction. Decisions about announcements which are not claimed
+     * by the current verifier, or whose claim has expired, are not applied.
+     *
+     * @param decisions decisions about claimed announcements
+     * @return the ResponseEntity with status 200 (OK) and with body the result of every decision,
+     * or with status 400 (Bad Request) if there are too many decisions
+     */
+    @PreAuthorize("hasAuthority(T(rs.acs.uns.sw.sct.util.AuthorityRoles).VERIFIER)")
+    @PutMapping("/announcements/verify")
+    public ResponseEntity<List<AnnouncementBatchResultDTO>> verifyAnnouncements(@RequestBody List<VerificationDecisionDTO> decisions) {
+        if (decisions.size() > maxBatchSize) {
+            return ResponseEntity
+                    .badRequest()
+                    .headers(HeaderUtil.failure(
+                            Constants.EntityNames.ANNOUNCEMENT,
+                            HeaderUtil.ERROR_CODE_BATCH_TOO_LARGE,
+                            HeaderUtil.ERROR_MSG_BATCH_TOO_LARGE))
+                    .body(null);
+        }
+
+        return new ResponseEntity<>(announcementService.decideAll(userSecurityUtil.getLoggedUserUsername(), decisions),
+                HttpStatus.OK);
+    }
+
     /**
      * GET  /announcements/search : get all the announcements that satisfied search params.
      *
@@ -462,6 +666,7 @@ public class AnnouncementController {
      * @param endArea           tip limit of real estate square area
      * @param heatingType       type of heating in real estate
      * @param name              name of the announcement
+     * @param keywords          words contained in the name or description of the announcement
      * @param country           country where real estate is located
      * @param cityRegion        city region where real estate is located
      * @param city              city where real estate is located
@@ -473,6 +678,9 @@ public class AnnouncementController {
      * @param airConditioner    airConditioner equipment
      * @param videoSurveillance videoSurveillance equipment
      * @param cableTV           cableTV equipment
+     * @param count             false to skip counting all announcements, <em>X-Has-Next</em> header is returned instead of <em>X-Total-Count</em>
+     * @param estimate          true to estimate number of all announcements, <em>X-Total-Count-Estimate</em> and
+     *                          <em>X-Total-Count-Error</em> headers are returned instead of <em>X-Total-Count</em>
      * @param pageable          the pagination information
      * @return the ResponseEntity with status 200 (OK) and the list of announcements in body
      * @throws URISyntaxException if there is an error to generate the pagination HTTP headers
@@ -489,6 +697,7 @@ public class AnnouncementController {
                                                         @RequestParam(value = "endArea", required = false) Double endArea,
                                                         @RequestParam(value = "heatingType", required = false) String heatingType,
                                                         @RequestParam(value = "name", required = false) String name,
+                                                        @RequestParam(value = "keywords", required = false) String keywords,
                                                         @RequestParam(value = "country", required = false) String country,
                                                         @RequestParam(value = "cityRegion", required = false) String cityRegion,
                                                         @RequestParam(value = "city", required = false) String city,
@@ -500,6 +709,8 @@ public class AnnouncementController {
                                                         @RequestParam(value = "airConditioner", required = false) Boolean airConditioner,
                                                         @RequestParam(value = "videoSurveillance", required = false) Boolean videoSurveillance,
                                                         @RequestParam(value = "cableTV", required = false) Boolean cableTV,
+                                                        @RequestParam(value = "count", defaultValue = "true") boolean count,
+                                                        @RequestParam(value = "estimate", defaultValue = "false") boolean estimate,
                                                         Pageable pageable) throws URISyntaxException {
 
         AnnouncementSearchWrapper wrap = new AnnouncementSearchWrapper()
@@ -508,6 +719,7 @@ public class AnnouncementController {
                 .authorName(authorName).authorSurname(authorSurname)
                 .startArea(startArea).endArea(endArea)
                 .heatingType(heatingType).name(name)
+                .keywords(keywords)
                 .country(country).cityRegion(cityRegion)
                 .city(city).street(street)
                 .streetNumber(streetNumber)
@@ -518,13 +730,42 @@ public class AnnouncementController {
                 .videoSurveillance(videoSurveillance)
                 .cableTV(cableTV);
 
-        Page<AnnouncementDTO> page = announcementService.findBySearchTerm(wrap, pageable)
-                .map(announcement -> announcement.convertToDTO());
+        if (estimate) {
+            Slice<AnnouncementDTO> slice = announcementService.findSliceBySearchTermAsDTO(wrap, pageable);
+            // last non-empty slice already tells the exact total
+            CountEstimate total = slice.hasNext() || (!slice.hasContent() && slice.hasPrevious())
+                    ? announcementService.estimateBySearchTerm(wrap)
+                    : CountEstimate.exact((long) slice.getNumber() * slice.getSize() + slice.getNumberOfElements());
+            HttpHeaders headers = PaginationUtil.generateEstimateHttpHeaders(slice, total);
+            return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+        }
 
-        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/announcements/search");
+        if (!count) {
+            Slice<AnnouncementDTO> slice = announcementService.findSliceBySearchTermAsDTO(wrap, pageable);
+            HttpHeaders headers = PaginationUtil.generateSliceHttpHeaders(slice);
+            return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+        }
+
+        Page<AnnouncementDTO> page = announcementService.findBySearchTermAsDTO(wrap, pageable);
+
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page);
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
 
+    /**
+     * GET  /announcements/search/facets : count the announcements that satisfied search params, for every facet value.
+     * <p>
+     * Accepts the same query params as <em>/announcements/search</em>.
+     *
+     * @param searchWrapper wrapper of all search params
+     * @return the ResponseEntity with status 200 (OK) and facet counts in body
+     */
+    @PreAuthorize("permitAll()")
+    @GetMapping("/announcements/search/facets")
+    public ResponseEntity<AnnouncementFacetsDTO> searchFacets(AnnouncementSearchWrapper searchWrapper) {
+        return new ResponseEntity<>(announcementService.findFacetsBySearchTerm(searchWrapper), HttpStatus.OK);
+    }
+
     /**
      * GET  /announcements/location-search
      *
@@ -532,6 +773,7 @@ public class AnnouncementController {
      * @param topRightLong   Top right corner longitude
      * @param bottomLeftLat  Bottom left corner latitude
      * @param bottomLeftLong Bottom left corner longitude
+     * @param count          false to skip counting all announcements, <em>X-Has-Next</em> header is returned instead of <em>X-Total-Count</em>
      * @param pageable       the pagination information
      * @return the ResponseEntity with status 200 (OK) and the list of announcements which contains real estate in provided area
      * @throws URISyntaxException if there is an error to generate the pagination HTTP headers
@@ -542,13 +784,19 @@ public class AnnouncementController {
                                                                            @RequestParam(value = "topRightLong") Double topRightLong,
                                                                            @RequestParam(value = "bottomLeftLat") Double bottomLeftLat,
                                                                            @RequestParam(value = "bottomLeftLong") Double bottomLeftLong,
+                                                                           @RequestParam(value = "count", defaultValue = "true") boolean count,
                                                                            Pageable pageable)
             throws URISyntaxException {
 
-        Page<AnnouncementDTO> page = announcementService.findAllInArea(topRightLong, topRightLat, bottomLeftLong, bottomLeftLat, pageable)
-                .map(announcement -> announcement.convertToDTO());
+        if (!count) {
+            Slice<AnnouncementDTO> slice = announcementService.findSliceInAreaAsDTO(topRightLong, topRightLat, bottomLeftLong, bottomLeftLat, pageable);
+            HttpHeaders headers = PaginationUtil.generateSliceHttpHeaders(slice);
+            return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+        }
+
+        Page<AnnouncementDTO> page = announcementService.findAllInAreaAsDTO(topRightLong, topRightLat, bottomLeftLong, bottomLeftLat, pageable);
 
-        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/announcements/location-search");
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page);
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
 }
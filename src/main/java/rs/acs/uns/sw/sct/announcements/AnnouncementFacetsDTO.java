@@ -0,0 +1,83 @@
+package rs.acs.uns.sw.sct.announcements;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Announcement search facets Data Transfer Object.
+ * <p>
+ * Contains number of announcements matching the search for every value of every facet.
+ */
+public class AnnouncementFacetsDTO implements Serializable {
+
+    private Long total = 0L;
+
+    private Map<String, Long> price = new LinkedHashMap<>();
+
+    private Map<String, Long> area = new LinkedHashMap<>();
+
+    private Map<String, Long> heatingType = new LinkedHashMap<>();
+
+    private Map<String, Long> type = new LinkedHashMap<>();
+
+    private Map<String, Long> city = new LinkedHashMap<>();
+
+    private Map<String, Long> amenities = new LinkedHashMap<>();
+
+    public Long getTotal() {
+        return total;
+    }
+
+    public void setTotal(Long total) {
+        this.total = total;
+    }
+
+    public Map<String, Long> getPrice() {
+        return price;
+    }
+
+    public void setPrice(Map<String, Long> price) {
+        this.price = price;
+    }
+
+    public Map<String, Long> getArea() {
+        return area;
+    }
+
+    public void setArea(Map<String, Long> area) {
+        this.area = area;
+    }
+
+    public Map<String, Long> getHeatingType() {
+        return heatingType;
+    }
+
+    public void setHeatingType(Map<String, Long> heatingType) {
+        this.heatingType = heatingType;
+    }
+
+    public Map<String, Long> getType() {
+        return type;
+    }
+
+    public void setType(Map<String, Long> type) {
+        this.type = type;
+    }
+
+    public Map<String, Long> getCity() {
+        return city;
+    }
+
+    public void setCity(Map<String, Long> city) {
+        this.city = city;
+    }
+
+    public Map<String, Long> getAmenities() {
+        return amenities;
+    }
+
+    public void setAmenities(Map<String, Long> amenities) {
+        this.amenities = amenities;
+    }
+}
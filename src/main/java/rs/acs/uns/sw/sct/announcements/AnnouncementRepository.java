@@ -2,16 +2,18 @@ package rs.acs.uns.sw.sct.announcements;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.querydsl.QueryDslPredicateExecutor;
 
-import java.util.Date;
+import java.util.Collection;
 import java.util.List;
 
 /**
  * Spring Data JPA repository for the Announcement entity.
  */
-public interface AnnouncementRepository extends JpaRepository<Announcement, Long>, QueryDslPredicateExecutor<Announcement> {
+public interface AnnouncementRepository extends JpaRepository<Announcement, Long>, QueryDslPredicateExecutor<Announcement>,
+        AnnouncementRepositoryCustom {
 
     /**
      * Get all announcements where 'delete' status is 'true' or 'false'.
@@ -20,17 +22,18 @@ public interface AnnouncementRepository extends JpaRepository<Announcement, Long
      * @param pageable the pagination information
      * @return list of announcements
      */
+    @EntityGraph(Announcement.LISTING_GRAPH)
     Page<Announcement> findAllByDeleted(Boolean deleted, Pageable pageable);
 
     /**
-     * Get all announcements created by one company.
+     * Get all announcements created by one company which are not expired.
      *
      * @param companyId the id of the company
-     * @param date      expiration date of announcement
      * @param pageable  the pagination information
      * @return list of announcements
      */
-    Page<Announcement> findByAuthor_Company_IdAndExpirationDateAfter(Long companyId, Date date, Pageable pageable);
+    @EntityGraph(Announcement.LISTING_GRAPH)
+    Page<Announcement> findByAuthor_Company_IdAndExpiredFalse(Long companyId, Pageable pageable);
 
     /**
      * Get all announcements created by specified Author ID.
@@ -39,6 +42,7 @@ public interface AnnouncementRepository extends JpaRepository<Announcement, Long
      * @param pageable the pagination information
      * @return list of announcements
      */
+    @EntityGraph(Announcement.LISTING_GRAPH)
     Page<Announcement> findByAuthor_Id(Long authorId, Pageable pageable);
 
     /**
@@ -49,15 +53,39 @@ public interface AnnouncementRepository extends JpaRepository<Announcement, Long
      * @param pageable the pagination information
      * @return list of announcements
      */
+    @EntityGraph(Announcement.LISTING_GRAPH)
     Page<Announcement> findByAuthor_Id_AndDeleted(Long authorId, Boolean deleted, Pageable pageable);
 
     /**
-     * Get first 3 announcements by Company order by price ascending.
+     * Get all announcements of the provided real estates.
      *
-     * @param companyId the id of the company
-     * @param date      expiration date of announcement
+     * @param realEstateIds ids of the real estates
+     * @return list of announcements
+     */
+    List<Announcement> findByRealEstate_IdIn(Collection<Long> realEstateIds);
+
+    /**
+     * Get all announcements whose real estates are on the provided locations.
+     *
+     * @param locationIds ids of the locations
+     * @return list of announcements
+     */
+    List<Announcement> findByRealEstate_Location_IdIn(Collection<Long> locationIds);
+
+    /**
+     * Get all announcements of the provided authors.
+     *
+     * @param authorIds ids of the authors
      * @return list of announcements
      */
-    List<Announcement> findFirst3ByAuthor_Company_IdAndExpirationDateAfterOrderByPriceAsc(Long companyId, Date date);
+    List<Announcement> findByAuthor_IdIn(Collection<Long> authorIds);
 
-}
\ No newline at end of file
+    /**
+     * Get announcements with provided ids, together with their details.
+     *
+     * @param ids ids of the announcements
+     * @return list of announcements, in no particular order
+     */
+    @EntityGraph(Announcement.LISTING_GRAPH)
+    List<Announcement> findByIdIn(Collection<Long> ids);
+}
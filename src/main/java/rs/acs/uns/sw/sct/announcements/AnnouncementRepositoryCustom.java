@@ -0,0 +1,107 @@
+package rs.acs.uns.sw.sct.announcements;
+
+import com.querydsl.core.types.Predicate;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import rs.acs.uns.sw.sct.util.CursorPage;
+import rs.acs.uns.sw.sct.util.KeysetRequest;
+
+import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Custom queries of the Announcement repository, which can't be derived from method names.
+ */
+public interface AnnouncementRepositoryCustom {
+
+    /**
+     * Get all announcements which satisfy predicate, together with their real estate, location,
+     * author and author's company, fetched in the same query.
+     *
+     * @param predicate search predicate
+     * @param pageable  the pagination information
+     * @return list of announcements
+     */
+    Page<Announcement> findAllWithDetails(Predicate predicate, Pageable pageable);
+
+    /**
+     * Get all announcements which satisfy predicate, as DTOs read directly from the selected columns,
+     * without loading managed entities into the persistence context.
+     *
+     * @param predicate search predicate
+     * @param pageable  the pagination information
+     * @return list of announcement DTOs
+     */
+    Page<AnnouncementDTO> findAllAsDTO(Predicate predicate, Pageable pageable);
+
+    /**
+     * Get one slice of announcements which satisfy predicate, as DTOs read directly from the selected columns.
+     * <p>
+     * Total number of announcements is not counted, slice only knows if there is the next one.
+     *
+     * @param predicate search predicate
+     * @param pageable  the pagination information
+     * @return slice of announcement DTOs
+     */
+    Slice<AnnouncementDTO> findSliceAsDTO(Predicate predicate, Pageable pageable);
+
+    /**
+     * Read all announcements which satisfy predicate as DTOs, ordered by id, with a forward-only cursor.
+     * <p>
+     * Rows are handed over in batches and only one batch is held in memory at a time,
+     * so the whole table can be read with constant memory.
+     *
+     * @param predicate search predicate
+     * @param batchSize number of DTOs in one batch, also used as JDBC fetch size
+     * @param consumer  receives every batch of DTOs
+     */
+    void forEachAsDTO(Predicate predicate, int batchSize, Consumer<List<AnnouncementDTO>> consumer);
+
+    /**
+     * Get one keyset page of announcements which satisfy predicate, as DTOs read directly
+     * from the selected columns.
+     *
+     * @param predicate search predicate
+     * @param request   the keyset pagination information
+     * @return page of announcement DTOs
+     */
+    CursorPage<AnnouncementDTO> findAllAsDTO(Predicate predicate, KeysetRequest request);
+
+    /**
+     * Get ids of announcements waiting for verification which are not claimed by any verifier,
+     * or whose claim has expired.
+     *
+     * @param now   current time
+     * @param limit maximal number of ids
+     * @return ids sorted ascending
+     */
+    List<Long> findClaimableIds(Date now, int limit);
+
+    /**
+     * Claim announcement for verification, if it is still waiting for verification and not claimed.
+     * <p>
+     * Claim is a single conditional update of the announcement row, so only one of the concurrent
+     * verifiers can succeed.
+     *
+     * @param id       the id of the announcement
+     * @param verifier username of the verifier
+     * @param now      current time
+     * @param leaseEnd time when the claim expires
+     * @return true if announcement is claimed
+     */
+    boolean claim(Long id, String verifier, Date now, Date leaseEnd);
+
+    /**
+     * Release the claim of the verifier, and verify the announcement if requested.
+     * Nothing is changed if the announcement is not claimed by the verifier, or the claim has expired.
+     *
+     * @param id       the id of the announcement
+     * @param verifier username of the verifier
+     * @param now      current time
+     * @param verify   true if announcement should be verified, false if it is only released
+     * @return true if the claim was held by the verifier
+     */
+    boolean releaseClaim(Long id, String verifier, Date now, boolean verify);
+}
@@ -0,0 +1,310 @@
+package rs.acs.uns.sw.sct.announcements;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.JPQLQuery;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.repository.support.Querydsl;
+import rs.acs.uns.sw.sct.companies.Company;
+import rs.acs.uns.sw.sct.companies.QCompany;
+import rs.acs.uns.sw.sct.realestates.Location;
+import rs.acs.uns.sw.sct.realestates.QLocation;
+import rs.acs.uns.sw.sct.realestates.QRealEstate;
+import rs.acs.uns.sw.sct.realestates.RealEstate;
+import rs.acs.uns.sw.sct.users.QUser;
+import rs.acs.uns.sw.sct.users.UserDTO;
+import rs.acs.uns.sw.sct.util.Constants;
+import rs.acs.uns.sw.sct.util.CursorPage;
+import rs.acs.uns.sw.sct.util.KeysetRequest;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Implementation of custom Announcement repository queries.
+ */
+public class AnnouncementRepositoryImpl implements AnnouncementRepositoryCustom {
+
+    private static final QAnnouncement ANNOUNCEMENT = QAnnouncement.announcement;
+    private static final QRealEstate REAL_ESTATE = QRealEstate.realEstate;
+    private static final QLocation LOCATION = QLocation.location;
+    private static final QUser AUTHOR = QUser.user;
+    private static final QCompany COMPANY = QCompany.company;
+    private static final QImage IMAGE = QImage.image;
+
+    private static final Expression<?>[] DTO_COLUMNS = {
+            ANNOUNCEMENT.id, ANNOUNCEMENT.price, ANNOUNCEMENT.name, ANNOUNCEMENT.description,
+            ANNOUNCEMENT.dateAnnounced, ANNOUNCEMENT.expirationDate, ANNOUNCEMENT.phoneNumber,
+            ANNOUNCEMENT.type, ANNOUNCEMENT.verified,
+            REAL_ESTATE.id, REAL_ESTATE.type, REAL_ESTATE.area, REAL_ESTATE.heatingType, REAL_ESTATE.deleted,
+            REAL_ESTATE.intercom, REAL_ESTATE.internet, REAL_ESTATE.phone, REAL_ESTATE.airConditioner,
+            REAL_ESTATE.videoSurveillance, REAL_ESTATE.cableTV,
+            LOCATION.id, LOCATION.country, LOCATION.city, LOCATION.cityRegion, LOCATION.street,
+            LOCATION.streetNumber, LOCATION.latitude, LOCATION.longitude,
+            AUTHOR.id, AUTHOR.email, AUTHOR.username, AUTHOR.firstName, AUTHOR.lastName, AUTHOR.phoneNumber,
+            AUTHOR.type, AUTHOR.companyVerified, AUTHOR.imagePath,
+            COMPANY.id, COMPANY.name, COMPANY.address, COMPANY.phoneNumber, COMPANY.imagePath
+    };
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<Announcement> findAllWithDetails(Predicate predicate, Pageable pageable) {
+        final JPQLQuery<Announcement> query = new JPAQuery<Void>(entityManager)
+                .select(ANNOUNCEMENT)
+                .from(ANNOUNCEMENT)
+                .leftJoin(ANNOUNCEMENT.realEstate, REAL_ESTATE).fetchJoin()
+                .leftJoin(REAL_ESTATE.location, LOCATION).fetchJoin()
+                .leftJoin(ANNOUNCEMENT.author, AUTHOR).fetchJoin()
+                .leftJoin(AUTHOR.company, COMPANY).fetchJoin()
+                .where(predicate);
+
+        return page(querydsl().applyPagination(pageable, query).fetch(), predicate, pageable);
+    }
+
+    @Override
+    public Page<AnnouncementDTO> findAllAsDTO(Predicate predicate, Pageable pageable) {
+        final JPQLQuery<Tuple> query = dtoQuery(DTO_COLUMNS).where(predicate);
+
+        return page(toDTOs(querydsl().applyPagination(pageable, query).fetch()), predicate, pageable);
+    }
+
+    @Override
+    public Slice<AnnouncementDTO> findSliceAsDTO(Predicate predicate, Pageable pageable) {
+        final JPQLQuery<Tuple> query = querydsl().applySorting(pageable.getSort(), dtoQuery(DTO_COLUMNS).where(predicate));
+
+        // one row more than requested tells if there is the next slice
+        final List<Tuple> rows = query
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize() + 1)
+                .fetch();
+
+        final boolean hasNext = rows.size() > pageable.getPageSize();
+        return new SliceImpl<>(toDTOs(hasNext ? rows.subList(0, pageable.getPageSize()) : rows), pageable, hasNext);
+    }
+
+    @Override
+    public CursorPage<AnnouncementDTO> findAllAsDTO(Predicate predicate, KeysetRequest request) {
+        final List<Tuple> rows = dtoQuery(request.columns(DTO_COLUMNS))
+                .where(predicate, request.seek())
+                .orderBy(request.orderBy())
+                .limit(request.limit())
+                .fetch();
+
+        final CursorPage<Tuple> page = request.toPage(rows, row -> row);
+        return new CursorPage<>(toDTOs(page.getContent()), page.getNextCursor());
+    }
+
+    @Override
+    public void forEachAsDTO(Predicate predicate, int batchSize, Consumer<List<AnnouncementDTO>> consumer) {
+        final CloseableIterator<Tuple> rows = dtoQuery(DTO_COLUMNS)
+                .where(predicate)
+                .orderBy(ANNOUNCEMENT.id.asc())
+                // MySQL driver reads the whole result at once unless url of the data source sets useCursorFetch=true
+                .setHint(QueryHints.FETCH_SIZE, batchSize)
+                .iterate();
+        try {
+            final List<Tuple> batch = new ArrayList<>(batchSize);
+            while (rows.hasNext()) {
+                batch.add(rows.next());
+                if (batch.size() == batchSize) {
+                    consumer.accept(toDTOs(batch));
+                    batch.clear();
+                    // rows are not managed, but nothing loaded on the side may accumulate either
+                    entityManager.clear();
+                }
+            }
+            if (!batch.isEmpty())
+                consumer.accept(toDTOs(batch));
+        } finally {
+            rows.close();
+        }
+    }
+
+    @Override
+    public List<Long> findClaimableIds(Date now, int limit) {
+        return new JPAQuery<Void>(entityManager)
+                .select(ANNOUNCEMENT.id)
+                .from(ANNOUNCEMENT)
+                .where(claimable(now))
+                .orderBy(ANNOUNCEMENT.id.asc())
+                .limit(limit)
+                .fetch();
+    }
+
+    // claims and decisions update rows directly, bypassing SearchIndexListener, which is fine since
+    // no in-memory index depends on verification status or claims
+    @Override
+    public boolean claim(Long id, String verifier, Date now, Date leaseEnd) {
+        return new JPAUpdateClause(entityManager, ANNOUNCEMENT)
+                .set(ANNOUNCEMENT.claimedBy, verifier)
+                .set(ANNOUNCEMENT.claimExpiresAt, leaseEnd)
+                .where(ANNOUNCEMENT.id.eq(id), claimable(now))
+                .execute() == 1;
+    }
+
+    @Override
+    public boolean releaseClaim(Long id, String verifier, Date now, boolean verify) {
+        final JPAUpdateClause update = new JPAUpdateClause(entityManager, ANNOUNCEMENT)
+                .setNull(ANNOUNCEMENT.claimedBy)
+                .setNull(ANNOUNCEMENT.claimExpiresAt);
+        if (verify)
+            update.set(ANNOUNCEMENT.verified, Constants.VerifiedStatuses.VERIFIED);
+
+        return update
+                .where(ANNOUNCEMENT.id.eq(id),
+                        ANNOUNCEMENT.claimedBy.eq(verifier),
+                        ANNOUNCEMENT.claimExpiresAt.goe(now),
+                        ANNOUNCEMENT.verified.eq(Constants.VerifiedStatuses.NOT_VERIFIED))
+                .execute() == 1;
+    }
+
+    private static Predicate claimable(Date now) {
+        return ANNOUNCEMENT.verified.eq(Constants.VerifiedStatuses.NOT_VERIFIED)
+                .and(ANNOUNCEMENT.deleted.eq(false))
+                .and(ANNOUNCEMENT.claimExpiresAt.isNull().or(ANNOUNCEMENT.claimExpiresAt.lt(now)));
+    }
+
+    /**
+     * Creates query which selects provided columns of announcements joined with all associations of the DTO.
+     *
+     * @param columns selected columns
+     * @return query without restrictions
+     */
+    private JPAQuery<Tuple> dtoQuery(Expression<?>... columns) {
+        return new JPAQuery<Void>(entityManager)
+                .select(columns)
+                .from(ANNOUNCEMENT)
+                .leftJoin(ANNOUNCEMENT.realEstate, REAL_ESTATE)
+                .leftJoin(REAL_ESTATE.location, LOCATION)
+                .leftJoin(ANNOUNCEMENT.author, AUTHOR)
+                .leftJoin(AUTHOR.company, COMPANY);
+    }
+
+    /**
+     * Converts selected rows to DTOs, and reads images of all of them with one query.
+     *
+     * @param rows rows selected with {@link #DTO_COLUMNS}
+     * @return DTOs in the same order as rows
+     */
+    private List<AnnouncementDTO> toDTOs(List<Tuple> rows) {
+        final Map<Long, AnnouncementDTO> announcements = new LinkedHashMap<>();
+        for (Tuple row : rows)
+            announcements.put(row.get(ANNOUNCEMENT.id), toDTO(row));
+
+        if (!announcements.isEmpty()) {
+            final List<Tuple> images = new JPAQuery<Void>(entityManager)
+                    .select(ANNOUNCEMENT.id, IMAGE.id, IMAGE.imagePath)
+                    .from(ANNOUNCEMENT)
+                    .join(ANNOUNCEMENT.images, IMAGE)
+                    .where(ANNOUNCEMENT.id.in(announcements.keySet()))
+                    .fetch();
+            for (Tuple image : images) {
+                announcements.get(image.get(ANNOUNCEMENT.id)).getImages()
+                        .add(new Image().id(image.get(IMAGE.id)).imagePath(image.get(IMAGE.imagePath)));
+            }
+        }
+
+        return new ArrayList<>(announcements.values());
+    }
+
+    private Querydsl querydsl() {
+        return new Querydsl(entityManager, new PathBuilder<>(Announcement.class, ANNOUNCEMENT.getMetadata()));
+    }
+
+    private <T> Page<T> page(List<T> content, Predicate predicate, Pageable pageable) {
+        if (pageable == null)
+            return new PageImpl<>(content);
+
+        // count query is not needed if the whole result fits into the first page
+        if (pageable.getOffset() == 0 && content.size() < pageable.getPageSize())
+            return new PageImpl<>(content, pageable, content.size());
+
+        final long total = new JPAQuery<Void>(entityManager)
+                .from(ANNOUNCEMENT)
+                .where(predicate)
+                .fetchCount();
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    private static AnnouncementDTO toDTO(Tuple row) {
+        final AnnouncementDTO announcement = new AnnouncementDTO()
+                .id(row.get(ANNOUNCEMENT.id))
+                .price(row.get(ANNOUNCEMENT.price))
+                .name(row.get(ANNOUNCEMENT.name))
+                .description(row.get(ANNOUNCEMENT.description))
+                .dateAnnounced(row.get(ANNOUNCEMENT.dateAnnounced))
+                .expirationDate(row.get(ANNOUNCEMENT.expirationDate))
+                .phoneNumber(row.get(ANNOUNCEMENT.phoneNumber))
+                .type(row.get(ANNOUNCEMENT.type))
+                .verified(row.get(ANNOUNCEMENT.verified))
+                .images(new HashSet<>());
+
+        if (row.get(REAL_ESTATE.id) != null) {
+            final RealEstate realEstate = new RealEstate()
+                    .id(row.get(REAL_ESTATE.id))
+                    .type(row.get(REAL_ESTATE.type))
+                    .area(row.get(REAL_ESTATE.area))
+                    .heatingType(row.get(REAL_ESTATE.heatingType))
+                    .deleted(row.get(REAL_ESTATE.deleted))
+                    .intercom(row.get(REAL_ESTATE.intercom))
+                    .internet(row.get(REAL_ESTATE.internet))
+                    .phone(row.get(REAL_ESTATE.phone))
+                    .airConditioner(row.get(REAL_ESTATE.airConditioner))
+                    .videoSurveillance(row.get(REAL_ESTATE.videoSurveillance))
+                    .cableTV(row.get(REAL_ESTATE.cableTV));
+
+            if (row.get(LOCATION.id) != null) {
+                realEstate.location(new Location()
+                        .id(row.get(LOCATION.id))
+                        .country(row.get(LOCATION.country))
+                        .city(row.get(LOCATION.city))
+                        .cityRegion(row.get(LOCATION.cityRegion))
+                        .street(row.get(LOCATION.street))
+                        .streetNumber(row.get(LOCATION.streetNumber))
+                        .latitude(row.get(LOCATION.latitude))
+                        .longitude(row.get(LOCATION.longitude)));
+            }
+            announcement.realEstate(realEstate);
+        }
+
+        if (row.get(AUTHOR.id) != null) {
+            final UserDTO author = new UserDTO()
+                    .id(row.get(AUTHOR.id))
+                    .email(row.get(AUTHOR.email))
+                    .username(row.get(AUTHOR.username))
+                    .firstName(row.get(AUTHOR.firstName))
+                    .lastName(row.get(AUTHOR.lastName))
+                    .phoneNumber(row.get(AUTHOR.phoneNumber))
+                    .type(row.get(AUTHOR.type))
+                    .companyVerified(row.get(AUTHOR.companyVerified))
+                    .imagePath(row.get(AUTHOR.imagePath));
+
+            if (row.get(COMPANY.id) != null) {
+                final Company company = new Company()
+                        .id(row.get(COMPANY.id))
+                        .name(row.get(COMPANY.name))
+                        .address(row.get(COMPANY.address))
+                        .phoneNumber(row.get(COMPANY.phoneNumber));
+                company.setImagePath(row.get(COMPANY.imagePath));
+                author.company(company);
+            }
+            announcement.author(author);
+        }
+
+        return announcement;
+    }
+}
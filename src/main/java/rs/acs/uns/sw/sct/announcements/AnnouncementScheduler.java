@@ -0,0 +1,107 @@
+package rs.acs.uns.sw.sct.announcements;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import rs.acs.uns.sw.sct.search.AnnouncementIndex;
+import rs.acs.uns.sw.sct.search.AnnouncementIndexer;
+import rs.acs.uns.sw.sct.util.TimerWheel;
+
+import javax.annotation.PostConstruct;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Expires and publishes announcements once their dates pass.
+ * <p>
+ * Expiration and publishing dates are kept in timer wheels, which are maintained by {@link AnnouncementIndexer}
+ * like any other index, so they are rebuilt from the database at startup and updated on every write.
+ * Wheels are advanced every tick, and due announcements are updated through {@link AnnouncementService},
+ * so indexes and caches see the change as any other write.
+ */
+@Component
+public class AnnouncementScheduler implements AnnouncementIndex {
+
+    @Autowired
+    private AnnouncementService announcementService;
+
+    @Value("${sct.timer.tick-millis}")
+    private long tickMillis;
+
+    @Value("${sct.timer.wheel-size}")
+    private int wheelSize;
+
+    @Value("${sct.timer.enabled}")
+    private boolean enabled;
+
+    private TimerWheel<Long> expirations;
+    private TimerWheel<Long> publications;
+
+    /**
+     * Creates timer wheels with configured tick and size.
+     */
+    @PostConstruct
+    public void init() {
+        expirations = new TimerWheel<>(tickMillis, wheelSize);
+        publications = new TimerWheel<>(tickMillis, wheelSize);
+    }
+
+    @Override
+    public void index(Announcement announcement) {
+        if (Boolean.TRUE.equals(announcement.isExpired()) || announcement.getExpirationDate() == null)
+            expirations.cancel(announcement.getId());
+        else
+            expirations.schedule(announcement.getId(), announcement.getExpirationDate().getTime());
+
+        if (announcement.getPublishAt() == null)
+            publications.cancel(announcement.getId());
+        else
+            publications.schedule(announcement.getId(), announcement.getPublishAt().getTime());
+    }
+
+    @Override
+    public void remove(Long id) {
+        expirations.cancel(id);
+        publications.cancel(id);
+    }
+
+    @Override
+    public void clear() {
+        expirations.clear();
+        publications.clear();
+    }
+
+    /**
+     * Advances timer wheels to current time, and expires and publishes announcements whose dates have passed.
+     * Nothing is done while the timer is disabled.
+     */
+    @Scheduled(fixedDelayString = "${sct.timer.tick-millis}")
+    public void tick() {
+        if (!enabled)
+            return;
+
+        final long now = System.currentTimeMillis();
+
+        final List<Long> expired = expirations.advance(now);
+        if (!expired.isEmpty()) {
+            try {
+                announcementService.expire(expired, new Date(now));
+            } catch (RuntimeException e) {
+                // retried on the next tick
+                expired.forEach(id -> expirations.schedule(id, now));
+                throw e;
+            }
+        }
+
+        final List<Long> published = publications.advance(now);
+        if (!published.isEmpty()) {
+            try {
+                announcementService.publish(published, new Date(now));
+            } catch (RuntimeException e) {
+                published.forEach(id -> publications.schedule(id, now));
+                throw e;
+            }
+        }
+    }
+}
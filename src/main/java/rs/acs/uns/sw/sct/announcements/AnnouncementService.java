@@ -1,19 +1,62 @@
 package rs.acs.uns.sw.sct.announcements;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.jpa.impl.JPAQuery;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import rs.acs.uns.sw.sct.realestates.QLocation;
+import rs.acs.uns.sw.sct.realestates.QRealEstate;
+import rs.acs.uns.sw.sct.realestates.RealEstate;
 import rs.acs.uns.sw.sct.search.AnnouncementSearchWrapper;
+import rs.acs.uns.sw.sct.search.CompanyTopIndex;
+import rs.acs.uns.sw.sct.search.FullTextIndex;
+import rs.acs.uns.sw.sct.search.LocationGridIndex;
+import rs.acs.uns.sw.sct.search.RealEstateBitmapIndex;
+import rs.acs.uns.sw.sct.search.SearchResultCache;
+import rs.acs.uns.sw.sct.search.UserSearchIndex;
+import rs.acs.uns.sw.sct.util.CountEstimate;
+import rs.acs.uns.sw.sct.util.CursorPage;
+import rs.acs.uns.sw.sct.util.HeaderUtil;
+import rs.acs.uns.sw.sct.util.KeysetRequest;
 
-import java.util.Date;
-import java.util.List;
-import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
 
+import static rs.acs.uns.sw.sct.search.AnnouncementPredicates.authorIdIn;
+import static rs.acs.uns.sw.sct.search.AnnouncementPredicates.idIn;
+import static rs.acs.uns.sw.sct.search.AnnouncementPredicates.inArea;
 import static rs.acs.uns.sw.sct.search.AnnouncementPredicates.search;
+import static rs.acs.uns.sw.sct.search.AnnouncementPredicates.withStatus;
 
 /**
  * Service Implementation for managing Announcement.
@@ -22,9 +65,83 @@ import static rs.acs.uns.sw.sct.search.AnnouncementPredicates.search;
 @Transactional
 public class AnnouncementService {
 
+    private static final int TOP_BY_COMPANY = 3;
+
+    // candidates are read again if concurrent verifiers claimed some of them, but not indefinitely
+    private static final int CLAIM_ROUNDS = 3;
+    // more candidates than requested are read and shuffled, so concurrent verifiers rarely try the same rows
+    private static final int CLAIM_CANDIDATES_FACTOR = 4;
+
+    private static final double[] PRICE_FACET_BOUNDS = {20000, 50000, 100000, 200000};
+    private static final double[] AREA_FACET_BOUNDS = {30, 50, 80, 120};
+
+    private static final Validator VALIDATOR = Validation.buildDefaultValidatorFactory().getValidator();
+
+    private static final Map<String, ComparableExpressionBase<?>> KEYSET_SORT_KEYS = new HashMap<>();
+
+    static {
+        KEYSET_SORT_KEYS.put("price", QAnnouncement.announcement.price);
+        KEYSET_SORT_KEYS.put("dateAnnounced", QAnnouncement.announcement.dateAnnounced);
+        KEYSET_SORT_KEYS.put("expirationDate", QAnnouncement.announcement.expirationDate);
+    }
+
     @Autowired
     private AnnouncementRepository announcementRepository;
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private LocationGridIndex locationGridIndex;
+
+    @Autowired
+    private FullTextIndex fullTextIndex;
+
+    @Autowired
+    private UserSearchIndex userSearchIndex;
+
+    @Autowired
+    private RealEstateBitmapIndex realEstateBitmapIndex;
+
+    @Autowired
+    private CompanyTopIndex companyTopIndex;
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${sct.index.grid.max-candidates}")
+    private Integer maxGridCandidates;
+
+    @Value("${sct.index.text.max-candidates}")
+    private Integer maxTextCandidates;
+
+    @Value("${sct.index.trigram.max-candidates}")
+    private Integer maxTrigramCandidates;
+
+    @Value("${sct.index.bitmap.max-candidates}")
+    private Integer maxBitmapCandidates;
+
+    @Value("${sct.export.batch-size}")
+    private Integer exportBatchSize;
+
+    @Value("${sct.estimate.sample-size}")
+    private Integer estimateSampleSize;
+
+    @Value("${sct.estimate.exact-below}")
+    private Long exactCountThreshold;
+
+    @Value("${sct.estimate.windows}")
+    private Integer estimateWindows;
+
+    @Value("${sct.verification.lease-seconds}")
+    private Integer verificationLeaseSeconds;
+
     /**
      * Save a announcement.
      *
@@ -35,6 +152,36 @@ public class AnnouncementService {
         return announcementRepository.save(announcement);
     }
 
+    /**
+     * Validate all announcements, and save them together if all of them are valid.
+     * <p>
+     * New real estates and locations are validated too, since they are saved by cascade.
+     * Announcements are saved in one transaction and flushed at once, so Hibernate
+     * groups inserts of every table into JDBC batches.
+     *
+     * @param announcements the entities to save
+     * @return result for every announcement, in the same order, with id of the saved announcement,
+     * or with validation errors if any announcement is not valid, in which case none of them are saved
+     */
+    public List<AnnouncementBatchResultDTO> saveAll(List<Announcement> announcements) {
+        final List<AnnouncementBatchResultDTO> results = new ArrayList<>();
+        boolean valid = true;
+        for (int i = 0; i < announcements.size(); i++) {
+            final List<String> errors = validate(announcements.get(i));
+            results.add(new AnnouncementBatchResultDTO(i, errors));
+            valid = valid && errors.isEmpty();
+        }
+        if (!valid)
+            return results;
+
+        announcementRepository.save(announcements);
+        announcementRepository.flush();
+
+        for (int i = 0; i < announcements.size(); i++)
+            results.get(i).setId(announcements.get(i).getId());
+        return results;
+    }
+
     /**
      * Get all the announcements.
      *
@@ -47,7 +194,8 @@ public class AnnouncementService {
     }
 
     /**
-     * Get all the announcements.
+     * Get all the announcements by status. Announcements which are not deleted
+     * are returned only while they are active, i.e. not expired and already published.
      *
      * @param status   deleted or not deleted
      * @param pageable the pagination information
@@ -55,11 +203,83 @@ public class AnnouncementService {
      */
     @Transactional(readOnly = true)
     public Page<Announcement> findAllByStatus(Boolean status, Pageable pageable) {
-        return announcementRepository.findAllByDeleted(status, pageable);
+        return announcementRepository.findAll(withStatus(status), pageable);
     }
 
     /**
-     * Get all the announcements.
+     * Get all the announcements as DTOs, without loading entities.
+     *
+     * @param status   deleted or not deleted, null for all announcements
+     * @param pageable the pagination information
+     * @return the list of DTOs
+     */
+    @Transactional(readOnly = true)
+    public Page<AnnouncementDTO> findAllByStatusAsDTO(Boolean status, Pageable pageable) {
+        return announcementRepository.findAllAsDTO(withStatus(status), pageable);
+    }
+
+    /**
+     * Get one slice of the announcements as DTOs, without counting all of them.
+     *
+     * @param status   deleted or not deleted, null for all announcements
+     * @param pageable the pagination information
+     * @return the slice of DTOs
+     */
+    @Transactional(readOnly = true)
+    public Slice<AnnouncementDTO> findSliceByStatusAsDTO(Boolean status, Pageable pageable) {
+        return announcementRepository.findSliceAsDTO(withStatus(status), pageable);
+    }
+
+    /**
+     * Get one keyset page of the announcements as DTOs, without loading entities.
+     *
+     * @param status   deleted or not deleted, null for all announcements
+     * @param after    token of the cursor, empty for the first page
+     * @param pageable page size, and sort order of the first page
+     * @return the page of DTOs
+     * @throws IllegalArgumentException if cursor is malformed or sort property is not supported
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<AnnouncementDTO> findAllByStatusAsDTO(Boolean status, String after, Pageable pageable) {
+        return announcementRepository.findAllAsDTO(withStatus(status),
+                KeysetRequest.of(after, pageable, QAnnouncement.announcement.id, KEYSET_SORT_KEYS));
+    }
+
+    /**
+     * Write all active announcements as newline-delimited JSON, one DTO per line, ordered by id.
+     * <p>
+     * Announcements are read with a forward-only cursor in batches, and every batch is written
+     * and flushed before the next one is read, so memory use doesn't depend on the number of announcements.
+     *
+     * @param out stream which receives the export, it is not closed
+     * @throws IOException if writing to the stream fails
+     */
+    @Transactional(readOnly = true)
+    public void exportActive(OutputStream out) throws IOException {
+        final ObjectWriter writer = objectMapper.writerFor(AnnouncementDTO.class);
+        try {
+            announcementRepository.forEachAsDTO(withStatus(false), exportBatchSize, batch -> {
+                try {
+                    for (AnnouncementDTO announcement : batch) {
+                        out.write(writer.writeValueAsBytes(announcement));
+                        out.write('\n');
+                    }
+                    out.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Get all the announcements in provided area.
+     * <p>
+     * Candidates are found in the in-memory spatial index, so only their rows are read
+     * from the database. If there are too many announcements in the area,
+     * database range query is used instead.
      *
      * @param x1    Top right corner longitude
      * @param y1    Top right corner latitude
@@ -70,17 +290,53 @@ public class AnnouncementService {
      */
     @Transactional(readOnly = true)
     public Page<Announcement> findAllInArea(Double x1, Double y1, Double x2, Double y2, Pageable pageable) {
-        final List<Announcement> announcementsInArea = announcementRepository.findAllByDeleted(false, pageable)
-                .getContent().stream()
-                .filter(announcement -> announcement.getRealEstate().getLocation().isInArea(x1, y1, x2, y2))
-                .collect(Collectors.toList());
+        final Predicate areaPredicate = narrowedArea(x1, y1, x2, y2);
+        if (areaPredicate == null)
+            return new PageImpl<>(Collections.emptyList(), pageable, 0);
 
-        return new PageImpl<>(announcementsInArea, pageable, announcementsInArea.size());
+        return announcementRepository.findAllWithDetails(areaPredicate, pageable);
     }
 
+    /**
+     * Get all the announcements in provided area as DTOs, without loading entities.
+     *
+     * @param x1       Top right corner longitude
+     * @param y1       Top right corner latitude
+     * @param x2       Bottom left corner longitude
+     * @param y2       Bottom left corner latitude
+     * @param pageable the pagination information
+     * @return the list of DTOs
+     */
+    @Transactional(readOnly = true)
+    public Page<AnnouncementDTO> findAllInAreaAsDTO(Double x1, Double y1, Double x2, Double y2, Pageable pageable) {
+        final Predicate areaPredicate = narrowedArea(x1, y1, x2, y2);
+        if (areaPredicate == null)
+            return new PageImpl<>(Collections.emptyList(), pageable, 0);
+
+        return announcementRepository.findAllAsDTO(areaPredicate, pageable);
+    }
 
     /**
-     * Get all the announcements by company id.
+     * Get one slice of the announcements in provided area as DTOs, without counting all of them.
+     *
+     * @param x1       Top right corner longitude
+     * @param y1       Top right corner latitude
+     * @param x2       Bottom left corner longitude
+     * @param y2       Bottom left corner latitude
+     * @param pageable the pagination information
+     * @return the slice of DTOs
+     */
+    @Transactional(readOnly = true)
+    public Slice<AnnouncementDTO> findSliceInAreaAsDTO(Double x1, Double y1, Double x2, Double y2, Pageable pageable) {
+        final Predicate areaPredicate = narrowedArea(x1, y1, x2, y2);
+        if (areaPredicate == null)
+            return new SliceImpl<>(Collections.emptyList(), pageable, false);
+
+        return announcementRepository.findSliceAsDTO(areaPredicate, pageable);
+    }
+
+    /**
+     * Get all the announcements by company id, which are not expired.
      *
      * @param pageable  the pagination information
      * @param companyId id of one company
@@ -88,7 +344,7 @@ public class AnnouncementService {
      */
     @Transactional(readOnly = true)
     public Page<Announcement> findAllByCompany(Long companyId, Pageable pageable) {
-        return announcementRepository.findByAuthor_Company_IdAndExpirationDateAfter(companyId, new Date(), pageable);
+        return announcementRepository.findByAuthor_Company_IdAndExpiredFalse(companyId, pageable);
     }
 
     /**
@@ -119,13 +375,24 @@ public class AnnouncementService {
 
     /**
      * Get top the announcements by company id.
+     * <p>
+     * Three cheapest announcements which are not expired are found in the in-memory company index,
+     * so only they are read from the database, by id.
      *
      * @param companyId id of one company
      * @return the list of entities
      */
     @Transactional(readOnly = true)
     public List<Announcement> findTopByCompany(Long companyId) {
-        return announcementRepository.findFirst3ByAuthor_Company_IdAndExpirationDateAfterOrderByPriceAsc(companyId, new Date());
+        // indexes are updated on insert, which is deferred until flush
+        announcementRepository.flush();
+        final List<Long> ids = companyTopIndex.findCheapest(companyId, TOP_BY_COMPANY, new Date());
+        if (ids.isEmpty())
+            return Collections.emptyList();
+
+        final List<Announcement> announcements = announcementRepository.findByIdIn(ids);
+        announcements.sort(Comparator.comparing(announcement -> ids.indexOf(announcement.getId())));
+        return announcements;
     }
 
     /**
@@ -148,8 +415,119 @@ public class AnnouncementService {
         announcementRepository.delete(id);
     }
 
+    /**
+     * Mark announcements whose expiration date has passed as expired.
+     * <p>
+     * Announcements are checked again, since they could be extended after they were scheduled.
+     *
+     * @param ids ids of the announcements
+     * @param now current time
+     */
+    public void expire(Collection<Long> ids, Date now) {
+        for (Announcement announcement : announcementRepository.findAll(ids)) {
+            if (!Boolean.TRUE.equals(announcement.isExpired()) && !announcement.getExpirationDate().after(now))
+                announcement.setExpired(true);
+        }
+    }
+
+    /**
+     * Claim announcements waiting for verification, so that other verifiers don't review them at the same time.
+     * <p>
+     * Every announcement is claimed with a conditional update of its row, without locking it beforehand.
+     * Candidates are read and every claim is committed in its own short transaction, so every round sees claims
+     * committed by other verifiers in the meantime, and row locks are not held until the whole request ends.
+     * Candidates are tried in random order, so concurrent verifiers mostly claim different rows, and
+     * announcements claimed by another verifier are skipped and replaced with the next ones.
+     * Claim expires after the configured lease, and announcement can then be claimed again.
+     *
+     * @param verifier username of the verifier
+     * @param count    maximal number of announcements to claim
+     * @return claimed announcements, sorted by id
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<Announcement> claimForVerification(String verifier, int count) {
+        final Date now = new Date();
+        final Date leaseEnd = new Date(now.getTime() + verificationLeaseSeconds * 1000L);
+
+        final List<Long> claimed = new ArrayList<>();
+        for (int round = 0; round < CLAIM_ROUNDS && claimed.size() < count; round++) {
+            final int limit = (int) Math.min(Integer.MAX_VALUE, (long) (count - claimed.size()) * CLAIM_CANDIDATES_FACTOR);
+            final List<Long> candidates = inTransaction(() -> announcementRepository.findClaimableIds(now, limit));
+            if (candidates.isEmpty())
+                break;
+
+            Collections.shuffle(candidates);
+            for (Long id : candidates) {
+                if (claimed.size() == count)
+                    break;
+                if (inTransaction(() -> announcementRepository.claim(id, verifier, now, leaseEnd)))
+                    claimed.add(id);
+            }
+        }
+        if (claimed.isEmpty())
+            return Collections.emptyList();
+
+        return inTransaction(() -> {
+            final List<Announcement> announcements = announcementRepository.findByIdIn(claimed);
+            announcements.sort(Comparator.comparing(Announcement::getId));
+            return announcements;
+        });
+    }
+
+    /**
+     * Apply decisions of the verifier about claimed announcements, all in one transaction.
+     * <p>
+     * Decision is applied only if the announcement is still claimed by the verifier, and claim is released either way.
+     *
+     * @param verifier  username of the verifier
+     * @param decisions decisions about claimed announcements
+     * @return result for every decision, in the same order, with id of the announcement if decision is applied,
+     * or with error if the announcement is not claimed by the verifier
+     */
+    public List<AnnouncementBatchResultDTO> decideAll(String verifier, List<VerificationDecisionDTO> decisions) {
+        final Date now = new Date();
+        final List<AnnouncementBatchResultDTO> results = new ArrayList<>();
+        boolean anyVerified = false;
+
+        for (int i = 0; i < decisions.size(); i++) {
+            final VerificationDecisionDTO decision = decisions.get(i);
+            final boolean verify = Boolean.TRUE.equals(decision.getVerified());
+            final AnnouncementBatchResultDTO result = new AnnouncementBatchResultDTO(i, new ArrayList<>());
+
+            if (decision.getId() != null && announcementRepository.releaseClaim(decision.getId(), verifier, now, verify)) {
+                result.setId(decision.getId());
+                anyVerified = anyVerified || verify;
+            } else {
+                result.getErrors().add(HeaderUtil.ERROR_MSG_NOT_CLAIMED);
+            }
+            results.add(result);
+        }
+
+        // rows are updated directly, so cached results wouldn't see the new status otherwise
+        if (anyVerified)
+            searchResultCache.invalidateAll();
+        return results;
+    }
+
+    /**
+     * Publish announcements whose publishing date has passed.
+     * <p>
+     * Announcement date is set to the publishing date, which is then cleared.
+     *
+     * @param ids ids of the announcements
+     * @param now current time
+     */
+    public void publish(Collection<Long> ids, Date now) {
+        for (Announcement announcement : announcementRepository.findAll(ids)) {
+            if (announcement.getPublishAt() != null && !announcement.getPublishAt().after(now))
+                announcement.dateAnnounced(announcement.getPublishAt()).setPublishAt(null);
+        }
+    }
+
     /**
      * Find all announcement that satisfied criteria defined by query params.
+     * <p>
+     * Entities are always read from the database, since they can't be shared between sessions.
      *
      * @param searchWrapper wrapper of all query params
      * @param pageable      the pagination information
@@ -157,7 +535,342 @@ public class AnnouncementService {
      */
     @Transactional(readOnly = true)
     public Page<Announcement> findBySearchTerm(AnnouncementSearchWrapper searchWrapper, Pageable pageable) {
-        Predicate searchPredicate = search(searchWrapper);
-        return announcementRepository.findAll(searchPredicate, pageable);
+        final Predicate searchPredicate = narrowedSearch(searchWrapper);
+        if (searchPredicate == null)
+            return new PageImpl<>(Collections.emptyList(), pageable, 0);
+
+        return announcementRepository.findAllWithDetails(searchPredicate, pageable);
+    }
+
+    /**
+     * Find all announcement that satisfied criteria defined by query params, as DTOs read
+     * directly from the selected columns.
+     * <p>
+     * Results are served from the search result cache when possible.
+     *
+     * @param searchWrapper wrapper of all query params
+     * @param pageable      the pagination information
+     * @return list of founded Announcements
+     */
+    @Transactional(readOnly = true)
+    public Page<AnnouncementDTO> findBySearchTermAsDTO(AnnouncementSearchWrapper searchWrapper, Pageable pageable) {
+        return searchResultCache.get(searchWrapper, pageable, () -> {
+            final Predicate searchPredicate = narrowedSearch(searchWrapper);
+            if (searchPredicate == null)
+                return new PageImpl<>(Collections.emptyList(), pageable, 0);
+
+            return announcementRepository.findAllAsDTO(searchPredicate, pageable);
+        });
+    }
+
+    /**
+     * Get one slice of the announcements that satisfied criteria defined by query params as DTOs,
+     * without counting all of them.
+     * <p>
+     * Slices are not cached, since reading one is already as cheap as reading a page without the count.
+     *
+     * @param searchWrapper wrapper of all query params
+     * @param pageable      the pagination information
+     * @return slice of founded Announcements
+     */
+    @Transactional(readOnly = true)
+    public Slice<AnnouncementDTO> findSliceBySearchTermAsDTO(AnnouncementSearchWrapper searchWrapper, Pageable pageable) {
+        final Predicate searchPredicate = narrowedSearch(searchWrapper);
+        if (searchPredicate == null)
+            return new SliceImpl<>(Collections.emptyList(), pageable, false);
+
+        return announcementRepository.findSliceAsDTO(searchPredicate, pageable);
+    }
+
+    /**
+     * Estimate number of announcements that satisfied criteria defined by query params.
+     * <p>
+     * Range of ids is split into <em>sct.estimate.windows</em> equal strata, and one window of consecutive ids
+     * is picked at random position in every stratum, so that windows together hold <em>sct.estimate.sample-size</em> ids.
+     * Windows are primary key ranges, so the database reads only their rows, and matches in every window are counted
+     * and scaled by <em>1/f</em>, where <em>f</em> is the sampled fraction of the id range. Ids left unused by the id generator
+     * are non-matching in the sample and in the whole range alike, so they don't bias the estimate.
+     * Rows of one window are not independent, so the 95% error bound is computed from the variance of the
+     * <em>n</em> per-window estimates <em>t<sub>i</sub></em> of the total, as
+     * <code>1.96 * sqrt(sum((t<sub>i</sub> - t)<sup>2</sup>) / (n * (n - 1)) * (1 - f))</code>,
+     * or <code>3 / f</code> if nothing matched.
+     * Tables whose id range is smaller than the sample, or than <em>sct.estimate.exact-below</em>, are counted exactly.
+     *
+     * @param searchWrapper wrapper of all query params
+     * @return estimated number of founded Announcements
+     */
+    @Transactional(readOnly = true)
+    public CountEstimate estimateBySearchTerm(AnnouncementSearchWrapper searchWrapper) {
+        final Predicate searchPredicate = narrowedSearch(searchWrapper);
+        if (searchPredicate == null)
+            return CountEstimate.exact(0);
+
+        final QAnnouncement announcement = QAnnouncement.announcement;
+        final NumberExpression<Long> minId = announcement.id.min();
+        final NumberExpression<Long> maxId = announcement.id.max();
+        final Tuple range = new JPAQuery<Void>(entityManager)
+                .select(minId, maxId)
+                .from(announcement)
+                .fetchOne();
+        if (range == null || range.get(minId) == null)
+            return CountEstimate.exact(0);
+
+        final long first = range.get(minId);
+        final long span = range.get(maxId) - first + 1;
+        if (span <= estimateSampleSize || span < exactCountThreshold) {
+            return CountEstimate.exact(new JPAQuery<Void>(entityManager)
+                    .from(announcement)
+                    .where(searchPredicate)
+                    .fetchCount());
+        }
+
+        final long stratum = span / estimateWindows;
+        final long width = Math.max(1, Math.min(stratum, estimateSampleSize / estimateWindows));
+        final BooleanBuilder windows = new BooleanBuilder();
+        final Expression<?>[] columns = new Expression<?>[estimateWindows];
+        for (int i = 0; i < estimateWindows; i++) {
+            final long start = first + i * stratum + ThreadLocalRandom.current().nextLong(stratum - width + 1);
+            final BooleanExpression window = announcement.id.between(start, start + width - 1);
+            windows.or(window);
+            columns[i] = countWhen(window);
+        }
+
+        final Tuple counts = new JPAQuery<Void>(entityManager)
+                .select(columns)
+                .from(announcement)
+                .where(searchPredicate, windows)
+                .fetchOne();
+
+        // every window scaled by the inverse of its fraction is one estimate of the total,
+        // so their spread measures the error, including correlation of rows within a window
+        final double fraction = (double) (width * estimateWindows) / span;
+        final double[] totals = new double[estimateWindows];
+        long sampled = 0;
+        for (int i = 0; i < estimateWindows; i++) {
+            final long matched = counts == null ? 0 : count(counts.get(i, Long.class));
+            sampled += matched;
+            totals[i] = matched * estimateWindows / fraction;
+        }
+        if (sampled == 0)
+            return new CountEstimate(0, Math.max(1, (long) Math.ceil(3 / fraction)));
+
+        final double estimate = sampled / fraction;
+        double variance = 0;
+        for (double total : totals)
+            variance += (total - estimate) * (total - estimate);
+        variance /= estimateWindows * (estimateWindows - 1);
+
+        final double error = 1.96 * Math.sqrt(variance * (1 - fraction));
+        return new CountEstimate(Math.round(estimate), Math.max(1, (long) Math.ceil(error)));
+    }
+
+    /**
+     * Count announcements that satisfied criteria defined by query params, for every value of every facet.
+     * <p>
+     * Facets are counted by the database, so only the counts are transferred. Price and area buckets,
+     * amenities and the total are conditional sums of a single aggregate query, and heating type,
+     * type and city are counted with one grouped query each. Real estate and location are left joined,
+     * so announcements without a real estate are counted too.
+     *
+     * @param searchWrapper wrapper of all query params
+     * @return facet counts
+     */
+    @Transactional(readOnly = true)
+    public AnnouncementFacetsDTO findFacetsBySearchTerm(AnnouncementSearchWrapper searchWrapper) {
+        final AnnouncementFacetsDTO facets = new AnnouncementFacetsDTO();
+
+        final QAnnouncement announcement = QAnnouncement.announcement;
+        final QRealEstate realEstate = QRealEstate.realEstate;
+        final Map<String, BooleanExpression> amenities = new LinkedHashMap<>();
+        amenities.put("intercom", realEstate.intercom.isTrue());
+        amenities.put("internet", realEstate.internet.isTrue());
+        amenities.put("phone", realEstate.phone.isTrue());
+        amenities.put("airConditioner", realEstate.airConditioner.isTrue());
+        amenities.put("videoSurveillance", realEstate.videoSurveillance.isTrue());
+        amenities.put("cableTV", realEstate.cableTV.isTrue());
+
+        final Map<String, BooleanExpression> priceBuckets = buckets(announcement.price, PRICE_FACET_BOUNDS);
+        final Map<String, BooleanExpression> areaBuckets = buckets(realEstate.area, AREA_FACET_BOUNDS);
+
+        final Predicate searchPredicate = narrowedSearch(searchWrapper);
+        if (searchPredicate == null) {
+            priceBuckets.keySet().forEach(bucket -> facets.getPrice().put(bucket, 0L));
+            areaBuckets.keySet().forEach(bucket -> facets.getArea().put(bucket, 0L));
+            amenities.keySet().forEach(amenity -> facets.getAmenities().put(amenity, 0L));
+            return facets;
+        }
+
+        final List<Expression<?>> columns = new ArrayList<>();
+        columns.add(announcement.count());
+        priceBuckets.values().forEach(condition -> columns.add(countWhen(condition)));
+        areaBuckets.values().forEach(condition -> columns.add(countWhen(condition)));
+        amenities.values().forEach(condition -> columns.add(countWhen(condition)));
+
+        final Tuple counts = new JPAQuery<Void>(entityManager)
+                .select(columns.toArray(new Expression<?>[columns.size()]))
+                .from(announcement)
+                .leftJoin(announcement.realEstate, realEstate)
+                .where(searchPredicate)
+                .fetchOne();
+
+        int column = 0;
+        facets.setTotal(count(counts.get(column++, Long.class)));
+        for (String bucket : priceBuckets.keySet())
+            facets.getPrice().put(bucket, count(counts.get(column++, Long.class)));
+        for (String bucket : areaBuckets.keySet())
+            facets.getArea().put(bucket, count(counts.get(column++, Long.class)));
+        for (String amenity : amenities.keySet())
+            facets.getAmenities().put(amenity, count(counts.get(column++, Long.class)));
+
+        if (facets.getTotal() > 0) {
+            facets.setHeatingType(countByValue(realEstate.heatingType, searchPredicate));
+            facets.setType(countByValue(announcement.type, searchPredicate));
+            facets.setCity(countByValue(QLocation.location.city, searchPredicate));
+        }
+        return facets;
+    }
+
+    /**
+     * Counts announcements which satisfy predicate for every distinct value of the column.
+     * Announcements without a value are left out.
+     *
+     * @param value     column whose values are counted
+     * @param predicate search predicate
+     * @return counts by value, sorted by count descending
+     */
+    private Map<String, Long> countByValue(StringPath value, Predicate predicate) {
+        final QAnnouncement announcement = QAnnouncement.announcement;
+        final NumberExpression<Long> count = announcement.count();
+        final Map<String, Long> counts = new LinkedHashMap<>();
+        for (Tuple row : new JPAQuery<Void>(entityManager)
+                .select(value, count)
+                .from(announcement)
+                .leftJoin(announcement.realEstate, QRealEstate.realEstate)
+                .leftJoin(QRealEstate.realEstate.location, QLocation.location)
+                .where(predicate)
+                .groupBy(value)
+                .orderBy(count.desc())
+                .fetch()) {
+            if (row.get(value) != null)
+                counts.put(row.get(value), row.get(count));
+        }
+        return counts;
+    }
+
+    /**
+     * Creates area predicate restricted to candidates found in the in-memory spatial index.
+     *
+     * @param x1 Top right corner longitude
+     * @param y1 Top right corner latitude
+     * @param x2 Bottom left corner longitude
+     * @param y2 Bottom left corner latitude
+     * @return area predicate, or null if index shows that there are no announcements in the area
+     */
+    private Predicate narrowedArea(Double x1, Double y1, Double x2, Double y2) {
+        // indexes are updated on insert, which is deferred until flush
+        announcementRepository.flush();
+        final List<Long> candidates = locationGridIndex.findInArea(x1, y1, x2, y2, maxGridCandidates);
+
+        if (candidates == null)
+            return inArea(x1, y1, x2, y2);
+
+        if (candidates.isEmpty())
+            return null;
+
+        return new BooleanBuilder(inArea(x1, y1, x2, y2)).and(idIn(candidates));
+    }
+
+    /**
+     * Creates search predicate restricted to candidates found in the in-memory indexes.
+     * <p>
+     * Keywords are looked up in the full text index, amenities, type and heating type in the bitmap index,
+     * and author name, surname and phone number in the user search index. Original predicates are kept, so the database only rechecks
+     * the candidates. Above their limits, indexes leave filtering to the database, which matches keywords
+     * as whole words too, so common keywords are not sent to the database as long lists of ids.
+     *
+     * @param searchWrapper wrapper of all query params
+     * @return search predicate, or null if indexes show that nothing matches
+     */
+    private Predicate narrowedSearch(AnnouncementSearchWrapper searchWrapper) {
+        // indexes are updated on insert, which is deferred until flush
+        announcementRepository.flush();
+        final BooleanBuilder where = new BooleanBuilder(search(searchWrapper));
+
+        if (searchWrapper.getKeywords() != null) {
+            final List<Long> candidates = fullTextIndex.search(searchWrapper.getKeywords(), maxTextCandidates);
+            if (candidates != null) {
+                if (candidates.isEmpty())
+                    return null;
+                where.and(idIn(candidates));
+            }
+        }
+
+        final List<Long> bitmapCandidates = realEstateBitmapIndex.findCandidates(searchWrapper, maxBitmapCandidates);
+        if (bitmapCandidates != null) {
+            if (bitmapCandidates.isEmpty())
+                return null;
+            where.and(idIn(bitmapCandidates));
+        }
+
+        final Set<Long> authors = userSearchIndex.findCandidates(null, null,
+                searchWrapper.getAuthorName(), searchWrapper.getAuthorSurname(), searchWrapper.getPhoneNumber(),
+                maxTrigramCandidates);
+        if (authors != null) {
+            if (authors.isEmpty())
+                return null;
+            where.and(authorIdIn(authors));
+        }
+
+        return where;
+    }
+
+    private static List<String> validate(Announcement announcement) {
+        final List<String> errors = new ArrayList<>();
+        addViolations(errors, "", announcement);
+
+        final RealEstate realEstate = announcement.getRealEstate();
+        if (realEstate != null && realEstate.getId() == null) {
+            addViolations(errors, "realEstate.", realEstate);
+            if (realEstate.getLocation() != null && realEstate.getLocation().getId() == null)
+                addViolations(errors, "realEstate.location.", realEstate.getLocation());
+        }
+        return errors;
+    }
+
+    private static void addViolations(List<String> errors, String prefix, Object entity) {
+        for (ConstraintViolation<Object> violation : VALIDATOR.validate(entity))
+            errors.add(prefix + violation.getPropertyPath() + ": " + violation.getMessage());
+    }
+
+    private static Map<String, BooleanExpression> buckets(NumberPath<Double> value, double[] bounds) {
+        final Map<String, BooleanExpression> buckets = new LinkedHashMap<>();
+        double lower = 0;
+        for (double bound : bounds) {
+            buckets.put((long) lower + "-" + (long) bound, lower == 0 ? value.lt(bound) : value.goe(lower).and(value.lt(bound)));
+            lower = bound;
+        }
+        buckets.put((long) lower + "+", value.goe(lower));
+        return buckets;
+    }
+
+    private static NumberExpression<Long> countWhen(BooleanExpression condition) {
+        // literals instead of parameters, some databases can't infer type of parameters in select clause
+        return Expressions.numberTemplate(Long.class, "sum(case when {0} then 1 else 0 end)", condition);
+    }
+
+    private static long count(Long sum) {
+        // sum of no rows is null
+        return sum == null ? 0 : sum;
+    }
+
+    /**
+     * Runs the action in its own read-write transaction, which is committed once the action returns.
+     *
+     * @param action action to run
+     * @param <T>    type of the result
+     * @return result of the action
+     */
+    private <T> T inTransaction(Supplier<T> action) {
+        return new TransactionTemplate(transactionManager).execute(status -> action.get());
     }
 }
@@ -1,5 +1,10 @@
 package rs.acs.uns.sw.sct.announcements;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import rs.acs.uns.sw.sct.util.PooledIdGenerator;
+
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import java.io.Serializable;
@@ -9,12 +14,14 @@ import java.io.Serializable;
  */
 @Entity
 @Table(name = "images")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Image implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = PooledIdGenerator.NAME)
+    @GenericGenerator(name = PooledIdGenerator.NAME, strategy = PooledIdGenerator.STRATEGY)
     private Long id;
 
     @NotNull
@@ -0,0 +1,43 @@
+package rs.acs.uns.sw.sct.announcements;
+
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+
+/**
+ * Decision of a verifier about one claimed announcement.
+ * <p>
+ * Announcement is verified if <em>verified</em> is true, otherwise it is only released,
+ * so that other verifiers can claim it.
+ */
+public class VerificationDecisionDTO implements Serializable {
+
+    @NotNull
+    private Long id;
+
+    @NotNull
+    private Boolean verified;
+
+    public VerificationDecisionDTO() {
+    }
+
+    public VerificationDecisionDTO(Long id, Boolean verified) {
+        this.id = id;
+        this.verified = verified;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Boolean getVerified() {
+        return verified;
+    }
+
+    public void setVerified(Boolean verified) {
+        this.verified = verified;
+    }
+}
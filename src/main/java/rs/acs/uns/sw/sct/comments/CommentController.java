@@ -14,6 +14,7 @@ import rs.acs.uns.sw.sct.security.UserSecurityUtil;
 import rs.acs.uns.sw.sct.users.User;
 import rs.acs.uns.sw.sct.util.AuthorityRoles;
 import rs.acs.uns.sw.sct.util.Constants;
+import rs.acs.uns.sw.sct.util.CursorPage;
 import rs.acs.uns.sw.sct.util.HeaderUtil;
 import rs.acs.uns.sw.sct.util.PaginationUtil;
 
@@ -158,15 +159,40 @@ public class CommentController {
     /**
      * GET  /comments/announcement/:announcementId : get all comments for one announcement.
      *
+     * <p>
+     * If <em>after</em> param is present, keyset pagination is used: empty value requests the first page,
+     * and the next page is requested with the cursor from <em>Link</em> header.
+     *
      * @param announcementId the id of the announcement
+     * @param after          the cursor of keyset pagination
      * @param pageable       the pagination information
-     * @return the ResponseEntity with status 200 (OK) and the list of comments in body
+     * @return the ResponseEntity with status 200 (OK) and the list of comments in body,
+     * or with status 400 (Bad Request) if the cursor is not valid
      * @throws URISyntaxException if there is an error to generate the pagination HTTP headers
      */
     @PreAuthorize("permitAll()")
     @GetMapping("/comments/announcement/{announcementId}")
-    public ResponseEntity<List<CommentDTO>> getAllCommentsByAnnouncementId(@PathVariable Long announcementId, Pageable pageable)
+    public ResponseEntity<List<CommentDTO>> getAllCommentsByAnnouncementId(@PathVariable Long announcementId,
+                                                                           @RequestParam(value = "after", required = false) String after,
+                                                                           Pageable pageable)
             throws URISyntaxException {
+        if (after != null) {
+            final CursorPage<CommentDTO> page;
+            try {
+                page = commentService.findAllByAnnouncement(announcementId, after, pageable).map(Comment::convertToDTO);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity
+                        .badRequest()
+                        .headers(HeaderUtil.failure(
+                                Constants.EntityNames.COMMENT,
+                                HeaderUtil.ERROR_CODE_INVALID_CURSOR,
+                                HeaderUtil.ERROR_MSG_INVALID_CURSOR))
+                        .body(null);
+            }
+            HttpHeaders headers = PaginationUtil.generateCursorHttpHeaders(page, pageable.getPageSize(),
+                    "/api/comments/announcement/" + announcementId);
+            return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+        }
 
         Page<CommentDTO> page = commentService.findAllByAnnouncement(announcementId, pageable)
                 .map(comment -> comment.convertToDTO());
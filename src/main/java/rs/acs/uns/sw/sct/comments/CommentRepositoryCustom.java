@@ -0,0 +1,19 @@
+package rs.acs.uns.sw.sct.comments;
+
+import rs.acs.uns.sw.sct.util.CursorPage;
+import rs.acs.uns.sw.sct.util.KeysetRequest;
+
+/**
+ * Custom queries of the Comment repository, which can't be derived from method names.
+ */
+public interface CommentRepositoryCustom {
+
+    /**
+     * Get one keyset page of comments that belong to one announcement.
+     *
+     * @param announcementId the id of the announcement
+     * @param request        the keyset pagination information
+     * @return page of comments
+     */
+    CursorPage<Comment> findByAnnouncementId(Long announcementId, KeysetRequest request);
+}
@@ -0,0 +1,35 @@
+package rs.acs.uns.sw.sct.comments;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQuery;
+import rs.acs.uns.sw.sct.util.CursorPage;
+import rs.acs.uns.sw.sct.util.KeysetRequest;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+/**
+ * Implementation of custom Comment repository queries.
+ */
+public class CommentRepositoryImpl implements CommentRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public CursorPage<Comment> findByAnnouncementId(Long announcementId, KeysetRequest request) {
+        final QComment comment = QComment.comment;
+
+        final List<Tuple> rows = new JPAQuery<Void>(entityManager)
+                .select(request.columns(comment))
+                .from(comment)
+                .leftJoin(comment.author).fetchJoin()
+                .where(comment.announcement.id.eq(announcementId), request.seek())
+                .orderBy(request.orderBy())
+                .limit(request.limit())
+                .fetch();
+
+        return request.toPage(rows, row -> row.get(comment));
+    }
+}
@@ -1,5 +1,6 @@
 package rs.acs.uns.sw.sct.comments;
 
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -7,7 +8,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import rs.acs.uns.sw.sct.announcements.AnnouncementRepository;
 import rs.acs.uns.sw.sct.users.UserRepository;
+import rs.acs.uns.sw.sct.util.CursorPage;
+import rs.acs.uns.sw.sct.util.KeysetRequest;
 
+import java.util.Collections;
+import java.util.Map;
 
 /**
  * Service Implementation for managing Comment.
@@ -16,6 +21,9 @@ import rs.acs.uns.sw.sct.users.UserRepository;
 @Transactional
 public class CommentService {
 
+    private static final Map<String, ComparableExpressionBase<?>> KEYSET_SORT_KEYS =
+            Collections.singletonMap("date", QComment.comment.date);
+
     @Autowired
     private CommentRepository commentRepository;
 
@@ -58,6 +66,21 @@ public class CommentService {
         return commentRepository.findByAnnouncement_Id(announcementId, pageable);
     }
 
+    /**
+     * Get one keyset page of the comments by announcement id.
+     *
+     * @param announcementId id of one announcement
+     * @param after          token of the cursor, empty for the first page
+     * @param pageable       page size, and sort order of the first page
+     * @return the page of entities
+     * @throws IllegalArgumentException if cursor is malformed or sort property is not supported
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Comment> findAllByAnnouncement(Long announcementId, String after, Pageable pageable) {
+        return commentRepository.findByAnnouncementId(announcementId,
+                KeysetRequest.of(after, pageable, QComment.comment.id, KEYSET_SORT_KEYS));
+    }
+
     /**
      * Get one comment by id.
      *
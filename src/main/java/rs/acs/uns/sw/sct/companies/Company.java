@@ -1,7 +1,11 @@
 package rs.acs.uns.sw.sct.companies;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
 import rs.acs.uns.sw.sct.users.User;
+import rs.acs.uns.sw.sct.util.PooledIdGenerator;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
@@ -14,12 +18,14 @@ import java.util.Set;
  */
 @Entity
 @Table(name = "companies")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Company implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = PooledIdGenerator.NAME)
+    @GenericGenerator(name = PooledIdGenerator.NAME, strategy = PooledIdGenerator.STRATEGY)
     private Long id;
 
     @NotNull
@@ -36,6 +42,7 @@ public class Company implements Serializable {
 
     private String imagePath;
 
+    // not in the second-level cache, since it is changed through users, which wouldn't invalidate it
     @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     @OneToMany(mappedBy = "company", fetch = FetchType.LAZY)
     private Set<User> users = new HashSet<>(0);
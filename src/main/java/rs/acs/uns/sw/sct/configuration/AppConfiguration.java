@@ -3,11 +3,13 @@ package rs.acs.uns.sw.sct.configuration;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.context.annotation.PropertySources;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Configuration class for adding new property file
  */
 @Configuration
+@EnableScheduling
 @PropertySources({
         @PropertySource("classpath:upload.properties")
 })
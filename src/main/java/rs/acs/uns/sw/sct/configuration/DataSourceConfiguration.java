@@ -0,0 +1,148 @@
+package rs.acs.uns.sw.sct.configuration;
+
+import org.apache.tomcat.jdbc.pool.DataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.bind.PropertySourcesPropertyValues;
+import org.springframework.boot.bind.RelaxedDataBinder;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaVendorAdapter;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data source configuration.
+ * <p>
+ * Primary database is configured with <em>spring.datasource.*</em> properties, and replicas are listed
+ * in <em>sct.datasource.replica-urls</em>, using the same driver, credentials and <em>spring.datasource.tomcat.*</em>
+ * pool settings. Read-only transactions are sent to replicas by {@link ReplicaRoutingDataSource},
+ * and without replicas everything goes to the primary.
+ * Replication lag of every replica is measured with <em>sct.datasource.replica-lag-query</em>.
+ */
+@Configuration
+public class DataSourceConfiguration {
+
+    private static final String TOMCAT_PROPERTIES_PREFIX = "spring.datasource.tomcat";
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Autowired
+    private ConfigurableEnvironment environment;
+
+    @Value("${sct.datasource.replica-urls}")
+    private String[] replicaUrls;
+
+    @Value("${sct.datasource.replica-lag-millis}")
+    private Long replicaLagMillis;
+
+    @Value("${sct.datasource.replica-max-lag-millis}")
+    private Long maxReplicaLagMillis;
+
+    @Value("${sct.datasource.replica-lag-query}")
+    private String replicaLagQuery;
+
+    @Value("${sct.datasource.leak-threshold-millis}")
+    private Long leakThresholdMillis;
+
+    /**
+     * Hibernate vendor adapter, configured from <em>spring.jpa.*</em> properties like the default one.
+     * <p>
+     * If there are replicas, read-only transactions use {@link ReplicaCacheModeJpaDialect}, so rows read from
+     * a replica are never put into the second-level cache.
+     *
+     * @param jpaProperties JPA properties
+     * @return vendor adapter
+     */
+    @Bean
+    public JpaVendorAdapter jpaVendorAdapter(JpaProperties jpaProperties) {
+        final HibernateJpaVendorAdapter adapter = replicaUrls.length == 0 ? new HibernateJpaVendorAdapter()
+                : new HibernateJpaVendorAdapter() {
+            private final HibernateJpaDialect jpaDialect = new ReplicaCacheModeJpaDialect();
+
+            @Override
+            public HibernateJpaDialect getJpaDialect() {
+                return jpaDialect;
+            }
+        };
+        adapter.setShowSql(jpaProperties.isShowSql());
+        adapter.setDatabase(jpaProperties.getDatabase());
+        adapter.setDatabasePlatform(jpaProperties.getDatabasePlatform());
+        adapter.setGenerateDdl(jpaProperties.isGenerateDdl());
+        return adapter;
+    }
+
+    /**
+     * Measures replication lag of all replicas, unless lag query is empty.
+     *
+     * @throws SQLException if routing data source can't be unwrapped
+     */
+    @Scheduled(fixedDelayString = "${sct.datasource.replica-lag-check-millis}")
+    public void measureReplicaLag() throws SQLException {
+        if (!replicaLagQuery.isEmpty())
+            dataSource().unwrap(ReplicaRoutingDataSource.class).measureLag(replicaLagQuery);
+    }
+
+    /**
+     * Data source used by the application, which defers routing until the first statement of the transaction.
+     * <p>
+     * Instrumented connection pools of the primary database and all replicas, and {@link ReplicaRoutingDataSource}
+     * which routes connections between them, are not beans. Boot initializes the database whenever a data source bean
+     * is created, using this data source, so it would be requested while it is still being created.
+     * Routing data source is obtained with {@link javax.sql.DataSource#unwrap(Class)}.
+     *
+     * @return lazy data source
+     */
+    @Bean
+    @Primary
+    public javax.sql.DataSource dataSource() {
+        final List<DataSource> replicas = new ArrayList<>();
+        for (String url : replicaUrls)
+            replicas.add(pool(url.trim()));
+
+        final ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(
+                pool(dataSourceProperties.determineUrl()), replicas, replicaLagMillis, maxReplicaLagMillis,
+                leakThresholdMillis);
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    /**
+     * Creates connection pool configured the same way as the pool Boot creates by default.
+     * <p>
+     * Connections are validated on borrow with the validation query of the driver, so connections closed
+     * by the database, for example after its idle timeout, are replaced. Settings can be overridden,
+     * for the primary and replica pools alike, by <em>spring.datasource.tomcat.*</em> properties.
+     *
+     * @param url JDBC url of the database
+     * @return connection pool
+     */
+    private DataSource pool(String url) {
+        final DataSource pool = (DataSource) dataSourceProperties.initializeDataSourceBuilder()
+                .type(DataSource.class)
+                .url(url)
+                .build();
+
+        final String validationQuery = DatabaseDriver.fromJdbcUrl(url).getValidationQuery();
+        if (validationQuery != null) {
+            pool.setTestOnBorrow(true);
+            pool.setValidationQuery(validationQuery);
+        }
+
+        new RelaxedDataBinder(pool, TOMCAT_PROPERTIES_PREFIX)
+                .bind(new PropertySourcesPropertyValues(environment.getPropertySources()));
+        return pool;
+    }
+}
@@ -0,0 +1,84 @@
+package rs.acs.uns.sw.sct.configuration;
+
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.statistics.StatisticsGateway;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import rs.acs.uns.sw.sct.metrics.CacheStatisticsDTO;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Regions of the Hibernate second-level cache.
+ * <p>
+ * Every cached entity and collection has its own in-heap Ehcache region, with read-write strategy,
+ * so writes through Hibernate update cached entries as well. Time to live and maximal size
+ * of every region are set from <em>sct.cache.entity.*</em> properties once the persistence unit is started.
+ * Statistics are read from Ehcache itself, so Hibernate statistics do not have to be enabled.
+ */
+@Component
+public class EntityCacheRegions {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${sct.cache.entity.ttl-seconds}")
+    private Long timeToLiveSeconds;
+
+    @Value("${sct.cache.entity.max-size}")
+    private Long maxSize;
+
+    /**
+     * Applies configured time to live and size to all regions.
+     */
+    @PostConstruct
+    public void configure() {
+        for (String regionName : regionNames()) {
+            final Ehcache cache = CacheManager.getInstance().getEhcache(regionName);
+            if (cache == null)
+                continue;
+
+            cache.getCacheConfiguration().setTimeToLiveSeconds(timeToLiveSeconds);
+            cache.getCacheConfiguration().setMaxEntriesLocalHeap(maxSize);
+            // cache manager is shared by the whole JVM, so regions could hold rows of a previously started application
+            cache.removeAll();
+        }
+    }
+
+    /**
+     * Returns usage statistics of every region.
+     *
+     * @return cache statistics by region name
+     */
+    public Map<String, CacheStatisticsDTO> getStatistics() {
+        final Map<String, CacheStatisticsDTO> regions = new TreeMap<>();
+
+        for (String regionName : regionNames()) {
+            final Ehcache cache = CacheManager.getInstance().getEhcache(regionName);
+            if (cache == null)
+                continue;
+
+            final StatisticsGateway statistics = cache.getStatistics();
+            final CacheStatisticsDTO dto = new CacheStatisticsDTO();
+            dto.setHits(statistics.cacheHitCount());
+            dto.setMisses(statistics.cacheMissCount());
+            dto.setEvictions(statistics.cacheEvictedCount() + statistics.cacheExpiredCount());
+            dto.setInvalidations(statistics.cacheRemoveCount());
+            dto.setSize((int) statistics.getSize());
+            regions.put(regionName, dto);
+        }
+        return regions;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<String> regionNames() {
+        return entityManagerFactory.unwrap(SessionFactoryImplementor.class).getAllSecondLevelCacheRegions().keySet();
+    }
+}
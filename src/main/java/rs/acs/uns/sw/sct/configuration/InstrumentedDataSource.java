@@ -0,0 +1,180 @@
+package rs.acs.uns.sw.sct.configuration;
+
+import org.apache.tomcat.jdbc.pool.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import rs.acs.uns.sw.sct.metrics.ConnectionLeakDTO;
+import rs.acs.uns.sw.sct.metrics.ConnectionPoolStatisticsDTO;
+import rs.acs.uns.sw.sct.metrics.Histogram;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Connection pool which measures how long connections are waited for and how long they are held,
+ * and detects leaked connections.
+ * <p>
+ * Connections are handed out wrapped, so their release is noticed. If leak detection is enabled,
+ * stack of the acquiring thread is recorded with every connection, and connections held longer than
+ * the threshold are reported, both while they are still held and, for the most recent ones, after they are released.
+ */
+public class InstrumentedDataSource extends DelegatingDataSource {
+
+    private static final int MAX_RECORDED_LEAKS = 20;
+
+    private final String name;
+    private final DataSource pool;
+    private final long leakThresholdMillis;
+
+    private final Histogram acquireTime = new Histogram();
+    private final Histogram usageTime = new Histogram();
+    private final Set<Lease> leases = ConcurrentHashMap.newKeySet();
+    private final Deque<ConnectionLeakDTO> releasedLeaks = new ArrayDeque<>();
+
+    /**
+     * Creates instrumented pool.
+     *
+     * @param name                name of the pool
+     * @param pool                the pool
+     * @param leakThresholdMillis connections held longer than this are reported as leaks, 0 disables leak detection
+     */
+    public InstrumentedDataSource(String name, DataSource pool, long leakThresholdMillis) {
+        super(pool);
+        this.name = name;
+        this.pool = pool;
+        this.leakThresholdMillis = leakThresholdMillis;
+    }
+
+    public DataSource getPool() {
+        return pool;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        final long start = System.nanoTime();
+        return lease(pool.getConnection(), start);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        final long start = System.nanoTime();
+        return lease(pool.getConnection(username, password), start);
+    }
+
+    /**
+     * Returns current state of the pool, measured times and detected leaks.
+     *
+     * @return pool statistics
+     */
+    public ConnectionPoolStatisticsDTO getStatistics() {
+        final ConnectionPoolStatisticsDTO statistics = new ConnectionPoolStatisticsDTO();
+        statistics.setName(name);
+        statistics.setActive(pool.getActive());
+        statistics.setIdle(pool.getIdle());
+        statistics.setPending(pool.getWaitCount());
+        statistics.setSize(pool.getSize());
+        statistics.setMaxActive(pool.getMaxActive());
+        statistics.setAcquireTime(acquireTime.snapshot());
+        statistics.setUsageTime(usageTime.snapshot());
+
+        if (leakThresholdMillis > 0) {
+            final long now = System.nanoTime();
+            statistics.getLeaks().addAll(leases.stream()
+                    .filter(lease -> heldMillis(lease, now) >= leakThresholdMillis)
+                    .sorted(Comparator.comparingLong(lease -> lease.acquiredNanos))
+                    .map(lease -> lease.toLeak(heldMillis(lease, now), false))
+                    .collect(Collectors.toList()));
+            synchronized (releasedLeaks) {
+                statistics.getLeaks().addAll(releasedLeaks);
+            }
+        }
+        return statistics;
+    }
+
+    private Connection lease(Connection connection, long start) {
+        final Lease lease = new Lease(leakThresholdMillis > 0);
+        acquireTime.record(lease.acquiredNanos - start);
+        leases.add(lease);
+
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "close":
+                            release(lease);
+                            break;
+                        default:
+                            break;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+
+    private void release(Lease lease) {
+        // connection may be closed more than once
+        if (!leases.remove(lease))
+            return;
+
+        final long now = System.nanoTime();
+        usageTime.record(now - lease.acquiredNanos);
+
+        final long heldMillis = heldMillis(lease, now);
+        if (leakThresholdMillis > 0 && heldMillis >= leakThresholdMillis) {
+            synchronized (releasedLeaks) {
+                releasedLeaks.addFirst(lease.toLeak(heldMillis, true));
+                if (releasedLeaks.size() > MAX_RECORDED_LEAKS)
+                    releasedLeaks.removeLast();
+            }
+        }
+    }
+
+    private static long heldMillis(Lease lease, long now) {
+        return (now - lease.acquiredNanos) / 1000000;
+    }
+
+    /**
+     * One connection handed out by the pool.
+     */
+    private static final class Lease {
+        private final long acquiredNanos = System.nanoTime();
+        private final long acquiredMillis = System.currentTimeMillis();
+        private final String thread = Thread.currentThread().getName();
+        private final Throwable stack;
+
+        private Lease(boolean recordStack) {
+            this.stack = recordStack ? new Throwable() : null;
+        }
+
+        private ConnectionLeakDTO toLeak(long heldMillis, boolean released) {
+            final ConnectionLeakDTO leak = new ConnectionLeakDTO();
+            leak.setAcquired(new Date(acquiredMillis));
+            leak.setHeldMillis(heldMillis);
+            leak.setReleased(released);
+            leak.setThread(thread);
+            if (stack != null) {
+                // frames of the pool itself are left out, so the trace starts with the caller
+                leak.setStackTrace(Arrays.stream(stack.getStackTrace())
+                        .filter(element -> !isPoolFrame(element))
+                        .map(StackTraceElement::toString)
+                        .collect(Collectors.toList()));
+            }
+            return leak;
+        }
+
+        private boolean isPoolFrame(StackTraceElement element) {
+            final String pool = InstrumentedDataSource.class.getName();
+            return element.getClassName().equals(pool) || element.getClassName().startsWith(pool + "$");
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package rs.acs.uns.sw.sct.configuration;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import java.sql.SQLException;
+
+/**
+ * Hibernate dialect which stops read-only transactions from putting loaded entities into the second-level cache.
+ * <p>
+ * Read-only transactions may be routed to a replica, which can still return rows changed on the primary.
+ * Cached entries are invalidated when entities are saved, so a stale row loaded afterwards would stay cached
+ * until it expires. Read-only transactions therefore only read from the cache, and it is filled by read-write
+ * transactions, which always use the primary. Previous cache mode of the session is restored once transaction ends.
+ */
+public class ReplicaCacheModeJpaDialect extends HibernateJpaDialect {
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws PersistenceException, SQLException, TransactionException {
+        final Object transactionData = super.beginTransaction(entityManager, definition);
+        if (!definition.isReadOnly())
+            return transactionData;
+
+        final Session session = entityManager.unwrap(Session.class);
+        final ReadOnlyTransactionData readOnlyData = new ReadOnlyTransactionData(transactionData, session,
+                session.getCacheMode());
+        session.setCacheMode(CacheMode.GET);
+        return readOnlyData;
+    }
+
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+        if (!(transactionData instanceof ReadOnlyTransactionData)) {
+            super.cleanupTransaction(transactionData);
+            return;
+        }
+
+        final ReadOnlyTransactionData readOnlyData = (ReadOnlyTransactionData) transactionData;
+        readOnlyData.session.setCacheMode(readOnlyData.previousCacheMode);
+        super.cleanupTransaction(readOnlyData.transactionData);
+    }
+
+    /**
+     * Transaction data of the Hibernate dialect, together with cache mode to be restored.
+     */
+    private static class ReadOnlyTransactionData {
+        private final Object transactionData;
+        private final Session session;
+        private final CacheMode previousCacheMode;
+
+        private ReadOnlyTransactionData(Object transactionData, Session session, CacheMode previousCacheMode) {
+            this.transactionData = transactionData;
+            this.session = session;
+            this.previousCacheMode = previousCacheMode;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package rs.acs.uns.sw.sct.configuration;
+
+import org.apache.tomcat.jdbc.pool.DataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import rs.acs.uns.sw.sct.metrics.ConnectionPoolStatisticsDTO;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Data source which sends read-only transactions to replicas, and everything else to the primary database.
+ * <p>
+ * Replicas are used in turns. Lag of every replica is measured periodically, with {@link #measureLag(String)},
+ * and replicas lagging more than the maximal lag are not used at all. Users who committed a write keep reading
+ * from the primary until both the configured window and measured lag of the replica pass, so they see their own writes.
+ * Lag is only known as of the last measurement, so a replica whose lag suddenly grows can still serve stale rows
+ * to such users until it is measured again. Every pool is wrapped in {@link InstrumentedDataSource}, which measures its usage.
+ * Connections are routed when they are acquired, so this data source must be wrapped
+ * in {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, which acquires them
+ * once the transaction is already marked as read-only.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+    private static final String REPLICA = "replica-";
+    private static final String SECONDS_BEHIND_MASTER = "Seconds_Behind_Master";
+    private static final long UNKNOWN_LAG = Long.MAX_VALUE;
+
+    // last writes are pruned once there are more users than this
+    private static final int MAX_TRACKED_USERS = 10000;
+
+    private final Map<String, InstrumentedDataSource> pools = new LinkedHashMap<>();
+    private final List<String> replicas = new ArrayList<>();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+    private final Map<String, Long> replicaLags = new ConcurrentHashMap<>();
+    private final long replicaLagMillis;
+    private final long maxReplicaLagMillis;
+
+    /**
+     * Creates data source which routes to the provided pools.
+     *
+     * @param primary             pool of the primary database
+     * @param replicas            pools of the replicas, possibly empty
+     * @param replicaLagMillis    how long after their write users keep reading from the primary, at least
+     * @param maxReplicaLagMillis replicas whose measured lag is greater than this are not used
+     * @param leakThresholdMillis connections held longer than this are reported as leaks, 0 disables leak detection
+     */
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, long replicaLagMillis,
+                                    long maxReplicaLagMillis, long leakThresholdMillis) {
+        this.replicaLagMillis = replicaLagMillis;
+        this.maxReplicaLagMillis = maxReplicaLagMillis;
+
+        pools.put(PRIMARY, new InstrumentedDataSource(PRIMARY, primary, leakThresholdMillis));
+        for (int i = 0; i < replicas.size(); i++) {
+            pools.put(REPLICA + i, new InstrumentedDataSource(REPLICA + i, replicas.get(i), leakThresholdMillis));
+            this.replicas.add(REPLICA + i);
+            replicaLags.put(REPLICA + i, 0L);
+        }
+        setTargetDataSources(new HashMap<>(pools));
+        setDefaultTargetDataSource(pools.get(PRIMARY));
+    }
+
+    /**
+     * Returns usage statistics of every connection pool, primary first.
+     *
+     * @return pool statistics
+     */
+    public List<ConnectionPoolStatisticsDTO> getStatistics() {
+        return pools.values().stream()
+                .map(InstrumentedDataSource::getStatistics)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Measures lag of every replica, by reading <em>Seconds_Behind_Master</em> column of the provided query.
+     * <p>
+     * Replicas which can not be queried, or which do not replicate, get unknown lag and are not used
+     * until they are measured again.
+     *
+     * @param lagQuery query which returns replication status of the replica, such as <em>SHOW SLAVE STATUS</em>
+     */
+    public void measureLag(String lagQuery) {
+        for (String replica : replicas)
+            replicaLags.put(replica, queryLag(pools.get(replica), lagQuery));
+    }
+
+    /**
+     * Returns last measured lag of the replica.
+     *
+     * @param replica key of the replica
+     * @return lag in milliseconds, {@link Long#MAX_VALUE} if it is unknown
+     */
+    public long getReplicaLag(String replica) {
+        return replicaLags.getOrDefault(replica, UNKNOWN_LAG);
+    }
+
+    /**
+     * Closes all connection pools.
+     */
+    public void close() {
+        pools.values().forEach(pool -> pool.getPool().close());
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        final String username = currentUsername();
+
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            trackWrite(username);
+            return PRIMARY;
+        }
+        if (replicas.isEmpty())
+            return PRIMARY;
+
+        final long sinceWrite = millisSinceWrite(username);
+        final List<String> usable = new ArrayList<>(replicas.size());
+        for (String replica : replicas) {
+            final long lag = getReplicaLag(replica);
+            if (lag <= maxReplicaLagMillis && Math.max(lag, replicaLagMillis) <= sinceWrite)
+                usable.add(replica);
+        }
+        if (usable.isEmpty())
+            return PRIMARY;
+
+        return usable.get(Math.floorMod(nextReplica.getAndIncrement(), usable.size()));
+    }
+
+    private long millisSinceWrite(String username) {
+        final Long lastWrite = username == null ? null : lastWrites.get(username);
+        return lastWrite == null ? Long.MAX_VALUE : System.currentTimeMillis() - lastWrite;
+    }
+
+    private static long queryLag(javax.sql.DataSource pool, String lagQuery) {
+        try (Connection connection = pool.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet status = statement.executeQuery(lagQuery)) {
+            if (!status.next())
+                return UNKNOWN_LAG;
+
+            final long seconds = status.getLong(SECONDS_BEHIND_MASTER);
+            if (status.wasNull())
+                return UNKNOWN_LAG;
+            // lag is reported in whole seconds, so it is rounded up
+            return (seconds + 1) * 1000;
+        } catch (SQLException e) {
+            return UNKNOWN_LAG;
+        }
+    }
+
+    /**
+     * Remembers time of the user's write, once the current transaction is committed.
+     *
+     * @param username username of the current user, null if anonymous
+     */
+    private void trackWrite(String username) {
+        if (username == null || !TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(this))
+            return;
+
+        TransactionSynchronizationManager.bindResource(this, username);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ReplicaRoutingDataSource.this);
+                if (status != STATUS_COMMITTED)
+                    return;
+
+                final long now = System.currentTimeMillis();
+                lastWrites.put(username, now);
+                if (lastWrites.size() > MAX_TRACKED_USERS)
+                    lastWrites.values().removeIf(lastWrite -> now - lastWrite >= Math.max(replicaLagMillis, maxReplicaLagMillis));
+            }
+        });
+    }
+
+    private static String currentUsername() {
+        final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? null : authentication.getName();
+    }
+}
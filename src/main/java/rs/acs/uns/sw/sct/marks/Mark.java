@@ -1,8 +1,10 @@
 package rs.acs.uns.sw.sct.marks;
 
 
+import org.hibernate.annotations.GenericGenerator;
 import rs.acs.uns.sw.sct.announcements.Announcement;
 import rs.acs.uns.sw.sct.users.User;
+import rs.acs.uns.sw.sct.util.PooledIdGenerator;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
@@ -18,7 +20,8 @@ public class Mark implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = PooledIdGenerator.NAME)
+    @GenericGenerator(name = PooledIdGenerator.NAME, strategy = PooledIdGenerator.STRATEGY)
     private Long id;
 
     @NotNull
@@ -14,6 +14,7 @@ import rs.acs.uns.sw.sct.security.UserSecurityUtil;
 import rs.acs.uns.sw.sct.users.User;
 import rs.acs.uns.sw.sct.util.AuthorityRoles;
 import rs.acs.uns.sw.sct.util.Constants;
+import rs.acs.uns.sw.sct.util.CursorPage;
 import rs.acs.uns.sw.sct.util.HeaderUtil;
 import rs.acs.uns.sw.sct.util.PaginationUtil;
 
@@ -174,15 +175,40 @@ public class MarkController {
     /**
      * GET  /marks/announcement/:announcementId : get all marks for one announcement.
      *
+     * <p>
+     * If <em>after</em> param is present, keyset pagination is used: empty value requests the first page,
+     * and the next page is requested with the cursor from <em>Link</em> header.
+     *
      * @param announcementId the id of the announcement
+     * @param after          the cursor of keyset pagination
      * @param pageable       the pagination information
-     * @return the ResponseEntity with status 200 (OK) and the list of marks in body
+     * @return the ResponseEntity with status 200 (OK) and the list of marks in body,
+     * or with status 400 (Bad Request) if the cursor is not valid
      * @throws URISyntaxException if there is an error to generate the pagination HTTP headers
      */
     @PreAuthorize("permitAll()")
     @GetMapping("/marks/announcement/{announcementId}")
-    public ResponseEntity<List<MarkDTO>> getAllAnnouncementsByAnnouncementId(@PathVariable Long announcementId, Pageable pageable)
+    public ResponseEntity<List<MarkDTO>> getAllAnnouncementsByAnnouncementId(@PathVariable Long announcementId,
+                                                                             @RequestParam(value = "after", required = false) String after,
+                                                                             Pageable pageable)
             throws URISyntaxException {
+        if (after != null) {
+            final CursorPage<MarkDTO> page;
+            try {
+                page = markService.findAllByAnnouncement(announcementId, after, pageable).map(Mark::convertToDTO);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity
+                        .badRequest()
+                        .headers(HeaderUtil.failure(
+                                Constants.EntityNames.MARK,
+                                HeaderUtil.ERROR_CODE_INVALID_CURSOR,
+                                HeaderUtil.ERROR_MSG_INVALID_CURSOR))
+                        .body(null);
+            }
+            HttpHeaders headers = PaginationUtil.generateCursorHttpHeaders(page, pageable.getPageSize(),
+                    "/api/marks/announcement/" + announcementId);
+            return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+        }
         Page<MarkDTO> page = markService.findAllByAnnouncement(announcementId, pageable)
                 .map(mark -> mark.convertToDTO());
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/marks/announcement");
@@ -7,7 +7,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 /**
  * Spring Data JPA repository for the Mark entity.
  */
-public interface MarkRepository extends JpaRepository<Mark, Long> {
+public interface MarkRepository extends JpaRepository<Mark, Long>, MarkRepositoryCustom {
 
         /**
          * Get all marks that belong to one announcement.
@@ -0,0 +1,19 @@
+package rs.acs.uns.sw.sct.marks;
+
+import rs.acs.uns.sw.sct.util.CursorPage;
+import rs.acs.uns.sw.sct.util.KeysetRequest;
+
+/**
+ * Custom queries of the Mark repository, which can't be derived from method names.
+ */
+public interface MarkRepositoryCustom {
+
+    /**
+     * Get one keyset page of marks that belong to one announcement.
+     *
+     * @param announcementId the id of the announcement
+     * @param request        the keyset pagination information
+     * @return page of marks
+     */
+    CursorPage<Mark> findByAnnouncementId(Long announcementId, KeysetRequest request);
+}
@@ -0,0 +1,35 @@
+package rs.acs.uns.sw.sct.marks;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQuery;
+import rs.acs.uns.sw.sct.util.CursorPage;
+import rs.acs.uns.sw.sct.util.KeysetRequest;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+/**
+ * Implementation of custom Mark repository queries.
+ */
+public class MarkRepositoryImpl implements MarkRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public CursorPage<Mark> findByAnnouncementId(Long announcementId, KeysetRequest request) {
+        final QMark mark = QMark.mark;
+
+        final List<Tuple> rows = new JPAQuery<Void>(entityManager)
+                .select(request.columns(mark))
+                .from(mark)
+                .leftJoin(mark.grader).fetchJoin()
+                .where(mark.announcement.id.eq(announcementId), request.seek())
+                .orderBy(request.orderBy())
+                .limit(request.limit())
+                .fetch();
+
+        return request.toPage(rows, row -> row.get(mark));
+    }
+}
@@ -1,10 +1,16 @@
 package rs.acs.uns.sw.sct.marks;
 
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import rs.acs.uns.sw.sct.util.CursorPage;
+import rs.acs.uns.sw.sct.util.KeysetRequest;
+
+import java.util.Collections;
+import java.util.Map;
 
 /**
  * Service Implementation for managing Mark.
@@ -13,6 +19,9 @@ import org.springframework.transaction.annotation.Transactional;
 @Transactional
 public class MarkService {
 
+    private static final Map<String, ComparableExpressionBase<?>> KEYSET_SORT_KEYS =
+            Collections.singletonMap("value", QMark.mark.value);
+
     @Autowired
     private MarkRepository markRepository;
 
@@ -49,6 +58,21 @@ public class MarkService {
         return markRepository.findByAnnouncement_Id(announcementId, pageable);
     }
 
+    /**
+     * Get one keyset page of the marks by announcement id.
+     *
+     * @param announcementId id of one announcement
+     * @param after          token of the cursor, empty for the first page
+     * @param pageable       page size, and sort order of the first page
+     * @return the page of entities
+     * @throws IllegalArgumentException if cursor is malformed or sort property is not supported
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Mark> findAllByAnnouncement(Long announcementId, String after, Pageable pageable) {
+        return markRepository.findByAnnouncementId(announcementId,
+                KeysetRequest.of(after, pageable, QMark.mark.id, KEYSET_SORT_KEYS));
+    }
+
     /**
      * Get all the marks by user id.
      *
@@ -0,0 +1,84 @@
+package rs.acs.uns.sw.sct.metrics;
+
+import java.io.Serializable;
+
+/**
+ * Usage statistics of one in-memory cache.
+ */
+public class CacheStatisticsDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long hits;
+
+    private Long misses;
+
+    private Long evictions;
+
+    private Long invalidations;
+
+    private Integer size;
+
+    public Long getHits() {
+        return hits;
+    }
+
+    public void setHits(Long hits) {
+        this.hits = hits;
+    }
+
+    public Long getMisses() {
+        return misses;
+    }
+
+    public void setMisses(Long misses) {
+        this.misses = misses;
+    }
+
+    public Long getEvictions() {
+        return evictions;
+    }
+
+    public void setEvictions(Long evictions) {
+        this.evictions = evictions;
+    }
+
+    public Long getInvalidations() {
+        return invalidations;
+    }
+
+    public void setInvalidations(Long invalidations) {
+        this.invalidations = invalidations;
+    }
+
+    public Integer getSize() {
+        return size;
+    }
+
+    public void setSize(Integer size) {
+        this.size = size;
+    }
+
+    /**
+     * Share of the lookups which were served from the cache.
+     *
+     * @return hit ratio between 0 and 1, or null if there were no lookups
+     */
+    public Double getHitRatio() {
+        if (hits == null || misses == null || hits + misses == 0)
+            return null;
+        return (double) hits / (hits + misses);
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStatisticsDTO{" +
+                "hits=" + hits +
+                ", misses=" + misses +
+                ", evictions=" + evictions +
+                ", invalidations=" + invalidations +
+                ", size=" + size +
+                ", hitRatio=" + getHitRatio() +
+                '}';
+    }
+}
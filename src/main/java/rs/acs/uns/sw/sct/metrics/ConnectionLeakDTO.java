@@ -0,0 +1,63 @@
+package rs.acs.uns.sw.sct.metrics;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Connection which was held longer than the leak detection threshold.
+ */
+public class ConnectionLeakDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Date acquired;
+
+    private Long heldMillis;
+
+    private Boolean released;
+
+    private String thread;
+
+    private List<String> stackTrace;
+
+    public Date getAcquired() {
+        return acquired;
+    }
+
+    public void setAcquired(Date acquired) {
+        this.acquired = acquired;
+    }
+
+    public Long getHeldMillis() {
+        return heldMillis;
+    }
+
+    public void setHeldMillis(Long heldMillis) {
+        this.heldMillis = heldMillis;
+    }
+
+    public Boolean getReleased() {
+        return released;
+    }
+
+    public void setReleased(Boolean released) {
+        this.released = released;
+    }
+
+    public String getThread() {
+        return thread;
+    }
+
+    public void setThread(String thread) {
+        this.thread = thread;
+    }
+
+    public List<String> getStackTrace() {
+        return stackTrace;
+    }
+
+    public void setStackTrace(List<String> stackTrace) {
+        this.stackTrace = stackTrace;
+    }
+}
@@ -0,0 +1,103 @@
+package rs.acs.uns.sw.sct.metrics;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Usage statistics of one JDBC connection pool.
+ */
+public class ConnectionPoolStatisticsDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String name;
+
+    private Integer active;
+
+    private Integer idle;
+
+    private Integer pending;
+
+    private Integer size;
+
+    private Integer maxActive;
+
+    private HistogramDTO acquireTime;
+
+    private HistogramDTO usageTime;
+
+    private List<ConnectionLeakDTO> leaks = new ArrayList<>();
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Integer getActive() {
+        return active;
+    }
+
+    public void setActive(Integer active) {
+        this.active = active;
+    }
+
+    public Integer getIdle() {
+        return idle;
+    }
+
+    public void setIdle(Integer idle) {
+        this.idle = idle;
+    }
+
+    public Integer getPending() {
+        return pending;
+    }
+
+    public void setPending(Integer pending) {
+        this.pending = pending;
+    }
+
+    public Integer getSize() {
+        return size;
+    }
+
+    public void setSize(Integer size) {
+        this.size = size;
+    }
+
+    public Integer getMaxActive() {
+        return maxActive;
+    }
+
+    public void setMaxActive(Integer maxActive) {
+        this.maxActive = maxActive;
+    }
+
+    public HistogramDTO getAcquireTime() {
+        return acquireTime;
+    }
+
+    public void setAcquireTime(HistogramDTO acquireTime) {
+        this.acquireTime = acquireTime;
+    }
+
+    public HistogramDTO getUsageTime() {
+        return usageTime;
+    }
+
+    public void setUsageTime(HistogramDTO usageTime) {
+        this.usageTime = usageTime;
+    }
+
+    public List<ConnectionLeakDTO> getLeaks() {
+        return leaks;
+    }
+
+    public void setLeaks(List<ConnectionLeakDTO> leaks) {
+        this.leaks = leaks;
+    }
+}
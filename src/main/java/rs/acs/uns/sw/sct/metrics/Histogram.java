@@ -0,0 +1,85 @@
+package rs.acs.uns.sw.sct.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of durations, with fixed buckets.
+ * <p>
+ * Recording is lock-free, so it can be done on every connection acquisition. Percentiles are approximated
+ * with the upper bound of the bucket which contains them.
+ */
+public class Histogram {
+
+    /**
+     * Upper bounds of the buckets in microseconds, the last bucket holds everything above.
+     */
+    static final long[] UPPER_BOUNDS_MICROS = {
+            100, 250, 500, 1000, 2500, 5000, 10000, 25000, 50000, 100000, 250000, 500000,
+            1000000, 2500000, 5000000, 10000000
+    };
+
+    private final LongAdder[] counts = new LongAdder[UPPER_BOUNDS_MICROS.length + 1];
+    private final LongAdder sumMicros = new LongAdder();
+    private final LongAccumulator maxMicros = new LongAccumulator(Long::max, 0);
+
+    public Histogram() {
+        for (int i = 0; i < counts.length; i++)
+            counts[i] = new LongAdder();
+    }
+
+    /**
+     * Records one duration.
+     *
+     * @param nanos duration in nanoseconds
+     */
+    public void record(long nanos) {
+        final long micros = nanos / 1000;
+        int bucket = 0;
+        while (bucket < UPPER_BOUNDS_MICROS.length && micros > UPPER_BOUNDS_MICROS[bucket])
+            bucket++;
+
+        counts[bucket].increment();
+        sumMicros.add(micros);
+        maxMicros.accumulate(micros);
+    }
+
+    /**
+     * Returns current state of the histogram. Durations recorded meanwhile may be partially included.
+     *
+     * @return histogram snapshot
+     */
+    public HistogramDTO snapshot() {
+        final long[] bucketCounts = new long[counts.length];
+        long count = 0;
+        for (int i = 0; i < counts.length; i++) {
+            bucketCounts[i] = counts[i].sum();
+            count += bucketCounts[i];
+        }
+
+        final HistogramDTO dto = new HistogramDTO();
+        dto.setUpperBoundsMicros(UPPER_BOUNDS_MICROS.clone());
+        dto.setCounts(bucketCounts);
+        dto.setCount(count);
+        dto.setMeanMicros(count == 0 ? 0 : sumMicros.sum() / count);
+        dto.setMaxMicros(maxMicros.get());
+        dto.setP50Micros(percentile(bucketCounts, count, 0.50));
+        dto.setP95Micros(percentile(bucketCounts, count, 0.95));
+        dto.setP99Micros(percentile(bucketCounts, count, 0.99));
+        return dto;
+    }
+
+    private long percentile(long[] bucketCounts, long count, double percentile) {
+        if (count == 0)
+            return 0;
+
+        final long rank = (long) Math.ceil(percentile * count);
+        long seen = 0;
+        for (int i = 0; i < UPPER_BOUNDS_MICROS.length; i++) {
+            seen += bucketCounts[i];
+            if (seen >= rank)
+                return UPPER_BOUNDS_MICROS[i];
+        }
+        return maxMicros.get();
+    }
+}
@@ -0,0 +1,93 @@
+package rs.acs.uns.sw.sct.metrics;
+
+import java.io.Serializable;
+
+/**
+ * Snapshot of a duration histogram. All durations are in microseconds.
+ * <p>
+ * Bucket <em>i</em> counts durations up to <em>upperBoundsMicros[i]</em>, and the last bucket counts all longer ones.
+ */
+public class HistogramDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private long[] upperBoundsMicros;
+
+    private long[] counts;
+
+    private Long count;
+
+    private Long meanMicros;
+
+    private Long maxMicros;
+
+    private Long p50Micros;
+
+    private Long p95Micros;
+
+    private Long p99Micros;
+
+    public long[] getUpperBoundsMicros() {
+        return upperBoundsMicros;
+    }
+
+    public void setUpperBoundsMicros(long[] upperBoundsMicros) {
+        this.upperBoundsMicros = upperBoundsMicros;
+    }
+
+    public long[] getCounts() {
+        return counts;
+    }
+
+    public void setCounts(long[] counts) {
+        this.counts = counts;
+    }
+
+    public Long getCount() {
+        return count;
+    }
+
+    public void setCount(Long count) {
+        this.count = count;
+    }
+
+    public Long getMeanMicros() {
+        return meanMicros;
+    }
+
+    public void setMeanMicros(Long meanMicros) {
+        this.meanMicros = meanMicros;
+    }
+
+    public Long getMaxMicros() {
+        return maxMicros;
+    }
+
+    public void setMaxMicros(Long maxMicros) {
+        this.maxMicros = maxMicros;
+    }
+
+    public Long getP50Micros() {
+        return p50Micros;
+    }
+
+    public void setP50Micros(Long p50Micros) {
+        this.p50Micros = p50Micros;
+    }
+
+    public Long getP95Micros() {
+        return p95Micros;
+    }
+
+    public void setP95Micros(Long p95Micros) {
+        this.p95Micros = p95Micros;
+    }
+
+    public Long getP99Micros() {
+        return p99Micros;
+    }
+
+    public void setP99Micros(Long p99Micros) {
+        this.p99Micros = p99Micros;
+    }
+}
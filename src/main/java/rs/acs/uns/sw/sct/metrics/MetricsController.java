@@ -0,0 +1,87 @@
+package rs.acs.uns.sw.sct.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import rs.acs.uns.sw.sct.configuration.EntityCacheRegions;
+import rs.acs.uns.sw.sct.configuration.ReplicaRoutingDataSource;
+import rs.acs.uns.sw.sct.search.SearchResultCache;
+import rs.acs.uns.sw.sct.security.UserDetailsCache;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST controller for runtime metrics of the application.
+ */
+@RestController
+@RequestMapping("/api/admin/metrics")
+public class MetricsController {
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    @Autowired
+    private EntityCacheRegions entityCacheRegions;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    /**
+     * GET  /admin/metrics/search-cache : get usage statistics of the announcement search result cache.
+     *
+     * @return the ResponseEntity with status 200 (OK) and cache statistics in body
+     */
+    @PreAuthorize("hasAuthority(T(rs.acs.uns.sw.sct.util.AuthorityRoles).ADMIN)")
+    @GetMapping("/search-cache")
+    public ResponseEntity<CacheStatisticsDTO> getSearchCacheStatistics() {
+        return new ResponseEntity<>(searchResultCache.getStatistics(), HttpStatus.OK);
+    }
+
+    /**
+     * GET  /admin/metrics/entity-cache : get usage statistics of every second-level cache region.
+     *
+     * @return the ResponseEntity with status 200 (OK) and cache statistics by region name in body
+     */
+    @PreAuthorize("hasAuthority(T(rs.acs.uns.sw.sct.util.AuthorityRoles).ADMIN)")
+    @GetMapping("/entity-cache")
+    public ResponseEntity<Map<String, CacheStatisticsDTO>> getEntityCacheStatistics() {
+        return new ResponseEntity<>(entityCacheRegions.getStatistics(), HttpStatus.OK);
+    }
+
+    /**
+     * GET  /admin/metrics/user-details-cache : get usage statistics of the cache of authenticated users.
+     *
+     * @return the ResponseEntity with status 200 (OK) and cache statistics in body
+     */
+    @PreAuthorize("hasAuthority(T(rs.acs.uns.sw.sct.util.AuthorityRoles).ADMIN)")
+    @GetMapping("/user-details-cache")
+    public ResponseEntity<CacheStatisticsDTO> getUserDetailsCacheStatistics() {
+        return new ResponseEntity<>(userDetailsCache.getStatistics(), HttpStatus.OK);
+    }
+
+    /**
+     * GET  /admin/metrics/db : get usage statistics of every JDBC connection pool.
+     * <p>
+     * Statistics contain current number of active, idle and waiting connections, histograms of times
+     * spent waiting for a connection and holding it, and connections held longer than the leak detection threshold.
+     *
+     * @return the ResponseEntity with status 200 (OK) and statistics of the primary and replica pools in body
+     * @throws SQLException if routing data source can't be unwrapped
+     */
+    @PreAuthorize("hasAuthority(T(rs.acs.uns.sw.sct.util.AuthorityRoles).ADMIN)")
+    @GetMapping("/db")
+    public ResponseEntity<List<ConnectionPoolStatisticsDTO>> getConnectionPoolStatistics() throws SQLException {
+        final ReplicaRoutingDataSource routingDataSource = dataSource.unwrap(ReplicaRoutingDataSource.class);
+        return new ResponseEntity<>(routingDataSource.getStatistics(), HttpStatus.OK);
+    }
+}
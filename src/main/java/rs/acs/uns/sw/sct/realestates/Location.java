@@ -1,6 +1,10 @@
 package rs.acs.uns.sw.sct.realestates;
 
 import com.google.common.base.Objects;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import rs.acs.uns.sw.sct.util.PooledIdGenerator;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
@@ -11,13 +15,17 @@ import java.io.Serializable;
  * A location
  */
 @Entity
-@Table(name = "locations")
+@Table(name = "locations", indexes = {
+        @Index(name = "idx_locations_lat_long", columnList = "latitude,longitude")
+})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Location implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = PooledIdGenerator.NAME)
+    @GenericGenerator(name = PooledIdGenerator.NAME, strategy = PooledIdGenerator.STRATEGY)
     private Long id;
 
     @NotNull
@@ -237,7 +245,8 @@ public class Location implements Serializable {
     }
 
     /**
-     * Method which returns if location is in provided area
+     * Method which returns if location is in provided area.
+     * If bottom left longitude is greater than top right longitude, area crosses the antimeridian.
      *
      * @param x1    Top right corner longitude
      * @param y1    Top right corner latitude
@@ -247,7 +256,9 @@ public class Location implements Serializable {
      */
     public Boolean isInArea(Double x1, Double y1, Double x2, Double y2) {
 
-        Boolean isX = (x2 <= this.longitude) && (this.longitude <= x1);
+        Boolean isX = x2 <= x1
+                ? (x2 <= this.longitude) && (this.longitude <= x1)
+                : (x2 <= this.longitude) || (this.longitude <= x1);
         Boolean isY = (y2 <= this.latitude) && (this.latitude <= y1);
 
         return isX && isY;
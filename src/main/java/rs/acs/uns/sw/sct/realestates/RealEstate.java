@@ -2,7 +2,9 @@ package rs.acs.uns.sw.sct.realestates;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.google.common.base.Objects;
+import org.hibernate.annotations.GenericGenerator;
 import rs.acs.uns.sw.sct.announcements.Announcement;
+import rs.acs.uns.sw.sct.util.PooledIdGenerator;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
@@ -24,7 +26,8 @@ public class RealEstate implements Serializable {
     private static final double UPPER_LIMIT = 1.05;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = PooledIdGenerator.NAME)
+    @GenericGenerator(name = PooledIdGenerator.NAME, strategy = PooledIdGenerator.STRATEGY)
     private Long id;
 
     @NotNull
@@ -4,6 +4,9 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * Spring Data JPA repository for the RealEstate entity.
  */
@@ -16,4 +19,22 @@ public interface RealEstateRepository extends JpaRepository<RealEstate, Long> {
      * @return list of real estates
      */
     Page<RealEstate> findAllByDeleted(Boolean deleted, Pageable pageable);
+
+    /**
+     * Get all real estates with provided ids where 'delete' status is 'true' or 'false'.
+     *
+     * @param ids      ids of the real estates
+     * @param deleted  status we are searching for
+     * @param pageable the pagination information
+     * @return list of real estates
+     */
+    Page<RealEstate> findAllByIdInAndDeleted(Collection<Long> ids, Boolean deleted, Pageable pageable);
+
+    /**
+     * Get all real estates located on provided locations.
+     *
+     * @param locationIds ids of the locations
+     * @return list of real estates
+     */
+    List<RealEstate> findByLocation_IdIn(Collection<Long> locationIds);
 }
@@ -6,9 +6,10 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import rs.acs.uns.sw.sct.search.RealEstateSimilarityIndex;
 
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Service Implementation for managing RealEstate.
@@ -20,6 +21,9 @@ public class RealEstateService {
     @Autowired
     private RealEstateRepository realEstateRepository;
 
+    @Autowired
+    private RealEstateSimilarityIndex realEstateSimilarityIndex;
+
     /**
      * Save a realEstate.
      *
@@ -44,6 +48,9 @@ public class RealEstateService {
 
     /**
      * Get all the similar real estates.
+     * <p>
+     * Similar real estates are found in the in-memory similarity index,
+     * so only the requested page of them is read from the database.
      *
      * @param realEstate   DTO which needs to be compared
      * @param pageable the pagination information
@@ -51,12 +58,13 @@ public class RealEstateService {
      */
     @Transactional(readOnly = true)
     public Page<RealEstate> findAllSimilar(RealEstateSimilarDTO realEstate, Pageable pageable) {
+        // index is updated on insert, which is deferred until flush
+        realEstateRepository.flush();
+        final List<Long> similarIds = realEstateSimilarityIndex.findSimilar(realEstate);
+        if (similarIds.isEmpty())
+            return new PageImpl<>(Collections.emptyList(), pageable, 0);
 
-        final List<RealEstate> similarRealEstates = realEstateRepository.findAll().stream()
-                .filter(re -> re.similar(realEstate) && !re.isDeleted())
-                .collect(Collectors.toList());
-
-        return new PageImpl<>(similarRealEstates, pageable, similarRealEstates.size());
+        return realEstateRepository.findAllByIdInAndDeleted(similarIds, false, pageable);
     }
 
     /**
@@ -81,6 +89,17 @@ public class RealEstateService {
         return realEstateRepository.findOne(id);
     }
 
+    /**
+     * Get all realEstates with provided ids, with one query.
+     *
+     * @param ids the ids of the entities
+     * @return the list of entities, without ids which don't exist
+     */
+    @Transactional(readOnly = true)
+    public List<RealEstate> findAll(Iterable<Long> ids) {
+        return realEstateRepository.findAll(ids);
+    }
+
     /**
      * Delete the  realEstate by id.
      *
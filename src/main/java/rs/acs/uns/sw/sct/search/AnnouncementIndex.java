@@ -0,0 +1,44 @@
+package rs.acs.uns.sw.sct.search;
+
+import rs.acs.uns.sw.sct.announcements.Announcement;
+
+/**
+ * In-memory index of announcements used to narrow down search candidates
+ * before querying the database.
+ * <p>
+ * Implementations are kept up to date by {@link AnnouncementIndexer}.
+ */
+public interface AnnouncementIndex {
+
+    /**
+     * Checks whether announcement is active, i.e. not deleted, not expired and already published.
+     * Search indexes hold only active announcements, like {@link AnnouncementPredicates#active()}.
+     *
+     * @param announcement announcement to be checked
+     * @return true if announcement is active
+     */
+    static boolean isActive(Announcement announcement) {
+        return !Boolean.TRUE.equals(announcement.isDeleted())
+                && !Boolean.TRUE.equals(announcement.isExpired())
+                && announcement.getPublishAt() == null;
+    }
+
+    /**
+     * Adds announcement to the index, or replaces previously indexed state of the same announcement.
+     *
+     * @param announcement announcement to be indexed
+     */
+    void index(Announcement announcement);
+
+    /**
+     * Removes announcement from the index.
+     *
+     * @param id the id of the announcement
+     */
+    void remove(Long id);
+
+    /**
+     * Removes all announcements from the index.
+     */
+    void clear();
+}
@@ -0,0 +1,98 @@
+package rs.acs.uns.sw.sct.search;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import rs.acs.uns.sw.sct.announcements.Announcement;
+import rs.acs.uns.sw.sct.announcements.AnnouncementRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Component that keeps all in-memory announcement indexes in sync with the database.
+ * <p>
+ * Announcements are read in read-write transactions, which always use the primary database,
+ * since a replica could still return rows from before the change that is being indexed.
+ * Rebuild and resynchronization by id are delegated to {@link IndexLoader}.
+ */
+@Component
+public class AnnouncementIndexer {
+
+    @Autowired
+    private AnnouncementRepository announcementRepository;
+
+    @Autowired
+    private List<AnnouncementIndex> indexes;
+
+    @Autowired
+    private IndexLoader indexLoader;
+
+    /**
+     * Rebuilds all indexes from the database, once application context is started.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void rebuild() {
+        indexes.forEach(AnnouncementIndex::clear);
+        indexLoader.loadAll(announcementRepository, this::index);
+    }
+
+    /**
+     * Adds announcement to all indexes.
+     *
+     * @param announcement announcement to be indexed
+     */
+    public void index(Announcement announcement) {
+        indexes.forEach(index -> index.index(announcement));
+    }
+
+    /**
+     * Removes announcement from all indexes.
+     *
+     * @param id the id of the announcement
+     */
+    public void remove(Long id) {
+        indexes.forEach(index -> index.remove(id));
+    }
+
+    /**
+     * Re-reads announcements from the database and updates their indexed state.
+     * Used when transaction which already changed indexes is rolled back.
+     *
+     * @param ids ids of the announcements to be synchronized
+     */
+    public void resync(Collection<Long> ids) {
+        indexLoader.reload(announcementRepository, ids, this::index, this::remove);
+    }
+
+    /**
+     * Re-reads announcements of changed authors from the database and updates their indexed state,
+     * since author's company is indexed together with the announcement.
+     *
+     * @param authorIds ids of the changed authors
+     */
+    @Async
+    @Transactional
+    public void resyncAuthors(Collection<Long> authorIds) {
+        announcementRepository.findByAuthor_IdIn(authorIds).forEach(this::index);
+    }
+
+    /**
+     * Re-reads announcements of changed real estates and locations from the database
+     * and updates their indexed state.
+     *
+     * @param realEstateIds ids of the changed real estates
+     * @param locationIds   ids of the changed locations
+     */
+    @Async
+    @Transactional
+    public void resyncRealEstates(Collection<Long> realEstateIds, Collection<Long> locationIds) {
+        if (!realEstateIds.isEmpty())
+            announcementRepository.findByRealEstate_IdIn(realEstateIds).forEach(this::index);
+        if (!locationIds.isEmpty())
+            announcementRepository.findByRealEstate_Location_IdIn(locationIds).forEach(this::index);
+    }
+}
@@ -2,8 +2,15 @@ package rs.acs.uns.sw.sct.search;
 
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.StringExpression;
 import rs.acs.uns.sw.sct.announcements.QAnnouncement;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 /**
  * AnnouncementPredicates used for resolving search criteria from
  *
@@ -12,6 +19,14 @@ import rs.acs.uns.sw.sct.announcements.QAnnouncement;
  */
 public final class AnnouncementPredicates {
 
+    private static final int MAX_IN_LIST_SIZE = 1000;
+
+    /**
+     * Characters which separate words in name and description. They are replaced with spaces before keywords
+     * are matched in the database, which approximates the tokens of {@link FullTextIndex#tokenize(String)}.
+     */
+    private static final String WORD_SEPARATORS = "\t\r\n.,;:!?()[]{}<>\"'`-_/\\|+*=&%$#@~^";
+
     private AnnouncementPredicates() {
     }
 
@@ -41,6 +56,10 @@ public final class AnnouncementPredicates {
             where.and(announcement.realEstate.heatingType.containsIgnoreCase(searchWrapper.getHeatingType()));
         if (searchWrapper.getName() != null)
             where.and(announcement.name.containsIgnoreCase(searchWrapper.getName()));
+        if (searchWrapper.getKeywords() != null) {
+            for (String term : FullTextIndex.tokenize(searchWrapper.getKeywords()))
+                where.and(containsWord(announcement.name, term).or(containsWord(announcement.description, term)));
+        }
         if (searchWrapper.getCity() != null)
             where.and(announcement.realEstate.location.city.containsIgnoreCase(searchWrapper.getCity()));
         if (searchWrapper.getCityRegion() != null)
@@ -64,8 +83,115 @@ public final class AnnouncementPredicates {
         if (searchWrapper.getCableTV() != null)
             where.and(announcement.realEstate.cableTV.eq(searchWrapper.getCableTV()));
 
-        where.and(announcement.deleted.eq(false));
+        where.and(active());
+
+        return where;
+    }
+
+    /**
+     * Creates predicate which matches active announcements, which are not deleted,
+     * have not expired and are already published.
+     *
+     * @return active predicate
+     */
+    public static Predicate active() {
+        QAnnouncement announcement = QAnnouncement.announcement;
+        return announcement.deleted.eq(false)
+                .and(announcement.expired.eq(false))
+                .and(announcement.publishAt.isNull());
+    }
+
+    /**
+     * Creates predicate which matches all active announcements whose real estate
+     * is located inside of the provided rectangle area.
+     * <p>
+     * Latitude is compared first so that database can use composite
+     * <em>(latitude, longitude)</em> index defined on locations table.
+     * If bottom left longitude is greater than top right longitude, area crosses the antimeridian.
+     *
+     * @param x1 Top right corner longitude
+     * @param y1 Top right corner latitude
+     * @param x2 Bottom left corner longitude
+     * @param y2 Bottom left corner latitude
+     * @return area predicate
+     */
+    public static Predicate inArea(Double x1, Double y1, Double x2, Double y2) {
+        BooleanBuilder where = new BooleanBuilder();
+
+        QAnnouncement announcement = QAnnouncement.announcement;
+        where.and(announcement.realEstate.location.latitude.between(y2, y1));
+        if (x2 > x1)
+            where.and(announcement.realEstate.location.longitude.goe(x2)
+                    .or(announcement.realEstate.location.longitude.loe(x1)));
+        else
+            where.and(announcement.realEstate.location.longitude.between(x2, x1));
+        where.and(active());
+
+        return where;
+    }
+
+    /**
+     * Creates predicate which matches announcements with provided deletion status.
+     * Announcements which are not deleted are matched only while they are active.
+     *
+     * @param deleted deletion status, or null for all announcements
+     * @return status predicate
+     */
+    public static Predicate withStatus(Boolean deleted) {
+        BooleanBuilder where = new BooleanBuilder();
+        if (Boolean.TRUE.equals(deleted))
+            where.and(QAnnouncement.announcement.deleted.eq(true));
+        else if (deleted != null)
+            where.and(active());
+        return where;
+    }
+
+    /**
+     * Creates predicate which restricts results to announcements with provided ids.
+     * Used for narrowing down query to candidates found in one of in-memory indexes.
+     * <p>
+     * Ids are split into several <em>IN</em> lists of limited length, since some databases
+     * don't accept longer lists.
+     *
+     * @param ids ids of candidate announcements
+     * @return id predicate
+     */
+    public static Predicate idIn(Collection<Long> ids) {
+        if (ids.size() <= MAX_IN_LIST_SIZE)
+            return QAnnouncement.announcement.id.in(ids);
 
+        BooleanBuilder where = new BooleanBuilder();
+        final List<Long> list = new ArrayList<>(ids);
+        for (int from = 0; from < list.size(); from += MAX_IN_LIST_SIZE)
+            where.or(QAnnouncement.announcement.id.in(list.subList(from, Math.min(from + MAX_IN_LIST_SIZE, list.size()))));
         return where;
     }
+
+    /**
+     * Creates predicate which matches text containing the term as a whole word, the same way as the full text index.
+     * <p>
+     * Separators are replaced with spaces, and the term is looked up between spaces, so this predicate
+     * serves as the database fallback when keywords match too many announcements to be passed as ids.
+     *
+     * @param text lower or mixed case text
+     * @param term lower case term, made of letters and digits only
+     * @return word predicate
+     */
+    private static BooleanExpression containsWord(StringExpression text, String term) {
+        StringExpression words = text.lower();
+        for (char separator : WORD_SEPARATORS.toCharArray())
+            words = Expressions.stringTemplate("function('replace', {0}, {1}, ' ')", words, String.valueOf(separator));
+        return Expressions.asString(" ").concat(words).concat(" ").like("% " + term + " %");
+    }
+
+    /**
+     * Creates predicate which restricts results to announcements created by authors with provided ids.
+     * Used for narrowing down query to candidates found in the user search index.
+     *
+     * @param authorIds ids of candidate authors
+     * @return author predicate
+     */
+    public static Predicate authorIdIn(Collection<Long> authorIds) {
+        return QAnnouncement.announcement.author.id.in(authorIds);
+    }
 }
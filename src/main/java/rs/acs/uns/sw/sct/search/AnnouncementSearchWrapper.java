@@ -14,6 +14,7 @@ public class AnnouncementSearchWrapper {
     private Double endArea;
     private String heatingType;
     private String name;
+    private String keywords;
     private String country;
     private String cityRegion;
     private String city;
@@ -136,6 +137,17 @@ public class AnnouncementSearchWrapper {
         return this;
     }
 
+    /**
+     * Setter used for 'method chaining'.
+     *
+     * @param keywords name or description contains all keywords
+     * @return AnnouncementSearchWrapper (this)
+     */
+    public AnnouncementSearchWrapper keywords(String keywords) {
+        this.keywords = keywords;
+        return this;
+    }
+
     /**
      * Setter used for 'method chaining'.
      *
@@ -337,6 +349,14 @@ public class AnnouncementSearchWrapper {
         this.name = name;
     }
 
+    public String getKeywords() {
+        return keywords;
+    }
+
+    public void setKeywords(String keywords) {
+        this.keywords = keywords;
+    }
+
     public String getCountry() {
         return country;
     }
@@ -0,0 +1,148 @@
+package rs.acs.uns.sw.sct.search;
+
+import org.springframework.stereotype.Component;
+import rs.acs.uns.sw.sct.announcements.Announcement;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Announcements of every company, kept sorted by price.
+ * <p>
+ * Cheapest announcements of a company are read from the head of its set. Only active announcements are indexed,
+ * so announcements are dropped from the index once they are deleted or marked as expired, and scheduled ones
+ * are added once they are published. Ones whose expiration date passed before they were marked as expired
+ * are skipped and dropped as they are found. All announcements of the company are kept,
+ * so when one of the cheapest is removed, the next one is already in place.
+ */
+@Component
+public class CompanyTopIndex implements AnnouncementIndex {
+
+    private static final Comparator<Entry> BY_PRICE = Comparator
+            .comparingDouble((Entry entry) -> entry.price)
+            .thenComparingLong(entry -> entry.id);
+
+    private final Map<Long, TreeSet<Entry>> companies = new HashMap<>();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Override
+    public void index(Announcement announcement) {
+        final Long companyId = announcement.getAuthor() != null && announcement.getAuthor().getCompany() != null
+                ? announcement.getAuthor().getCompany().getId() : null;
+
+        if (companyId == null || announcement.getPrice() == null || announcement.getExpirationDate() == null
+                || !AnnouncementIndex.isActive(announcement)) {
+            remove(announcement.getId());
+            return;
+        }
+
+        final Entry entry = new Entry(announcement.getId(), companyId, announcement.getPrice(),
+                announcement.getExpirationDate().getTime());
+
+        lock.writeLock().lock();
+        try {
+            removeEntry(entry.id);
+            entries.put(entry.id, entry);
+            companies.computeIfAbsent(companyId, key -> new TreeSet<>(BY_PRICE)).add(entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeEntry(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            companies.clear();
+            entries.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds ids of the cheapest announcements of the company which are not expired.
+     *
+     * @param companyId the id of the company
+     * @param count     maximal number of announcements
+     * @param now       current time, announcements which expire until then are skipped
+     * @return ids sorted by price ascending
+     */
+    public List<Long> findCheapest(Long companyId, int count, Date now) {
+        final List<Long> ids = new ArrayList<>(count);
+        final List<Long> expired = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            final TreeSet<Entry> announcements = companies.get(companyId);
+            if (announcements != null) {
+                for (Entry entry : announcements) {
+                    if (ids.size() == count)
+                        break;
+                    if (entry.expiresAt > now.getTime())
+                        ids.add(entry.id);
+                    else
+                        expired.add(entry.id);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (!expired.isEmpty()) {
+            lock.writeLock().lock();
+            try {
+                for (Long id : expired) {
+                    final Entry entry = entries.get(id);
+                    // announcement could be extended in the meantime
+                    if (entry != null && entry.expiresAt <= now.getTime())
+                        removeEntry(id);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        return ids;
+    }
+
+    private void removeEntry(Long id) {
+        final Entry previous = entries.remove(id);
+        if (previous == null)
+            return;
+
+        final TreeSet<Entry> announcements = companies.get(previous.companyId);
+        announcements.remove(previous);
+        if (announcements.isEmpty())
+            companies.remove(previous.companyId);
+    }
+
+    /**
+     * Indexed state of one announcement.
+     */
+    private static final class Entry {
+        private final long id;
+        private final long companyId;
+        private final double price;
+        private final long expiresAt;
+
+        private Entry(long id, long companyId, double price, long expiresAt) {
+            this.id = id;
+            this.companyId = companyId;
+            this.price = price;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
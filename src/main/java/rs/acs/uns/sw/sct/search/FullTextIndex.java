@@ -0,0 +1,140 @@
+package rs.acs.uns.sw.sct.search;
+
+import org.springframework.stereotype.Component;
+import rs.acs.uns.sw.sct.announcements.Announcement;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index over name and description of active announcements.
+ * <p>
+ * Every term maps to a sorted posting list of announcement ids. Keyword query is answered
+ * by intersecting posting lists of all query terms, starting from the shortest one.
+ */
+@Component
+public class FullTextIndex implements AnnouncementIndex {
+
+    private static final String TOKEN_SEPARATOR = "[^\\p{L}\\p{N}]+";
+
+    private final Map<String, SortedSet<Long>> postings = new HashMap<>();
+    private final Map<Long, Set<String>> documentTerms = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Splits text into lower-cased terms.
+     *
+     * @param text text to be tokenized
+     * @return set of distinct terms, empty if text contains no letters or digits
+     */
+    public static Set<String> tokenize(String text) {
+        final Set<String> terms = new LinkedHashSet<>();
+        if (text == null)
+            return terms;
+
+        for (String token : text.toLowerCase(Locale.ROOT).split(TOKEN_SEPARATOR)) {
+            if (!token.isEmpty())
+                terms.add(token);
+        }
+        return terms;
+    }
+
+    @Override
+    public void index(Announcement announcement) {
+        if (!AnnouncementIndex.isActive(announcement)) {
+            remove(announcement.getId());
+            return;
+        }
+
+        final Set<String> terms = tokenize(announcement.getName());
+        terms.addAll(tokenize(announcement.getDescription()));
+
+        lock.writeLock().lock();
+        try {
+            removeDocument(announcement.getId());
+            documentTerms.put(announcement.getId(), terms);
+            for (String term : terms)
+                postings.computeIfAbsent(term, key -> new TreeSet<>()).add(announcement.getId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documentTerms.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds ids of all indexed announcements which contain every term of the query as a whole word.
+     *
+     * @param query keywords separated by whitespace or punctuation
+     * @param limit maximal number of ids caller is willing to accept
+     * @return ids sorted ascending, or null if query has no terms or matches more than <code>limit</code> announcements
+     */
+    public List<Long> search(String query, int limit) {
+        final Set<String> terms = tokenize(query);
+        if (terms.isEmpty())
+            return null;
+
+        lock.readLock().lock();
+        try {
+            final List<SortedSet<Long>> lists = new ArrayList<>();
+            for (String term : terms) {
+                final SortedSet<Long> list = postings.get(term);
+                if (list == null)
+                    return new ArrayList<>();
+                lists.add(list);
+            }
+            lists.sort((first, second) -> Integer.compare(first.size(), second.size()));
+
+            final List<Long> result = new ArrayList<>();
+            for (Long id : lists.get(0)) {
+                boolean inAll = true;
+                for (int i = 1; i < lists.size() && inAll; i++)
+                    inAll = lists.get(i).contains(id);
+
+                if (inAll) {
+                    if (result.size() == limit)
+                        return null;
+                    result.add(id);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeDocument(Long id) {
+        final Set<String> terms = documentTerms.remove(id);
+        if (terms == null)
+            return;
+
+        for (String term : terms) {
+            final SortedSet<Long> list = postings.get(term);
+            if (list != null) {
+                list.remove(id);
+                if (list.isEmpty())
+                    postings.remove(term);
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package rs.acs.uns.sw.sct.search;
+
+import java.util.*;
+
+/**
+ * Compressed set of ids, split into chunks of 2<sup>16</sup> consecutive ids.
+ * <p>
+ * Only chunks which contain at least one id are stored, each as a plain bitmap,
+ * so sparse id ranges cost nothing and set operations only visit chunks present in both operands.
+ * <p>
+ * Not thread safe, callers are responsible for synchronization.
+ */
+class IdBitmap {
+
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+
+    private final TreeMap<Long, BitSet> chunks = new TreeMap<>();
+
+    /**
+     * Adds id to the bitmap.
+     *
+     * @param id id to be added, must not be negative
+     */
+    void add(long id) {
+        chunks.computeIfAbsent(id >>> CHUNK_BITS, key -> new BitSet()).set((int) (id & CHUNK_MASK));
+    }
+
+    /**
+     * Removes id from the bitmap.
+     *
+     * @param id id to be removed
+     */
+    void remove(long id) {
+        final BitSet chunk = chunks.get(id >>> CHUNK_BITS);
+        if (chunk == null)
+            return;
+
+        chunk.clear((int) (id & CHUNK_MASK));
+        if (chunk.isEmpty())
+            chunks.remove(id >>> CHUNK_BITS);
+    }
+
+    /**
+     * Removes all ids from the bitmap.
+     */
+    void clear() {
+        chunks.clear();
+    }
+
+    boolean isEmpty() {
+        return chunks.isEmpty();
+    }
+
+    int cardinality() {
+        int cardinality = 0;
+        for (BitSet chunk : chunks.values())
+            cardinality += chunk.cardinality();
+        return cardinality;
+    }
+
+    /**
+     * Creates bitmap with ids present in both this and other bitmap.
+     *
+     * @param other other bitmap
+     * @return new bitmap
+     */
+    IdBitmap and(IdBitmap other) {
+        final IdBitmap result = new IdBitmap();
+        for (Map.Entry<Long, BitSet> entry : chunks.entrySet()) {
+            final BitSet otherChunk = other.chunks.get(entry.getKey());
+            if (otherChunk == null)
+                continue;
+
+            final BitSet chunk = (BitSet) entry.getValue().clone();
+            chunk.and(otherChunk);
+            if (!chunk.isEmpty())
+                result.chunks.put(entry.getKey(), chunk);
+        }
+        return result;
+    }
+
+    /**
+     * Creates bitmap with ids present in this bitmap, but not in the other one.
+     *
+     * @param other other bitmap
+     * @return new bitmap
+     */
+    IdBitmap andNot(IdBitmap other) {
+        final IdBitmap result = new IdBitmap();
+        for (Map.Entry<Long, BitSet> entry : chunks.entrySet()) {
+            final BitSet chunk = (BitSet) entry.getValue().clone();
+            final BitSet otherChunk = other.chunks.get(entry.getKey());
+            if (otherChunk != null)
+                chunk.andNot(otherChunk);
+            if (!chunk.isEmpty())
+                result.chunks.put(entry.getKey(), chunk);
+        }
+        return result;
+    }
+
+    /**
+     * Creates bitmap with ids present in either this or other bitmap.
+     *
+     * @param other other bitmap
+     * @return new bitmap
+     */
+    IdBitmap or(IdBitmap other) {
+        final IdBitmap result = new IdBitmap();
+        for (Map.Entry<Long, BitSet> entry : chunks.entrySet())
+            result.chunks.put(entry.getKey(), (BitSet) entry.getValue().clone());
+        for (Map.Entry<Long, BitSet> entry : other.chunks.entrySet()) {
+            final BitSet chunk = result.chunks.get(entry.getKey());
+            if (chunk == null)
+                result.chunks.put(entry.getKey(), (BitSet) entry.getValue().clone());
+            else
+                chunk.or(entry.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * Returns all ids from the bitmap.
+     *
+     * @return ids sorted ascending
+     */
+    List<Long> toList() {
+        final List<Long> ids = new ArrayList<>();
+        for (Map.Entry<Long, BitSet> entry : chunks.entrySet()) {
+            final long base = entry.getKey() << CHUNK_BITS;
+            final BitSet chunk = entry.getValue();
+            for (int bit = chunk.nextSetBit(0); bit >= 0; bit = chunk.nextSetBit(bit + 1))
+                ids.add(base + bit);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,73 @@
+package rs.acs.uns.sw.sct.search;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Loads entities from the database into in-memory indexes.
+ * <p>
+ * Entities are read in read-write transactions, which always use the primary database,
+ * since a replica could still return rows from before the change that is being indexed.
+ */
+@Component
+public class IndexLoader {
+
+    private static final int BATCH_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Reads all entities from the repository, in batches ordered by id, and passes them to the index.
+     *
+     * @param repository repository of the indexed entities
+     * @param index      callback which indexes one entity
+     * @param <T>        type of the indexed entities
+     */
+    @Transactional
+    public <T> void loadAll(JpaRepository<T, Long> repository, Consumer<? super T> index) {
+        Page<T> page = repository.findAll(new PageRequest(0, BATCH_SIZE, Sort.Direction.ASC, "id"));
+        while (true) {
+            page.forEach(index);
+            // indexed entities are not needed anymore, so persistence context should not grow
+            entityManager.clear();
+
+            if (!page.hasNext())
+                break;
+            page = repository.findAll(page.nextPageable());
+        }
+    }
+
+    /**
+     * Re-reads entities from the repository and updates their indexed state.
+     * Entities which do not exist anymore are removed from the index.
+     *
+     * @param repository repository of the indexed entities
+     * @param ids        ids of the entities to be synchronized
+     * @param index      callback which indexes one entity
+     * @param remove     callback which removes one entity from the index by its id
+     * @param <T>        type of the indexed entities
+     */
+    @Async
+    @Transactional
+    public <T> void reload(JpaRepository<T, Long> repository, Collection<Long> ids,
+                           Consumer<? super T> index, Consumer<Long> remove) {
+        for (Long id : ids) {
+            final T entity = repository.findOne(id);
+            if (entity == null)
+                remove.accept(id);
+            else
+                index.accept(entity);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package rs.acs.uns.sw.sct.search;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import rs.acs.uns.sw.sct.announcements.Announcement;
+import rs.acs.uns.sw.sct.realestates.Location;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Uniform grid spatial index of active announcements, keyed by latitude and longitude
+ * of their real estate location.
+ * <p>
+ * Globe is split into square cells of configurable size (in degrees). Rectangle query only
+ * visits cells that overlap the rectangle, so its cost depends on the number of announcements
+ * in the visible area instead of on the size of the whole table.
+ */
+@Component
+public class LocationGridIndex implements AnnouncementIndex {
+
+    private static final double MAX_LONGITUDE = 180;
+
+    @Value("${sct.index.grid.cell-size}")
+    private Double cellSize;
+
+    private final Map<Long, Set<Long>> cells = new HashMap<>();
+    private final Map<Long, double[]> points = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Override
+    public void index(Announcement announcement) {
+        final Location location = announcement.getRealEstate() != null ? announcement.getRealEstate().getLocation() : null;
+
+        if (!AnnouncementIndex.isActive(announcement) || location == null
+                || location.getLatitude() == null || location.getLongitude() == null) {
+            remove(announcement.getId());
+            return;
+        }
+
+        final double[] point = {location.getLatitude(), location.getLongitude()};
+
+        lock.writeLock().lock();
+        try {
+            removePoint(announcement.getId());
+            points.put(announcement.getId(), point);
+            cells.computeIfAbsent(cellKey(row(point[0]), column(point[1])), key -> new HashSet<>())
+                    .add(announcement.getId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removePoint(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            cells.clear();
+            points.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds ids of all indexed announcements located inside of the provided rectangle area.
+     * If bottom left longitude is greater than top right longitude, area crosses the antimeridian,
+     * so it is searched as two areas, one on each side of it.
+     *
+     * @param x1    Top right corner longitude
+     * @param y1    Top right corner latitude
+     * @param x2    Bottom left corner longitude
+     * @param y2    Bottom left corner latitude
+     * @param limit maximal number of ids caller is willing to accept
+     * @return ids sorted ascending, or null if there are more than <code>limit</code> announcements in the area
+     */
+    public List<Long> findInArea(Double x1, Double y1, Double x2, Double y2, int limit) {
+        final List<Long> result = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            if (x2 > x1) {
+                findInArea(MAX_LONGITUDE, y1, x2, y2, result);
+                findInArea(x1, y1, -MAX_LONGITUDE, y2, result);
+            } else {
+                findInArea(x1, y1, x2, y2, result);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (result.size() > limit)
+            return null;
+
+        Collections.sort(result);
+        return result;
+    }
+
+    private void findInArea(double x1, double y1, double x2, double y2, List<Long> result) {
+        final long rowFrom = row(y2);
+        final long rowTo = row(y1);
+        final long columnFrom = column(x2);
+        final long columnTo = column(x1);
+
+        // for huge areas it is cheaper to check every point than to visit every cell
+        if ((rowTo - rowFrom + 1) * (columnTo - columnFrom + 1) > points.size()) {
+            for (Map.Entry<Long, double[]> entry : points.entrySet()) {
+                if (contains(entry.getValue(), x1, y1, x2, y2))
+                    result.add(entry.getKey());
+            }
+        } else {
+            for (long row = rowFrom; row <= rowTo; row++) {
+                for (long column = columnFrom; column <= columnTo; column++) {
+                    final Set<Long> cell = cells.get(cellKey(row, column));
+                    if (cell == null)
+                        continue;
+                    for (Long id : cell) {
+                        if (contains(points.get(id), x1, y1, x2, y2))
+                            result.add(id);
+                    }
+                }
+            }
+        }
+    }
+
+    private void removePoint(Long id) {
+        final double[] previous = points.remove(id);
+        if (previous == null)
+            return;
+
+        final long key = cellKey(row(previous[0]), column(previous[1]));
+        final Set<Long> cell = cells.get(key);
+        if (cell != null) {
+            cell.remove(id);
+            if (cell.isEmpty())
+                cells.remove(key);
+        }
+    }
+
+    private boolean contains(double[] point, double x1, double y1, double x2, double y2) {
+        return y2 <= point[0] && point[0] <= y1 && x2 <= point[1] && point[1] <= x1;
+    }
+
+    private long row(double latitude) {
+        return (long) Math.floor(latitude / cellSize);
+    }
+
+    private long column(double longitude) {
+        return (long) Math.floor(longitude / cellSize);
+    }
+
+    private long cellKey(long row, long column) {
+        return (row << 32) ^ (column & 0xffffffffL);
+    }
+}
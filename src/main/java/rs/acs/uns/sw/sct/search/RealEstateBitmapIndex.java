@@ -0,0 +1,171 @@
+package rs.acs.uns.sw.sct.search;
+
+import org.springframework.stereotype.Component;
+import rs.acs.uns.sw.sct.announcements.Announcement;
+import rs.acs.uns.sw.sct.realestates.RealEstate;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bitmap index over low-cardinality fields of active announcements: real estate amenities,
+ * heating type and announcement type.
+ * <p>
+ * Every amenity and every distinct value has its own bitmap of announcement ids, so
+ * combination of checkbox filters is answered with a few bitwise operations.
+ */
+@Component
+public class RealEstateBitmapIndex implements AnnouncementIndex {
+
+    private static final String INTERCOM = "intercom";
+    private static final String INTERNET = "internet";
+    private static final String PHONE = "phone";
+    private static final String AIR_CONDITIONER = "airConditioner";
+    private static final String VIDEO_SURVEILLANCE = "videoSurveillance";
+    private static final String CABLE_TV = "cableTV";
+
+    private final IdBitmap all = new IdBitmap();
+    private final Map<String, IdBitmap> amenities = new HashMap<>();
+    private final Map<String, IdBitmap> types = new HashMap<>();
+    private final Map<String, IdBitmap> heatingTypes = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Override
+    public void index(Announcement announcement) {
+        final RealEstate realEstate = announcement.getRealEstate();
+
+        if (!AnnouncementIndex.isActive(announcement)) {
+            remove(announcement.getId());
+            return;
+        }
+
+        // announcement without real estate still has a type, and has no amenities nor heating type
+        final Map<String, Boolean> flags = new HashMap<>();
+        if (realEstate != null) {
+            flags.put(INTERCOM, realEstate.getIntercom());
+            flags.put(INTERNET, realEstate.getInternet());
+            flags.put(PHONE, realEstate.getPhone());
+            flags.put(AIR_CONDITIONER, realEstate.getAirConditioner());
+            flags.put(VIDEO_SURVEILLANCE, realEstate.getVideoSurveillance());
+            flags.put(CABLE_TV, realEstate.getCableTV());
+        }
+
+        final long id = announcement.getId();
+
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+            all.add(id);
+            for (Map.Entry<String, Boolean> flag : flags.entrySet()) {
+                if (Boolean.TRUE.equals(flag.getValue()))
+                    amenities.computeIfAbsent(flag.getKey(), key -> new IdBitmap()).add(id);
+            }
+            if (announcement.getType() != null)
+                types.computeIfAbsent(announcement.getType().toLowerCase(Locale.ROOT), key -> new IdBitmap()).add(id);
+            if (realEstate != null && realEstate.getHeatingType() != null)
+                heatingTypes.computeIfAbsent(realEstate.getHeatingType().toLowerCase(Locale.ROOT), key -> new IdBitmap()).add(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            all.clear();
+            amenities.clear();
+            types.clear();
+            heatingTypes.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds ids of announcements which satisfy amenity, type and heating type criteria from the wrapper.
+     * <p>
+     * Type and heating type match every indexed value which contains the requested one, ignoring case,
+     * same as the database search.
+     *
+     * @param searchWrapper wrapper of all query params
+     * @param limit         maximal number of ids caller is willing to accept
+     * @return ids sorted ascending, or null if wrapper contains none of the indexed criteria
+     * or there are more than <code>limit</code> matches
+     */
+    public List<Long> findCandidates(AnnouncementSearchWrapper searchWrapper, int limit) {
+        final Map<String, Boolean> flags = new HashMap<>();
+        flags.put(INTERCOM, searchWrapper.getIntercom());
+        flags.put(INTERNET, searchWrapper.getInternet());
+        flags.put(PHONE, searchWrapper.getPhone());
+        flags.put(AIR_CONDITIONER, searchWrapper.getAirConditioner());
+        flags.put(VIDEO_SURVEILLANCE, searchWrapper.getVideoSurveillance());
+        flags.put(CABLE_TV, searchWrapper.getCableTV());
+        flags.values().removeIf(Objects::isNull);
+
+        if (flags.isEmpty() && searchWrapper.getType() == null && searchWrapper.getHeatingType() == null)
+            return null;
+
+        final IdBitmap result;
+
+        lock.readLock().lock();
+        try {
+            IdBitmap matches = all;
+            for (Map.Entry<String, Boolean> flag : flags.entrySet()) {
+                final IdBitmap withAmenity = amenities.getOrDefault(flag.getKey(), new IdBitmap());
+                matches = flag.getValue() ? matches.and(withAmenity) : matches.andNot(withAmenity);
+            }
+            if (searchWrapper.getType() != null)
+                matches = matches.and(matchingValues(types, searchWrapper.getType()));
+            if (searchWrapper.getHeatingType() != null)
+                matches = matches.and(matchingValues(heatingTypes, searchWrapper.getHeatingType()));
+            result = matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (result.cardinality() > limit)
+            return null;
+
+        return result.toList();
+    }
+
+    private static IdBitmap matchingValues(Map<String, IdBitmap> values, String query) {
+        final String lowerCaseQuery = query.toLowerCase(Locale.ROOT);
+
+        IdBitmap result = new IdBitmap();
+        for (Map.Entry<String, IdBitmap> entry : values.entrySet()) {
+            if (entry.getKey().contains(lowerCaseQuery))
+                result = result.or(entry.getValue());
+        }
+        return result;
+    }
+
+    private void removeDocument(long id) {
+        all.remove(id);
+        removeFrom(amenities, id);
+        removeFrom(types, id);
+        removeFrom(heatingTypes, id);
+    }
+
+    private static void removeFrom(Map<String, IdBitmap> bitmaps, long id) {
+        final Iterator<IdBitmap> iterator = bitmaps.values().iterator();
+        while (iterator.hasNext()) {
+            final IdBitmap bitmap = iterator.next();
+            bitmap.remove(id);
+            if (bitmap.isEmpty())
+                iterator.remove();
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package rs.acs.uns.sw.sct.search;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import rs.acs.uns.sw.sct.realestates.Location;
+import rs.acs.uns.sw.sct.realestates.RealEstate;
+import rs.acs.uns.sw.sct.realestates.RealEstateRepository;
+import rs.acs.uns.sw.sct.realestates.RealEstateSimilarDTO;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index of active real estates used for finding similar real estates.
+ * <p>
+ * Real estates are grouped by normalized city, and within the city by normalized street of their location,
+ * and areas of every street are kept sorted, so similar area becomes a range lookup in the streets
+ * which match. City is looked up exactly, so only streets of one city are scanned, and cities which merely contain
+ * the searched one are not matched. Every candidate is then checked with {@link RealEstate#similar(RealEstateSimilarDTO)}
+ * on its indexed copy. City and street are trimmed and lower-cased the same way when indexed and when searched.
+ * Like other indexes, it is rebuilt and resynchronized from the primary database.
+ */
+@Component
+public class RealEstateSimilarityIndex {
+
+    // area range which contains every area similar to the searched one, slightly widened for rounding errors
+    private static final double LOWER_AREA_FACTOR = 0.95 * (1 - 1e-9);
+    private static final double UPPER_AREA_FACTOR = 1 / 0.95 * (1 + 1e-9);
+
+    private final Map<String, Map<String, TreeMap<Double, Set<Long>>>> cities = new HashMap<>();
+    private final Map<Long, RealEstate> realEstates = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Autowired
+    private RealEstateRepository realEstateRepository;
+
+    @Autowired
+    private IndexLoader indexLoader;
+
+    /**
+     * Adds real estate to the index, or replaces previously indexed state of the same real estate.
+     *
+     * @param realEstate real estate to be indexed
+     */
+    public void index(RealEstate realEstate) {
+        if (Boolean.TRUE.equals(realEstate.isDeleted()) || realEstate.getLocation() == null || realEstate.getArea() == null) {
+            remove(realEstate.getId());
+            return;
+        }
+
+        // detached copy, so later changes of the entity don't affect the index before they are written
+        final Location location = realEstate.getLocation();
+        final RealEstate copy = new RealEstate()
+                .id(realEstate.getId())
+                .area(realEstate.getArea())
+                .location(new Location()
+                        .country(location.getCountry())
+                        .city(location.getCity())
+                        .cityRegion(location.getCityRegion())
+                        .street(location.getStreet())
+                        .streetNumber(location.getStreetNumber()));
+
+        lock.writeLock().lock();
+        try {
+            removeRealEstate(copy.getId());
+            realEstates.put(copy.getId(), copy);
+            cities.computeIfAbsent(normalize(copy.getLocation().getCity()), key -> new HashMap<>())
+                    .computeIfAbsent(normalize(copy.getLocation().getStreet()), key -> new TreeMap<>())
+                    .computeIfAbsent(copy.getArea(), area -> new HashSet<>())
+                    .add(copy.getId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes real estate from the index.
+     *
+     * @param id the id of the real estate
+     */
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeRealEstate(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds ids of active real estates similar to the provided one.
+     *
+     * @param similar location and area which real estates are compared to
+     * @return ids of similar real estates, sorted ascending
+     */
+    public List<Long> findSimilar(RealEstateSimilarDTO similar) {
+        if (similar.getLocation() == null || similar.getArea() == null)
+            return Collections.emptyList();
+
+        final String city = similar.getLocation().getCity();
+        final String street = similar.getLocation().getStreet() == null ? null : normalize(similar.getLocation().getStreet());
+        final double area = similar.getArea();
+        final List<Long> ids = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            final Collection<Map<String, TreeMap<Double, Set<Long>>>> candidateCities = city == null ? cities.values()
+                    : Collections.singleton(cities.getOrDefault(normalize(city), Collections.emptyMap()));
+
+            for (Map<String, TreeMap<Double, Set<Long>>> streets : candidateCities) {
+                for (Map.Entry<String, TreeMap<Double, Set<Long>>> entry : streets.entrySet()) {
+                    // location matches if its street contains the searched one
+                    if (street != null && !entry.getKey().contains(street))
+                        continue;
+
+                    for (Set<Long> sameArea : entry.getValue().subMap(LOWER_AREA_FACTOR * area, true, UPPER_AREA_FACTOR * area, true).values()) {
+                        for (Long id : sameArea) {
+                            if (realEstates.get(id).similar(similar))
+                                ids.add(id);
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Collections.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Rebuilds index from the database, once application context is started.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            cities.clear();
+            realEstates.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        indexLoader.loadAll(realEstateRepository, this::index);
+    }
+
+    /**
+     * Re-reads changed real estates, and real estates of changed locations, from the database
+     * and updates their indexed state.
+     *
+     * @param realEstateIds ids of the changed real estates
+     * @param locationIds   ids of the changed locations
+     */
+    @Async
+    @Transactional
+    public void resync(Collection<Long> realEstateIds, Collection<Long> locationIds) {
+        for (Long id : realEstateIds) {
+            final RealEstate realEstate = realEstateRepository.findOne(id);
+            if (realEstate == null)
+                remove(id);
+            else
+                index(realEstate);
+        }
+        if (!locationIds.isEmpty())
+            realEstateRepository.findByLocation_IdIn(locationIds).forEach(this::index);
+    }
+
+    private void removeRealEstate(Long id) {
+        final RealEstate previous = realEstates.remove(id);
+        if (previous == null)
+            return;
+
+        final String city = normalize(previous.getLocation().getCity());
+        final String street = normalize(previous.getLocation().getStreet());
+        final Map<String, TreeMap<Double, Set<Long>>> streets = cities.get(city);
+        final TreeMap<Double, Set<Long>> areas = streets.get(street);
+        final Set<Long> sameArea = areas.get(previous.getArea());
+        sameArea.remove(id);
+        if (sameArea.isEmpty())
+            areas.remove(previous.getArea());
+        if (areas.isEmpty())
+            streets.remove(street);
+        if (streets.isEmpty())
+            cities.remove(city);
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+}
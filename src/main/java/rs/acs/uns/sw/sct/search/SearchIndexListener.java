@@ -0,0 +1,214 @@
+package rs.acs.uns.sw.sct.search;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import rs.acs.uns.sw.sct.announcements.Announcement;
+import rs.acs.uns.sw.sct.companies.Company;
+import rs.acs.uns.sw.sct.realestates.Location;
+import rs.acs.uns.sw.sct.realestates.RealEstate;
+import rs.acs.uns.sw.sct.users.User;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.*;
+
+/**
+ * Hibernate event listener which propagates every announcement and user write to the in-memory indexes.
+ * <p>
+ * Indexes are updated as soon as changes are flushed, so queries inside the same transaction
+ * can already see them. If transaction is rolled back afterwards, touched entities
+ * are re-read from the database.
+ * <p>
+ * Real estate, location and user changes affect already indexed announcements, so their announcements
+ * are re-read from the database once transaction completes. Real estates themselves are indexed
+ * for similarity search right away, and re-read together with real estates of changed locations.
+ * <p>
+ * Cached search results which could contain changed announcement are invalidated as well. Cached results show
+ * authors and their companies too, so all of them are invalidated when a shown property of a user changes,
+ * or when a company is changed.
+ */
+@Component
+public class SearchIndexListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    // user properties which are not shown in cached search results
+    private static final Set<String> HIDDEN_USER_PROPERTIES =
+            new HashSet<>(Arrays.asList("password", "verified", "deleted"));
+
+    @Autowired
+    private transient EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private transient AnnouncementIndexer announcementIndexer;
+
+    @Autowired
+    private transient UserSearchIndex userSearchIndex;
+
+    @Autowired
+    private transient SearchResultCache searchResultCache;
+
+    @Autowired
+    private transient RealEstateSimilarityIndex realEstateSimilarityIndex;
+
+    /**
+     * Registers this listener to the Hibernate event listener registry.
+     */
+    @PostConstruct
+    public void registerListeners() {
+        final SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        final EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        onWrite(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        onWrite(event.getEntity());
+
+        final Object entity = event.getEntity();
+        if (entity instanceof Announcement && event.getOldState() != null) {
+            final List<String> properties = Arrays.asList(event.getPersister().getPropertyNames());
+            final Double oldPrice = (Double) event.getOldState()[properties.indexOf("price")];
+            final RealEstate oldRealEstate = (RealEstate) event.getOldState()[properties.indexOf("realEstate")];
+            searchResultCache.invalidate(cityOf(oldRealEstate), oldPrice);
+        } else if (entity instanceof User) {
+            if (changesShownProperty(event, HIDDEN_USER_PROPERTIES))
+                searchResultCache.invalidateAll();
+        } else if (entity instanceof RealEstate || entity instanceof Location || entity instanceof Company) {
+            searchResultCache.invalidateAll();
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        final Long id = (Long) event.getId();
+
+        if (event.getEntity() instanceof Announcement) {
+            final Announcement announcement = (Announcement) event.getEntity();
+            announcementIndexer.remove(id);
+            searchResultCache.invalidate(cityOf(announcement.getRealEstate()), announcement.getPrice());
+            trackForRollback().announcements.add(id);
+        } else if (event.getEntity() instanceof User) {
+            userSearchIndex.remove(id);
+            searchResultCache.invalidateAll();
+            trackForRollback().users.add(id);
+        } else if (event.getEntity() instanceof RealEstate) {
+            realEstateSimilarityIndex.remove(id);
+            searchResultCache.invalidateAll();
+            trackForRollback().realEstates.add(id);
+        } else if (event.getEntity() instanceof Location || event.getEntity() instanceof Company) {
+            searchResultCache.invalidateAll();
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void onWrite(Object entity) {
+        if (entity instanceof Announcement) {
+            final Announcement announcement = (Announcement) entity;
+            announcementIndexer.index(announcement);
+            searchResultCache.invalidate(cityOf(announcement.getRealEstate()), announcement.getPrice());
+            trackForRollback().announcements.add(announcement.getId());
+        } else if (entity instanceof User) {
+            final User user = (User) entity;
+            userSearchIndex.index(user);
+            trackForRollback().users.add(user.getId());
+        } else if (entity instanceof RealEstate) {
+            final RealEstate realEstate = (RealEstate) entity;
+            realEstateSimilarityIndex.index(realEstate);
+            if (TransactionSynchronizationManager.isSynchronizationActive())
+                trackForRollback().realEstates.add(realEstate.getId());
+            else
+                announcementIndexer.resyncRealEstates(Collections.singleton(realEstate.getId()), Collections.emptySet());
+        } else if (entity instanceof Location) {
+            final Long id = ((Location) entity).getId();
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                trackForRollback().locations.add(id);
+            } else {
+                announcementIndexer.resyncRealEstates(Collections.emptySet(), Collections.singleton(id));
+                realEstateSimilarityIndex.resync(Collections.emptySet(), Collections.singleton(id));
+            }
+        }
+    }
+
+    private static boolean changesShownProperty(PostUpdateEvent event, Set<String> hiddenProperties) {
+        // dirty properties are unknown if entity was updated without being compared to its loaded state
+        if (event.getDirtyProperties() == null)
+            return true;
+
+        final String[] properties = event.getPersister().getPropertyNames();
+        for (int index : event.getDirtyProperties()) {
+            if (!hiddenProperties.contains(properties[index]))
+                return true;
+        }
+        return false;
+    }
+
+    private static String cityOf(RealEstate realEstate) {
+        return realEstate != null && realEstate.getLocation() != null ? realEstate.getLocation().getCity() : null;
+    }
+
+    /**
+     * Returns entities changed in current transaction, so they can be
+     * synchronized with the database once transaction completes.
+     *
+     * @return ids of changed entities, which are discarded if there is no active transaction
+     */
+    private TouchedEntities trackForRollback() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive())
+            return new TouchedEntities();
+
+        TouchedEntities touched = (TouchedEntities) TransactionSynchronizationManager.getResource(this);
+        if (touched == null) {
+            final TouchedEntities entities = new TouchedEntities();
+            TransactionSynchronizationManager.bindResource(this, entities);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(SearchIndexListener.this);
+                    if (!entities.realEstates.isEmpty() || !entities.locations.isEmpty()) {
+                        announcementIndexer.resyncRealEstates(entities.realEstates, entities.locations);
+                        realEstateSimilarityIndex.resync(entities.realEstates, entities.locations);
+                    }
+                    if (!entities.users.isEmpty())
+                        announcementIndexer.resyncAuthors(entities.users);
+                    if (status != STATUS_COMMITTED) {
+                        if (!entities.announcements.isEmpty())
+                            announcementIndexer.resync(entities.announcements);
+                        if (!entities.users.isEmpty())
+                            userSearchIndex.resync(entities.users);
+                    }
+                }
+            });
+            touched = entities;
+        }
+        return touched;
+    }
+
+    /**
+     * Ids of the entities changed in one transaction.
+     */
+    private static class TouchedEntities {
+        private final Set<Long> announcements = new HashSet<>();
+        private final Set<Long> users = new HashSet<>();
+        private final Set<Long> realEstates = new HashSet<>();
+        private final Set<Long> locations = new HashSet<>();
+    }
+}
@@ -0,0 +1,228 @@
+package rs.acs.uns.sw.sct.search;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import rs.acs.uns.sw.sct.announcements.AnnouncementDTO;
+import rs.acs.uns.sw.sct.metrics.CacheStatisticsDTO;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of announcement search results, keyed by canonical form of search params and page.
+ * <p>
+ * Entries expire after configured time, and least recently used entries are evicted once cache is full.
+ * When announcement is saved or deleted, only entries whose city and price criteria match
+ * the announcement are invalidated. Entries show authors and their companies as well, so changes
+ * of shown user properties and of companies invalidate all entries.
+ * Cache is only used in read-only transactions, so transactions with pending changes
+ * always read from the database.
+ * <p>
+ * Only DTO pages are cached. Entities belong to the persistence context which loaded them,
+ * so they must not be handed over to other sessions.
+ */
+@Component
+public class SearchResultCache {
+
+    @Value("${sct.cache.search.ttl-seconds}")
+    private Long ttlSeconds;
+
+    @Value("${sct.cache.search.max-size}")
+    private Integer maxSize;
+
+    private final LinkedHashMap<String, CachedPage> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    /**
+     * Returns cached search result, or loads and caches it if it is not present.
+     *
+     * @param searchWrapper wrapper of all query params
+     * @param pageable      the pagination information
+     * @param loader        loads result from the database
+     * @return search result
+     */
+    public Page<AnnouncementDTO> get(AnnouncementSearchWrapper searchWrapper, Pageable pageable,
+                                     Supplier<Page<AnnouncementDTO>> loader) {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly())
+            return loader.get();
+
+        final String key = key(searchWrapper, pageable);
+        final long loadedGeneration;
+
+        synchronized (this) {
+            final CachedPage cached = entries.get(key);
+            if (cached != null && cached.expiresAt > System.currentTimeMillis()) {
+                hits++;
+                return cached.page;
+            }
+            if (cached != null) {
+                entries.remove(key);
+                evictions++;
+            }
+            misses++;
+            loadedGeneration = generation;
+        }
+
+        final Page<AnnouncementDTO> page = loader.get();
+
+        synchronized (this) {
+            // result could already be stale if announcements were changed while it was loaded
+            if (loadedGeneration == generation) {
+                entries.put(key, new CachedPage(searchWrapper, page, System.currentTimeMillis() + ttlSeconds * 1000));
+                final Iterator<CachedPage> eldest = entries.values().iterator();
+                while (entries.size() > maxSize) {
+                    eldest.next();
+                    eldest.remove();
+                    evictions++;
+                }
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Invalidates all results which could contain announcement with provided city and price.
+     * <p>
+     * Invalidation is repeated once current transaction completes, so results loaded
+     * before the changes were committed or rolled back are not kept either.
+     *
+     * @param city  city of the announcement real estate, null if unknown
+     * @param price price of the announcement, null if unknown
+     */
+    public void invalidate(String city, Double price) {
+        evict(city, price);
+        repeatAfterCompletion(() -> evict(city, price));
+    }
+
+    /**
+     * Invalidates all results.
+     */
+    public void invalidateAll() {
+        evictAll();
+        repeatAfterCompletion(this::evictAll);
+    }
+
+    /**
+     * Returns usage statistics of the cache.
+     *
+     * @return cache statistics
+     */
+    public synchronized CacheStatisticsDTO getStatistics() {
+        final CacheStatisticsDTO statistics = new CacheStatisticsDTO();
+        statistics.setHits(hits);
+        statistics.setMisses(misses);
+        statistics.setEvictions(evictions);
+        statistics.setInvalidations(invalidations);
+        statistics.setSize(entries.size());
+        return statistics;
+    }
+
+    /**
+     * Creates canonical key of search params and page. Params which are matched ignoring case
+     * are lower-cased, and keywords are sorted, so equivalent searches share the same key.
+     *
+     * @param searchWrapper wrapper of all query params
+     * @param pageable      the pagination information
+     * @return cache key
+     */
+    static String key(AnnouncementSearchWrapper searchWrapper, Pageable pageable) {
+        final Map<String, Object> params = new TreeMap<>();
+        params.put("startPrice", searchWrapper.getStartPrice());
+        params.put("endPrice", searchWrapper.getEndPrice());
+        params.put("phoneNumber", lowerCase(searchWrapper.getPhoneNumber()));
+        params.put("type", lowerCase(searchWrapper.getType()));
+        params.put("authorName", lowerCase(searchWrapper.getAuthorName()));
+        params.put("authorSurname", lowerCase(searchWrapper.getAuthorSurname()));
+        params.put("startArea", searchWrapper.getStartArea());
+        params.put("endArea", searchWrapper.getEndArea());
+        params.put("heatingType", lowerCase(searchWrapper.getHeatingType()));
+        params.put("name", lowerCase(searchWrapper.getName()));
+        if (searchWrapper.getKeywords() != null)
+            params.put("keywords", new TreeSet<>(FullTextIndex.tokenize(searchWrapper.getKeywords())));
+        params.put("country", lowerCase(searchWrapper.getCountry()));
+        params.put("cityRegion", lowerCase(searchWrapper.getCityRegion()));
+        params.put("city", lowerCase(searchWrapper.getCity()));
+        params.put("street", lowerCase(searchWrapper.getStreet()));
+        params.put("streetNumber", lowerCase(searchWrapper.getStreetNumber()));
+        params.put("intercom", searchWrapper.getIntercom());
+        params.put("internet", searchWrapper.getInternet());
+        params.put("phone", searchWrapper.getPhone());
+        params.put("airConditioner", searchWrapper.getAirConditioner());
+        params.put("videoSurveillance", searchWrapper.getVideoSurveillance());
+        params.put("cableTV", searchWrapper.getCableTV());
+        params.values().removeIf(Objects::isNull);
+
+        final String page = pageable == null ? "unpaged"
+                : pageable.getPageNumber() + "," + pageable.getPageSize() + "," + pageable.getSort();
+        return params + "|" + page;
+    }
+
+    private synchronized void evict(String city, Double price) {
+        final Iterator<CachedPage> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().mayContain(city, price)) {
+                iterator.remove();
+                invalidations++;
+            }
+        }
+        generation++;
+    }
+
+    private synchronized void evictAll() {
+        invalidations += entries.size();
+        entries.clear();
+        generation++;
+    }
+
+    private static void repeatAfterCompletion(Runnable invalidation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive())
+            return;
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                invalidation.run();
+            }
+        });
+    }
+
+    private static String lowerCase(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Cached search result, together with criteria needed for invalidation.
+     */
+    private static class CachedPage {
+        private final String city;
+        private final Double startPrice;
+        private final Double endPrice;
+        private final Page<AnnouncementDTO> page;
+        private final long expiresAt;
+
+        private CachedPage(AnnouncementSearchWrapper searchWrapper, Page<AnnouncementDTO> page, long expiresAt) {
+            this.city = lowerCase(searchWrapper.getCity());
+            this.startPrice = searchWrapper.getStartPrice();
+            this.endPrice = searchWrapper.getEndPrice();
+            this.page = page;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean mayContain(String announcementCity, Double price) {
+            if (city != null && announcementCity != null && !announcementCity.toLowerCase(Locale.ROOT).contains(city))
+                return false;
+            if (price != null && startPrice != null && price < startPrice)
+                return false;
+            return price == null || endPrice == null || price <= endPrice;
+        }
+    }
+}
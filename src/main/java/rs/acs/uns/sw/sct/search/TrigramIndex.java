@@ -0,0 +1,100 @@
+package rs.acs.uns.sw.sct.search;
+
+import java.util.*;
+
+/**
+ * Trigram index over one text attribute, used for unanchored case-insensitive substring search.
+ * <p>
+ * Every value is split into all overlapping three character sequences. Any value which contains
+ * the query must contain all of the query trigrams, so only ids from the shortest trigram posting
+ * set have to be checked.
+ * <p>
+ * This class is not thread safe, synchronization is left to the owner.
+ */
+class TrigramIndex {
+
+    static final int GRAM_LENGTH = 3;
+
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private final Map<Long, String> values = new HashMap<>();
+
+    /**
+     * Indexes value of the attribute for provided id, replacing the previous one.
+     *
+     * @param id    the id of the entity
+     * @param value attribute value, may be null
+     */
+    void put(Long id, String value) {
+        remove(id);
+        if (value == null)
+            return;
+
+        final String normalized = value.toLowerCase(Locale.ROOT);
+        values.put(id, normalized);
+        for (String gram : trigrams(normalized))
+            postings.computeIfAbsent(gram, key -> new HashSet<>()).add(id);
+    }
+
+    /**
+     * Removes indexed value for provided id.
+     *
+     * @param id the id of the entity
+     */
+    void remove(Long id) {
+        final String previous = values.remove(id);
+        if (previous == null)
+            return;
+
+        for (String gram : trigrams(previous)) {
+            final Set<Long> ids = postings.get(gram);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty())
+                    postings.remove(gram);
+            }
+        }
+    }
+
+    /**
+     * Removes all indexed values.
+     */
+    void clear() {
+        postings.clear();
+        values.clear();
+    }
+
+    /**
+     * Finds ids of all entities whose value contains the query, ignoring case.
+     *
+     * @param query searched substring
+     * @return matching ids, or null if query is too short to be answered by the index
+     */
+    Set<Long> find(String query) {
+        final String normalized = query.toLowerCase(Locale.ROOT);
+        if (normalized.length() < GRAM_LENGTH)
+            return null;
+
+        Set<Long> shortest = null;
+        for (String gram : trigrams(normalized)) {
+            final Set<Long> ids = postings.get(gram);
+            if (ids == null)
+                return new HashSet<>();
+            if (shortest == null || ids.size() < shortest.size())
+                shortest = ids;
+        }
+
+        final Set<Long> result = new HashSet<>();
+        for (Long id : shortest) {
+            if (values.get(id).contains(normalized))
+                result.add(id);
+        }
+        return result;
+    }
+
+    private static Set<String> trigrams(String value) {
+        final Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= value.length(); i++)
+            grams.add(value.substring(i, i + GRAM_LENGTH));
+        return grams;
+    }
+}
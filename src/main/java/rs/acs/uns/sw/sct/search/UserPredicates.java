@@ -5,6 +5,8 @@ import com.querydsl.core.types.Predicate;
 import rs.acs.uns.sw.sct.users.QUser;
 import rs.acs.uns.sw.sct.util.Constants;
 
+import java.util.Collection;
+
 /**
  * Allows functionality of searching for users based on provided predicates.
  */
@@ -73,4 +75,15 @@ public final class UserPredicates {
 
         return where;
     }
+
+    /**
+     * Creates Predicate which restricts results to users with provided ids.
+     * Used for narrowing down query to candidates found in the user search index.
+     *
+     * @param ids ids of candidate users
+     * @return Predicate object used for searching for user
+     */
+    public static Predicate idIn(Collection<Long> ids) {
+        return QUser.user.id.in(ids);
+    }
 }
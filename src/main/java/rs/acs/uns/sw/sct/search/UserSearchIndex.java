@@ -0,0 +1,153 @@
+package rs.acs.uns.sw.sct.search;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import rs.acs.uns.sw.sct.users.User;
+import rs.acs.uns.sw.sct.users.UserRepository;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Trigram indexes over searchable attributes of active users.
+ * <p>
+ * Used for finding candidate user ids for substring search over users,
+ * and over authors of announcements. Users are read from the primary database,
+ * in read-write transactions, so the index never picks up state of a lagging replica.
+ */
+@Component
+public class UserSearchIndex {
+
+    private final TrigramIndex usernames = new TrigramIndex();
+    private final TrigramIndex emails = new TrigramIndex();
+    private final TrigramIndex firstNames = new TrigramIndex();
+    private final TrigramIndex lastNames = new TrigramIndex();
+    private final TrigramIndex phoneNumbers = new TrigramIndex();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private IndexLoader indexLoader;
+
+    /**
+     * Adds user to the index, or replaces previously indexed state of the same user.
+     *
+     * @param user user to be indexed
+     */
+    public void index(User user) {
+        if (Boolean.TRUE.equals(user.isDeleted())) {
+            remove(user.getId());
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            usernames.put(user.getId(), user.getUsername());
+            emails.put(user.getId(), user.getEmail());
+            firstNames.put(user.getId(), user.getFirstName());
+            lastNames.put(user.getId(), user.getLastName());
+            phoneNumbers.put(user.getId(), user.getPhoneNumber());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes user from the index.
+     *
+     * @param id the id of the user
+     */
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            usernames.remove(id);
+            emails.remove(id);
+            firstNames.remove(id);
+            lastNames.remove(id);
+            phoneNumbers.remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds ids of users whose attributes contain all provided values, ignoring case.
+     * Null values, and values shorter than three characters, are not taken into account.
+     *
+     * @param username    part of the username
+     * @param email       part of the email
+     * @param firstName   part of the first name
+     * @param lastName    part of the last name
+     * @param phoneNumber part of the phone number
+     * @param limit       maximal number of ids caller is willing to accept
+     * @return candidate ids, or null if index cannot narrow down the search
+     */
+    public Set<Long> findCandidates(String username, String email, String firstName,
+                                    String lastName, String phoneNumber, int limit) {
+        Set<Long> candidates = null;
+
+        lock.readLock().lock();
+        try {
+            candidates = intersect(candidates, usernames, username);
+            candidates = intersect(candidates, emails, email);
+            candidates = intersect(candidates, firstNames, firstName);
+            candidates = intersect(candidates, lastNames, lastName);
+            candidates = intersect(candidates, phoneNumbers, phoneNumber);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (candidates != null && candidates.size() > limit)
+            return null;
+        return candidates;
+    }
+
+    /**
+     * Rebuilds index from the database, once application context is started.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            usernames.clear();
+            emails.clear();
+            firstNames.clear();
+            lastNames.clear();
+            phoneNumbers.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        indexLoader.loadAll(userRepository, this::index);
+    }
+
+    /**
+     * Re-reads users from the database and updates their indexed state.
+     * Used when transaction which already changed the index is rolled back.
+     *
+     * @param ids ids of the users to be synchronized
+     */
+    public void resync(Collection<Long> ids) {
+        indexLoader.reload(userRepository, ids, this::index, this::remove);
+    }
+
+    private Set<Long> intersect(Set<Long> candidates, TrigramIndex index, String query) {
+        if (query == null)
+            return candidates;
+
+        final Set<Long> found = index.find(query);
+        if (found == null)
+            return candidates;
+        if (candidates == null)
+            return found;
+
+        candidates.retainAll(found);
+        return candidates;
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import rs.acs.uns.sw.sct.users.SecurityUser;
 
+import javax.annotation.PostConstruct;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -30,6 +31,19 @@ public class TokenUtils {
     @Value("${sct.token.expiration}")
     private Long expiration;
 
+    @Value("${sct.token.cache.max-size}")
+    private Integer cacheMaxSize;
+
+    private VerifiedClaimsCache verifiedClaims;
+
+    /**
+     * Creates cache of verified claims with configured size.
+     */
+    @PostConstruct
+    public void init() {
+        verifiedClaims = new VerifiedClaimsCache(cacheMaxSize);
+    }
+
     /**
      * Extracts username from token.
      *
@@ -37,14 +51,8 @@ public class TokenUtils {
      * @return username
      */
     public String getUsernameFromToken(String token) {
-        String username;
-        try {
-            final Claims claims = this.getClaimsFromToken(token);
-            username = claims.getSubject();
-        } catch (Exception e) {
-            username = null;
-        }
-        return username;
+        final Claims claims = this.getVerifiedClaims(token);
+        return claims == null ? null : claims.getSubject();
     }
 
     /**
@@ -54,18 +62,35 @@ public class TokenUtils {
      * @return Date of expiration
      */
     public Date getExpirationDateFromToken(String token) {
-        Date expirationDate;
-        try {
-            final Claims claims = this.getClaimsFromToken(token);
-            expirationDate = claims.getExpiration();
-        } catch (Exception e) {
-            expirationDate = null;
+        final Claims claims = this.getVerifiedClaims(token);
+        return claims == null ? null : claims.getExpiration();
+    }
+
+    /**
+     * Extracts Claims from token whose signature is valid and which is not expired.
+     * <p>
+     * Token is parsed and its signature is verified only the first time, and its claims are then
+     * served from the cache until the token expires.
+     *
+     * @param token authentication token
+     * @return Claims, or null if token is not valid or it is expired
+     */
+    public Claims getVerifiedClaims(String token) {
+        if (token == null)
+            return null;
+
+        Claims claims = verifiedClaims.get(token);
+        if (claims == null) {
+            claims = this.getClaimsFromToken(token);
+            if (claims == null || claims.getExpiration() == null)
+                return null;
+            verifiedClaims.put(token, claims);
         }
-        return expirationDate;
+        return this.isExpired(claims) ? null : claims;
     }
 
     /**
-     * Extracts Claims from token.
+     * Parses token and verifies its signature and expiration date.
      *
      * @param token authentication token
      * @return Claims
@@ -91,13 +116,8 @@ public class TokenUtils {
         return new Date(System.currentTimeMillis() + this.expiration);
     }
 
-    private Boolean isTokenExpired(String token) {
-        try {
-            final Date expirationDate = this.getExpirationDateFromToken(token);
-            return expirationDate.before(this.generateCurrentDate());
-        } catch (Exception e) {
-            return true;
-        }
+    private boolean isExpired(Claims claims) {
+        return claims.getExpiration() == null || claims.getExpiration().before(this.generateCurrentDate());
     }
 
     /**
@@ -133,7 +153,8 @@ public class TokenUtils {
     public String refreshToken(String token) {
         String refreshedToken;
         try {
-            final Claims claims = this.getClaimsFromToken(token);
+            // cached claims are shared, so they are copied before they are changed
+            final Map<String, Object> claims = new HashMap<>(this.getVerifiedClaims(token));
             claims.put(CREATED, this.generateCurrentDate());
             refreshedToken = this.generateToken(claims);
         } catch (Exception e) {
@@ -150,17 +171,18 @@ public class TokenUtils {
      * @return true if token is validate, false otherwise
      */
     public Boolean validateToken(String token, UserDetails userDetails) {
-        SecurityUser user = (SecurityUser) userDetails;
-        final String username = this.getUsernameFromToken(token);
-
-        final String refreshedToken;
-
-        if (this.isTokenExpired(token)) {
-            refreshedToken = refreshToken(token);
-        } else {
-            refreshedToken = token;
-        }
+        return this.validateClaims(this.getVerifiedClaims(token), userDetails);
+    }
 
-        return username.equals(user.getUsername()) && !(this.isTokenExpired(refreshedToken));
+    /**
+     * Perform validation of already verified token claims, without parsing the token again.
+     *
+     * @param claims      verified claims of the authentication token, null if token is not valid
+     * @param userDetails current user details
+     * @return true if token is valid and belongs to the user, false otherwise
+     */
+    public Boolean validateClaims(Claims claims, UserDetails userDetails) {
+        final SecurityUser user = (SecurityUser) userDetails;
+        return claims != null && !this.isExpired(claims) && user.getUsername().equals(claims.getSubject());
     }
 }
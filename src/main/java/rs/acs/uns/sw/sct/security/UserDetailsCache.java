@@ -0,0 +1,153 @@
+package rs.acs.uns.sw.sct.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import rs.acs.uns.sw.sct.metrics.CacheStatisticsDTO;
+import rs.acs.uns.sw.sct.users.SecurityUser;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of security users, keyed by username.
+ * <p>
+ * Entries expire after configured time, and least recently used entries are evicted once cache is full.
+ * Entry of the user is invalidated whenever the user is saved, so changes of password, type or
+ * verification status are applied on the next request. Usernames of cached users are also indexed by id,
+ * so entry of a renamed user is found without scanning the cache.
+ */
+@Component
+public class UserDetailsCache {
+
+    @Value("${sct.cache.user-details.ttl-seconds}")
+    private Long ttlSeconds;
+
+    @Value("${sct.cache.user-details.max-size}")
+    private Integer maxSize;
+
+    private final LinkedHashMap<String, CachedUser> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Long, String> usernames = new HashMap<>();
+
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    /**
+     * Returns cached security user, or loads and caches it if it is not present.
+     *
+     * @param username username of the user
+     * @param loader   loads user from the database, and throws if user can not be authenticated
+     * @return security user
+     */
+    public SecurityUser get(String username, Supplier<SecurityUser> loader) {
+        final long loadedGeneration;
+
+        synchronized (this) {
+            final CachedUser cached = entries.get(username);
+            if (cached != null && cached.expiresAt > System.currentTimeMillis()) {
+                hits++;
+                return cached.user;
+            }
+            if (cached != null) {
+                remove(username);
+                evictions++;
+            }
+            misses++;
+            loadedGeneration = generation;
+        }
+
+        final SecurityUser user = loader.get();
+
+        synchronized (this) {
+            // user could already be stale if users were saved while it was loaded
+            if (loadedGeneration == generation) {
+                entries.put(username, new CachedUser(user, System.currentTimeMillis() + ttlSeconds * 1000));
+                usernames.put(user.getId(), username);
+                final Iterator<Map.Entry<String, CachedUser>> eldest = entries.entrySet().iterator();
+                while (entries.size() > maxSize) {
+                    final Map.Entry<String, CachedUser> evicted = eldest.next();
+                    usernames.remove(evicted.getValue().user.getId(), evicted.getKey());
+                    eldest.remove();
+                    evictions++;
+                }
+            }
+        }
+        return user;
+    }
+
+    /**
+     * Invalidates cached user with provided id or username.
+     * <p>
+     * Invalidation is repeated once current transaction completes, so users loaded
+     * before the changes were committed or rolled back are not kept either.
+     *
+     * @param id       id of the user, null if user is new
+     * @param username username of the user
+     */
+    public void invalidate(Long id, String username) {
+        evict(id, username);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(id, username);
+                }
+            });
+        }
+    }
+
+    /**
+     * Returns usage statistics of the cache.
+     *
+     * @return cache statistics
+     */
+    public synchronized CacheStatisticsDTO getStatistics() {
+        final CacheStatisticsDTO statistics = new CacheStatisticsDTO();
+        statistics.setHits(hits);
+        statistics.setMisses(misses);
+        statistics.setEvictions(evictions);
+        statistics.setInvalidations(invalidations);
+        statistics.setSize(entries.size());
+        return statistics;
+    }
+
+    private synchronized void evict(Long id, String username) {
+        if (remove(username))
+            invalidations++;
+        // entry could still be cached under the previous username of the user
+        final String previousUsername = id == null ? null : usernames.get(id);
+        if (previousUsername != null && remove(previousUsername))
+            invalidations++;
+        generation++;
+    }
+
+    private boolean remove(String username) {
+        final CachedUser removed = entries.remove(username);
+        if (removed == null)
+            return false;
+
+        usernames.remove(removed.user.getId(), username);
+        return true;
+    }
+
+    /**
+     * Cached security user, together with its expiration time.
+     */
+    private static class CachedUser {
+        private final SecurityUser user;
+        private final long expiresAt;
+
+        private CachedUser(SecurityUser user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -7,7 +7,7 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import rs.acs.uns.sw.sct.users.User;
 import rs.acs.uns.sw.sct.users.UserFactory;
-import rs.acs.uns.sw.sct.users.UserRepository;
+import rs.acs.uns.sw.sct.users.UserService;
 
 /**
  * Implementation of UserDetailsService.
@@ -16,16 +16,29 @@ import rs.acs.uns.sw.sct.users.UserRepository;
 public class UserDetailsServiceImpl implements UserDetailsService {
 
     @Autowired
-    private UserRepository userRepository;
+    private UserService userService;
 
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    /**
+     * Loads security user by username, from the cache if it was recently loaded.
+     *
+     * @param username username of the user
+     * @return security user
+     */
     @Override
     public UserDetails loadUserByUsername(String username) {
-        User user = userRepository.findOneByUsername(username);
+        return userDetailsCache.get(username, () -> {
+            // user service reads in a read-write transaction, so the user comes from the primary database,
+            // and a lagging replica can not put user state from before the last save into the cache
+            User user = userService.getUserByUsername(username);
 
-        if (user == null || !user.isVerified()) {
-            throw new UsernameNotFoundException(String.format("No user found with username '%s'.", username));
-        } else {
-            return UserFactory.create(user);
-        }
+            if (user == null || !user.isVerified()) {
+                throw new UsernameNotFoundException(String.format("No user found with username '%s'.", username));
+            } else {
+                return UserFactory.create(user);
+            }
+        });
     }
 }
@@ -5,6 +5,9 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import rs.acs.uns.sw.sct.users.SecurityUser;
 import rs.acs.uns.sw.sct.users.User;
 import rs.acs.uns.sw.sct.users.UserService;
 
@@ -14,11 +17,16 @@ import rs.acs.uns.sw.sct.users.UserService;
 @Component
 public class UserSecurityUtil {
 
+    private static final String LOGGED_USER = UserSecurityUtil.class.getName() + ".LOGGED_USER";
+
     @Autowired
     private UserService userService;
 
     /**
      * Method that get currently logged-in user from SecurityContext and retrieves full object from database.
+     * <p>
+     * User is looked up by id carried in the authenticated principal, which is served from the second-level cache,
+     * and it is resolved only once per request, so repeated calls within the same request return the same object.
      *
      * @return User that is currently logged-in
      */
@@ -30,17 +38,43 @@ public class UserSecurityUtil {
             return null;
         }
 
-        return userService.getUserByUsername(authentication.getName());
+        final RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            final Object resolved = request.getAttribute(LOGGED_USER, RequestAttributes.SCOPE_REQUEST);
+            if (resolved instanceof User && ((User) resolved).getUsername().equals(authentication.getName()))
+                return (User) resolved;
+        }
+
+        final Long id = getLoggedUserId();
+        final User user = id != null ? userService.findOne(id) : userService.getUserByUsername(authentication.getName());
+
+        if (request != null && user != null)
+            request.setAttribute(LOGGED_USER, user, RequestAttributes.SCOPE_REQUEST);
+        return user;
+    }
+
+    /**
+     * Retrieves only id of the logged-in user, without reading it from the database.
+     *
+     * @return id of the currently logged-in user, or null if principal does not carry it
+     */
+    public Long getLoggedUserId() {
+        final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication == null || !(authentication.getPrincipal() instanceof SecurityUser)) {
+            return null;
+        }
+        return ((SecurityUser) authentication.getPrincipal()).getId();
     }
 
     /**
      * Retrieves only username of the logged-in user.
      *
-     * @return username of the currently logged-in user.
+     * @return username of the currently logged-in user, or null if there is no authentication
      */
     public String getLoggedUserUsername() {
         final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        return authentication.getName();
+        return authentication == null ? null : authentication.getName();
     }
 
     /**
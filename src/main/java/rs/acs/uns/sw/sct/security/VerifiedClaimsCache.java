@@ -0,0 +1,111 @@
+package rs.acs.uns.sw.sct.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bounded cache of claims of tokens whose signature is already verified.
+ * <p>
+ * Tokens are kept in a concurrent map, so requests don't wait for each other. Expiration is checked
+ * whenever token is read, and expired token is removed right away. Other expired tokens are removed
+ * only once the cache is full, and if it is still full afterwards, tokens which expire first are evicted.
+ * All tokens have the same lifetime, so these are the oldest ones. Eviction is done by one thread at a time,
+ * while the others keep going, so the cache can briefly hold a few tokens more than its maximal size.
+ */
+class VerifiedClaimsCache {
+
+    private final int maxSize;
+    private final ConcurrentMap<String, CachedClaims> claims = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    /**
+     * Creates empty cache.
+     *
+     * @param maxSize maximal number of cached tokens
+     */
+    VerifiedClaimsCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns claims of the token, if they are cached and the token is not expired.
+     *
+     * @param token authentication token
+     * @return claims of the token, or null
+     */
+    Claims get(String token) {
+        final CachedClaims cached = claims.get(token);
+        if (cached == null)
+            return null;
+
+        if (cached.expiresAt <= System.currentTimeMillis()) {
+            claims.remove(token, cached);
+            return null;
+        }
+        return cached.claims;
+    }
+
+    /**
+     * Caches claims of the verified token until it expires.
+     *
+     * @param token       authentication token
+     * @param tokenClaims claims of the token, which must contain expiration date
+     */
+    void put(String token, Claims tokenClaims) {
+        claims.put(token, new CachedClaims(tokenClaims, tokenClaims.getExpiration().getTime()));
+        if (claims.size() > maxSize)
+            evict();
+    }
+
+    /**
+     * Number of the cached tokens, including expired ones which are not removed yet.
+     *
+     * @return number of tokens
+     */
+    int size() {
+        return claims.size();
+    }
+
+    private void evict() {
+        if (!evicting.compareAndSet(false, true))
+            return;
+
+        try {
+            final long now = System.currentTimeMillis();
+            claims.values().removeIf(cached -> cached.expiresAt <= now);
+
+            final int excess = claims.size() - maxSize;
+            if (excess > 0) {
+                // a tenth more is evicted, so the whole cache is not sorted again on every insert
+                claims.entrySet().stream()
+                        .sorted(Map.Entry.comparingByValue())
+                        .limit(excess + maxSize / 10)
+                        .forEach(entry -> claims.remove(entry.getKey(), entry.getValue()));
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * Cached claims, together with expiration time of the token.
+     */
+    private static class CachedClaims implements Comparable<CachedClaims> {
+        private final Claims claims;
+        private final long expiresAt;
+
+        private CachedClaims(Claims claims, long expiresAt) {
+            this.claims = claims;
+            this.expiresAt = expiresAt;
+        }
+
+        @Override
+        public int compareTo(CachedClaims other) {
+            return Long.compare(expiresAt, other.expiresAt);
+        }
+    }
+}
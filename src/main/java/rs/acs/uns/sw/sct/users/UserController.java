@@ -206,12 +206,13 @@ public class UserController {
     @GetMapping("/users/{username}")
     public ResponseEntity getUser(@PathVariable String username) {
 
-        final User logged = userSecurityUtil.getLoggedUser();
+        // only username of the logged-in user is needed, so it is not read from the database
+        final String loggedUsername = userSecurityUtil.getLoggedUserUsername();
 
         User user = userService.getUserByUsername(username);
         return Optional.ofNullable(user)
                 .map(result -> new ResponseEntity<>(
-                        (logged != null && user.getUsername().equals(logged.getUsername())) ? result : result.convertToDTO(),
+                        user.getUsername().equals(loggedUsername) ? result : result.convertToDTO(),
                         HttpStatus.OK))
                 .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
@@ -1,16 +1,23 @@
 package rs.acs.uns.sw.sct.users;
 
+import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Predicate;
 import org.apache.commons.collections.IteratorUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import rs.acs.uns.sw.sct.search.UserSearchIndex;
+import rs.acs.uns.sw.sct.security.UserDetailsCache;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
+import static rs.acs.uns.sw.sct.search.UserPredicates.idIn;
 import static rs.acs.uns.sw.sct.search.UserPredicates.search;
 import static rs.acs.uns.sw.sct.search.UserPredicates.searchOR;
 
@@ -24,6 +31,15 @@ public class UserService {
     @Autowired
     UserRepository userRepository;
 
+    @Autowired
+    private UserSearchIndex userSearchIndex;
+
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    @Value("${sct.index.trigram.max-candidates}")
+    private Integer maxTrigramCandidates;
+
     /**
      * Get one user by email.
      *
@@ -95,6 +111,9 @@ public class UserService {
 
     /**
      * Save new user.
+     * <p>
+     * Cached security user is invalidated, so changes of password, type or status
+     * are applied to the next authenticated request.
      *
      * @param newUser the user to save
      * @return the persisted user
@@ -108,6 +127,7 @@ public class UserService {
             newUser.setPassword(hashedPassword);
         }
 
+        userDetailsCache.invalidate(newUser.getId(), newUser.getUsername());
         return userRepository.save(newUser);
     }
 
@@ -125,6 +145,9 @@ public class UserService {
 
     /**
      * Find all users that satisfied criteria defined by query params.
+     * <p>
+     * Candidates are first found in the in-memory trigram index, so the database
+     * only rechecks their rows.
      *
      * @param username    user username
      * @param email       user email
@@ -138,7 +161,17 @@ public class UserService {
     @Transactional(readOnly = true)
     public List<User> findBySearchTerm(String username, String email, String firstName,
                                        String lastName, String phoneNumber, String companyName, Pageable pageable) {
-        Predicate searchPredicate = search(username, email, firstName, lastName, phoneNumber, companyName);
+        BooleanBuilder searchPredicate = new BooleanBuilder(search(username, email, firstName, lastName, phoneNumber, companyName));
+
+        // index is updated on insert, which is deferred until flush
+        userRepository.flush();
+        final Set<Long> candidates = userSearchIndex.findCandidates(username, email, firstName, lastName, phoneNumber, maxTrigramCandidates);
+        if (candidates != null) {
+            if (candidates.isEmpty())
+                return new ArrayList<>();
+            searchPredicate.and(idIn(candidates));
+        }
+
         Iterable<User> searchResults = userRepository.findAll(searchPredicate, pageable);
         return IteratorUtils.toList(searchResults.iterator());
     }
@@ -0,0 +1,40 @@
+package rs.acs.uns.sw.sct.util;
+
+/**
+ * Estimated number of rows, together with its error bound.
+ * <p>
+ * Real count is within <code>value ± error</code> with probability of about 95%.
+ * Exact counts have zero error.
+ */
+public class CountEstimate {
+
+    private final long value;
+    private final long error;
+
+    public CountEstimate(long value, long error) {
+        this.value = value;
+        this.error = error;
+    }
+
+    /**
+     * Creates estimate of an exactly counted value.
+     *
+     * @param value exact count
+     * @return estimate without error
+     */
+    public static CountEstimate exact(long value) {
+        return new CountEstimate(value, 0);
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    public long getError() {
+        return error;
+    }
+
+    public boolean isExact() {
+        return error == 0;
+    }
+}
@@ -0,0 +1,75 @@
+package rs.acs.uns.sw.sct.util;
+
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in keyset paginated listing: sort order, and value of the sort key and id
+ * of the last row returned to the client.
+ * <p>
+ * Clients receive cursor as an opaque token, and send it back in <em>after</em> request param
+ * to get the next page.
+ */
+public final class Cursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final String property;
+    private final Sort.Direction direction;
+    private final Long id;
+    private final String value;
+
+    public Cursor(String property, Sort.Direction direction, Long id, String value) {
+        this.property = property;
+        this.direction = direction;
+        this.id = id;
+        this.value = value;
+    }
+
+    /**
+     * Decodes cursor from the token.
+     *
+     * @param token token received from the client
+     * @return decoded cursor, or null if token is empty
+     * @throws IllegalArgumentException if token is malformed
+     */
+    public static Cursor decode(String token) {
+        if (token == null || token.isEmpty())
+            return null;
+
+        final String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        final String[] parts = decoded.split("\\" + SEPARATOR, 4);
+        if (parts.length != 4)
+            throw new IllegalArgumentException("Malformed cursor");
+
+        return new Cursor(parts[0], Sort.Direction.fromString(parts[1]), Long.valueOf(parts[2]), parts[3]);
+    }
+
+    /**
+     * Encodes cursor to the opaque token.
+     *
+     * @return token
+     */
+    public String encode() {
+        final String raw = property + SEPARATOR + direction + SEPARATOR + id + SEPARATOR + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public Sort.Direction getDirection() {
+        return direction;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getValue() {
+        return value;
+    }
+}
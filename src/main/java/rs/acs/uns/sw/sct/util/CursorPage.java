@@ -0,0 +1,50 @@
+package rs.acs.uns.sw.sct.util;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * One page of keyset paginated listing.
+ *
+ * @param <T> type of the page elements
+ */
+public class CursorPage<T> {
+
+    private final List<T> content;
+    private final String nextCursor;
+
+    public CursorPage(List<T> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Converts elements of the page.
+     *
+     * @param converter element converter
+     * @param <U>       type of the converted elements
+     * @return page with converted elements and the same cursor
+     */
+    public <U> CursorPage<U> map(Function<? super T, ? extends U> converter) {
+        final List<U> converted = content.stream().map(converter).collect(Collectors.toList());
+        return new CursorPage<>(converted, nextCursor);
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    /**
+     * Returns token of the cursor pointing after the last element of this page.
+     *
+     * @return token, or null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
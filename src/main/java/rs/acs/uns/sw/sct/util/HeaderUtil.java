@@ -31,6 +31,10 @@ public final class HeaderUtil {
     public static final String ERROR_MSG_PROVIDED_UNKNOWN_REPORT_STATUS = "You specified unknown report status";
     public static final String ERROR_MSG_EMAIL_ALREADY_IN_USE = "Email is already in use";
     public static final String ERROR_MSG_USERNAME_ALREADY_IN_USE = "Username is already in use";
+    public static final String ERROR_MSG_INVALID_CURSOR = "Cursor is malformed or listing can't be sorted by requested property";
+    public static final String ERROR_MSG_INVALID_BATCH = "Some of the entities are not valid, none of them were saved";
+    public static final String ERROR_MSG_BATCH_TOO_LARGE = "Too many entities in one request";
+    public static final String ERROR_MSG_NOT_CLAIMED = "Entity is not claimed by you, or your claim has expired";
 
     // ================================================ Error codes ================================================= //
     /**
@@ -144,6 +148,24 @@ public final class HeaderUtil {
      */
     public static final Integer ERROR_CODE_USERNAME_ALREADY_IN_USE = 1019;
 
+    /**
+     * Error code representing situation in which user requests next page of keyset paginated listing
+     * with malformed cursor, or sorted by property which keyset pagination doesn't support.
+     */
+    public static final Integer ERROR_CODE_INVALID_CURSOR = 1020;
+
+    /**
+     * Error code representing situation in which user tries to create multiple entities at once,
+     * and at least one of them is not valid.
+     */
+    public static final Integer ERROR_CODE_INVALID_BATCH = 1021;
+
+    /**
+     * Error code representing situation in which user tries to create more entities at once
+     * than one request allows.
+     */
+    public static final Integer ERROR_CODE_BATCH_TOO_LARGE = 1022;
+
     private HeaderUtil() {
     }
 
@@ -214,4 +236,45 @@ public final class HeaderUtil {
         headers.add(SCT_HEADER_ERROR_KEY, errorKey.toString());
         return headers;
     }
+
+    /**
+     * Checks whether <em>Accept-Encoding</em> header value accepts provided content coding.
+     * <p>
+     * Coding is accepted if it is listed, or if the wildcard is listed and the coding is not, with non-zero quality.
+     * Codings listed with <em>q=0</em> are refused, as defined by RFC 7231.
+     *
+     * @param acceptEncoding value of the header, or null if the header is not present
+     * @param coding         content coding, such as <em>gzip</em>
+     * @return true if the coding is accepted
+     */
+    public static boolean acceptsEncoding(String acceptEncoding, String coding) {
+        if (acceptEncoding == null)
+            return false;
+
+        Double codingQuality = null;
+        Double wildcardQuality = null;
+        for (String element : acceptEncoding.split(",")) {
+            final String[] parts = element.split(";");
+            final String name = parts[0].trim();
+            double quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                final String parameter = parts[i].trim();
+                if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+
+            if (name.equalsIgnoreCase(coding))
+                codingQuality = quality;
+            else if ("*".equals(name))
+                wildcardQuality = quality;
+        }
+
+        final Double quality = codingQuality != null ? codingQuality : wildcardQuality;
+        return quality != null && quality > 0;
+    }
 }
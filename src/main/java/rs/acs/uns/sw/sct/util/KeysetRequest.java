@@ -0,0 +1,174 @@
+package rs.acs.uns.sw.sct.util;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.*;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberPath;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Keyset (seek) pagination request.
+ * <p>
+ * Instead of skipping <em>offset</em> rows, next page is requested with a cursor holding the sort key
+ * and id of the last returned row, and the query only reads rows which come after it.
+ * Rows are always ordered by the sort key and then by id, so the position is unique
+ * even if sort key is not. Cost of a page does not depend on how deep into the listing it is.
+ */
+public final class KeysetRequest {
+
+    private static final String ID = "id";
+
+    private final String property;
+    private final Sort.Direction direction;
+    private final ComparableExpressionBase<?> key;
+    private final NumberPath<Long> id;
+    private final Cursor after;
+    private final int size;
+
+    private KeysetRequest(String property, Sort.Direction direction, ComparableExpressionBase<?> key,
+                          NumberPath<Long> id, Cursor after, int size) {
+        this.property = property;
+        this.direction = direction;
+        this.key = key;
+        this.id = id;
+        this.after = after;
+        this.size = size;
+    }
+
+    /**
+     * Creates keyset request. Sort order is taken from the cursor if it is present,
+     * otherwise from the first order of the pageable, defaulting to ascending id.
+     *
+     * @param after    token of the cursor, empty for the first page
+     * @param pageable page size and sort order
+     * @param id       id of the listed entity
+     * @param sortKeys properties which listing can be sorted by, besides id
+     * @return keyset request
+     * @throws IllegalArgumentException if cursor is malformed or sort property is not supported
+     */
+    public static KeysetRequest of(String after, Pageable pageable, NumberPath<Long> id,
+                                   Map<String, ? extends ComparableExpressionBase<?>> sortKeys) {
+        final Cursor cursor = Cursor.decode(after);
+
+        String property = ID;
+        Sort.Direction direction = Sort.Direction.ASC;
+        if (cursor != null) {
+            property = cursor.getProperty();
+            direction = cursor.getDirection();
+        } else if (pageable.getSort() != null && pageable.getSort().iterator().hasNext()) {
+            final Sort.Order order = pageable.getSort().iterator().next();
+            property = order.getProperty();
+            direction = order.getDirection();
+        }
+
+        final ComparableExpressionBase<?> key = ID.equals(property) ? id : sortKeys.get(property);
+        if (key == null)
+            throw new IllegalArgumentException("Listing can't be sorted by " + property);
+
+        return new KeysetRequest(property, direction, key, id, cursor, pageable.getPageSize());
+    }
+
+    /**
+     * Creates predicate which matches only rows after the cursor.
+     *
+     * @return seek predicate, empty for the first page
+     */
+    public Predicate seek() {
+        final BooleanBuilder where = new BooleanBuilder();
+        if (after == null)
+            return where;
+
+        final Ops comparison = direction == Sort.Direction.ASC ? Ops.GT : Ops.LT;
+        final Expression<Long> lastId = Expressions.constant(after.getId());
+
+        if (key == id)
+            return where.and(Expressions.predicate(comparison, id, lastId));
+
+        final Expression<Object> lastKey = Expressions.constant(parse(key.getType(), after.getValue()));
+        return where.and(Expressions.predicate(comparison, key, lastKey)
+                .or(Expressions.predicate(Ops.EQ, key, lastKey).and(Expressions.predicate(comparison, id, lastId))));
+    }
+
+    /**
+     * Creates ordering by the sort key, then by id.
+     *
+     * @return order specifiers
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public OrderSpecifier<?>[] orderBy() {
+        final Order order = direction == Sort.Direction.ASC ? Order.ASC : Order.DESC;
+        if (key == id)
+            return new OrderSpecifier<?>[]{new OrderSpecifier<>(order, id)};
+        return new OrderSpecifier<?>[]{new OrderSpecifier(order, key), new OrderSpecifier<>(order, id)};
+    }
+
+    /**
+     * Appends sort key and id to the selected columns, so cursor can be created from the last row.
+     *
+     * @param columns columns needed by the caller
+     * @return all columns to be selected
+     */
+    public Expression<?>[] columns(Expression<?>... columns) {
+        final Expression<?>[] all = Arrays.copyOf(columns, columns.length + 2);
+        all[columns.length] = key;
+        all[columns.length + 1] = id;
+        return all;
+    }
+
+    /**
+     * Returns maximal number of rows to be fetched. One row more than page size is fetched,
+     * to find out whether there is a next page.
+     *
+     * @return row limit
+     */
+    public long limit() {
+        return size + 1L;
+    }
+
+    /**
+     * Creates page from the fetched rows.
+     *
+     * @param rows   rows fetched with {@link #seek()}, {@link #orderBy()}, {@link #columns} and {@link #limit()}
+     * @param mapper converts row to the page element
+     * @param <T>    type of the page elements
+     * @return page with the cursor after its last row
+     */
+    public <T> CursorPage<T> toPage(List<Tuple> rows, Function<Tuple, T> mapper) {
+        final List<Tuple> pageRows = rows.size() > size ? rows.subList(0, size) : rows;
+
+        String next = null;
+        if (rows.size() > size) {
+            final Tuple last = pageRows.get(pageRows.size() - 1);
+            next = new Cursor(property, direction, last.get(id), format(last.get(key))).encode();
+        }
+
+        final List<T> content = new ArrayList<>();
+        for (Tuple row : pageRows)
+            content.add(mapper.apply(row));
+        return new CursorPage<>(content, next);
+    }
+
+    private static String format(Object value) {
+        return value instanceof Date ? String.valueOf(((Date) value).getTime()) : String.valueOf(value);
+    }
+
+    private static Object parse(Class<?> type, String value) {
+        if (Date.class.isAssignableFrom(type))
+            return new Date(Long.parseLong(value));
+        if (Double.class.equals(type))
+            return Double.valueOf(value);
+        if (Long.class.equals(type))
+            return Long.valueOf(value);
+        if (Integer.class.equals(type))
+            return Integer.valueOf(value);
+        if (String.class.equals(type))
+            return value;
+        throw new IllegalArgumentException("Unsupported sort key type " + type.getName());
+    }
+}
@@ -1,7 +1,11 @@
 package rs.acs.uns.sw.sct.util;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.net.URISyntaxException;
@@ -28,28 +32,116 @@ public final class PaginationUtil {
      */
     public static HttpHeaders generatePaginationHttpHeaders(Page<?> page, String baseUrl)
             throws URISyntaxException {
+        return generatePaginationHttpHeaders(page, UriComponentsBuilder.fromUriString(baseUrl));
+    }
+
+    /**
+     * Generates pagination headers with links to the current request URI. Uses X-Total-Count and Link headers.
+     * <p>
+     * Only <em>page</em> and <em>size</em> params are replaced, so links keep all other params of the request,
+     * such as search filters and sort order.
+     *
+     * @param page current page of the repository
+     * @return HttpHeaders with pagination added
+     */
+    public static HttpHeaders generatePaginationHttpHeaders(Page<?> page) {
+        return generatePaginationHttpHeaders(page, fromCurrentRequest());
+    }
 
+    private static HttpHeaders generatePaginationHttpHeaders(Page<?> page, UriComponentsBuilder base) {
         HttpHeaders headers = new HttpHeaders();
         headers.add("X-Total-Count", String.valueOf(page.getTotalElements()));
         String link = "";
         if ((page.getNumber() + 1) < page.getTotalPages()) {
-            link = "<" + generateUri(baseUrl, page.getNumber() + 1, page.getSize()) + ">; rel=\"next\",";
+            link = "<" + generateUri(base, page.getNumber() + 1, page.getSize()) + ">; rel=\"next\",";
         }
         // prev link
         if ((page.getNumber()) > 0) {
-            link += "<" + generateUri(baseUrl, page.getNumber() - 1, page.getSize()) + ">; rel=\"prev\",";
+            link += "<" + generateUri(base, page.getNumber() - 1, page.getSize()) + ">; rel=\"prev\",";
         }
         // last and first link
         int lastPage = 0;
         if (page.getTotalPages() > 0) {
             lastPage = page.getTotalPages() - 1;
         }
-        link += "<" + generateUri(baseUrl, lastPage, page.getSize()) + ">; rel=\"last\",";
-        link += "<" + generateUri(baseUrl, 0, page.getSize()) + ">; rel=\"first\"";
+        link += "<" + generateUri(base, lastPage, page.getSize()) + ">; rel=\"last\",";
+        link += "<" + generateUri(base, 0, page.getSize()) + ">; rel=\"first\"";
         headers.add(HttpHeaders.LINK, link);
         return headers;
     }
 
+    /**
+     * Generates slice pagination headers with links to the current request URI. Uses X-Has-Next and Link headers,
+     * without the last page, since slice doesn't know the total number of elements.
+     * <p>
+     * Only <em>page</em>, <em>size</em> and <em>count</em> params are replaced, so links keep all other params
+     * of the request, such as search filters and sort order.
+     *
+     * @param slice current slice of the repository
+     * @return HttpHeaders with pagination added
+     */
+    public static HttpHeaders generateSliceHttpHeaders(Slice<?> slice) {
+        return generateSliceHttpHeaders(slice, "count", false);
+    }
+
+    /**
+     * Generates estimated pagination headers with links to the current request URI. Uses X-Total-Count-Estimate
+     * and X-Total-Count-Error together with slice headers, since the total number of elements is only estimated.
+     * Real total is within <code>estimate ± error</code> with probability of about 95%.
+     * <p>
+     * Only <em>page</em>, <em>size</em> and <em>estimate</em> params are replaced, so links keep all other params
+     * of the request, such as search filters and sort order.
+     *
+     * @param slice    current slice of the repository
+     * @param estimate estimated total number of elements
+     * @return HttpHeaders with pagination added
+     */
+    public static HttpHeaders generateEstimateHttpHeaders(Slice<?> slice, CountEstimate estimate) {
+        HttpHeaders headers = generateSliceHttpHeaders(slice, "estimate", true);
+        headers.add("X-Total-Count-Estimate", String.valueOf(estimate.getValue()));
+        headers.add("X-Total-Count-Error", String.valueOf(estimate.getError()));
+        return headers;
+    }
+
+    private static HttpHeaders generateSliceHttpHeaders(Slice<?> slice, String mode, Object value) {
+        final UriComponentsBuilder base = fromCurrentRequest().replaceQueryParam(mode, value);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("X-Has-Next", String.valueOf(slice.hasNext()));
+        String link = "";
+        if (slice.hasNext()) {
+            link = "<" + generateUri(base, slice.getNumber() + 1, slice.getSize()) + ">; rel=\"next\",";
+        }
+        // prev link
+        if (slice.hasPrevious()) {
+            link += "<" + generateUri(base, slice.getNumber() - 1, slice.getSize()) + ">; rel=\"prev\",";
+        }
+        link += "<" + generateUri(base, 0, slice.getSize()) + ">; rel=\"first\"";
+        headers.add(HttpHeaders.LINK, link);
+        return headers;
+    }
+
+    /**
+     * Generates keyset pagination headers. Uses Link header with the next page only,
+     * since keyset pagination doesn't count the rows.
+     *
+     * @param page    current page of the repository
+     * @param size    current size of repository
+     * @param baseUrl base service API URL
+     * @return HttpHeaders with pagination added
+     */
+    public static HttpHeaders generateCursorHttpHeaders(CursorPage<?> page, int size, String baseUrl) {
+        HttpHeaders headers = new HttpHeaders();
+        if (page.hasNext()) {
+            String link = "<" + UriComponentsBuilder.fromUriString(baseUrl)
+                    .queryParam("after", page.getNextCursor())
+                    .queryParam("size", size)
+                    .toUriString() + ">; rel=\"next\"";
+            headers.add(HttpHeaders.LINK, link);
+        }
+        return headers;
+    }
+
     /**
      * Generates URI based on arguments.
      *
@@ -62,4 +154,21 @@ public final class PaginationUtil {
     public static String generateUri(String baseUrl, int page, int size) throws URISyntaxException {
         return UriComponentsBuilder.fromUriString(baseUrl).queryParam("page", page).queryParam("size", size).toUriString();
     }
+
+    /**
+     * Creates builder of the current request URI with all request params. Params are read from the request,
+     * not from its query string, which is not populated when the request is dispatched internally.
+     *
+     * @return builder of the current request URI
+     */
+    private static UriComponentsBuilder fromCurrentRequest() {
+        final UriComponentsBuilder builder = ServletUriComponentsBuilder.fromCurrentRequestUri();
+        ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getRequest().getParameterMap()
+                .forEach((name, values) -> builder.queryParam(name, (Object[]) values));
+        return builder;
+    }
+
+    private static String generateUri(UriComponentsBuilder base, int page, int size) {
+        return base.cloneBuilder().replaceQueryParam("page", page).replaceQueryParam("size", size).toUriString();
+    }
 }
@@ -0,0 +1,62 @@
+package rs.acs.uns.sw.sct.util;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.TableGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Table backed id generator which allocates ids in blocks.
+ * <p>
+ * Every entity table has its own row in <em>id_generator</em> table, and one update of that row
+ * reserves a whole block of ids, which are then assigned in memory with <em>pooled-lo</em> optimizer.
+ * Unlike identity columns, ids are known before insert, so Hibernate can group inserts into JDBC batches.
+ * <p>
+ * Block size and the first id are read from <em>sct.id.allocation-size</em> and <em>sct.id.initial-value</em>
+ * Hibernate properties. The first id is used only for tables without a row in <em>id_generator</em>,
+ * so it is set in the test profile, whose schema is created empty. Existing databases are seeded
+ * with <em>db/id-generator.sql</em>, which sets the row of every table above its largest id.
+ */
+public class PooledIdGenerator extends TableGenerator {
+
+    /**
+     * Name of the generator, used in {@link javax.persistence.GeneratedValue#generator()}.
+     */
+    public static final String NAME = "pooled";
+
+    /**
+     * Generator strategy, used in {@link org.hibernate.annotations.GenericGenerator#strategy()}.
+     */
+    public static final String STRATEGY = "rs.acs.uns.sw.sct.util.PooledIdGenerator";
+
+    public static final String ALLOCATION_SIZE_SETTING = "sct.id.allocation-size";
+    public static final String INITIAL_VALUE_SETTING = "sct.id.initial-value";
+
+    private static final String TABLE_NAME = "id_generator";
+    private static final String DEFAULT_ALLOCATION_SIZE = "50";
+    private static final String DEFAULT_INITIAL_VALUE = "1";
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        final Map settings = serviceRegistry.getService(ConfigurationService.class).getSettings();
+
+        final Properties pooled = new Properties();
+        pooled.putAll(params);
+        pooled.setProperty(TABLE_PARAM, TABLE_NAME);
+        pooled.setProperty(CONFIG_PREFER_SEGMENT_PER_ENTITY, "true");
+        pooled.setProperty(INCREMENT_PARAM, setting(settings, ALLOCATION_SIZE_SETTING, DEFAULT_ALLOCATION_SIZE));
+        pooled.setProperty(INITIAL_PARAM, setting(settings, INITIAL_VALUE_SETTING, DEFAULT_INITIAL_VALUE));
+        pooled.setProperty(OPT_PARAM, "pooled-lo");
+
+        super.configure(type, pooled, serviceRegistry);
+    }
+
+    private static String setting(Map settings, String name, String defaultValue) {
+        final Object value = settings.get(name);
+        return value == null ? defaultValue : value.toString();
+    }
+}
@@ -0,0 +1,115 @@
+package rs.acs.uns.sw.sct.util;
+
+import java.util.*;
+
+/**
+ * Hashed timer wheel, which finds keys whose deadlines have passed.
+ * <p>
+ * Time is divided into ticks of the same length, and every deadline is rounded up to its tick
+ * and hashed into one of the wheel slots by tick number. Scheduling and cancelling take constant time,
+ * and advancing the wheel visits only slots of the passed ticks, no matter how many keys are scheduled.
+ * Keys whose deadlines are more than one turn of the wheel away share the slot with the sooner ones,
+ * and stay there until their own tick is reached.
+ * <p>
+ * Keys are never fired before their deadline, but may be fired up to one tick after it.
+ *
+ * @param <K> type of the scheduled keys
+ */
+public class TimerWheel<K> {
+
+    private final long tickMillis;
+    private final List<Map<K, Long>> slots;
+    private final Map<K, Long> ticks = new HashMap<>();
+    private long currentTick;
+
+    /**
+     * Creates the wheel which starts at current time.
+     *
+     * @param tickMillis length of one tick in milliseconds
+     * @param wheelSize  number of slots
+     */
+    public TimerWheel(long tickMillis, int wheelSize) {
+        this.tickMillis = tickMillis;
+        this.slots = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++)
+            slots.add(new HashMap<>());
+        this.currentTick = System.currentTimeMillis() / tickMillis;
+    }
+
+    /**
+     * Schedules the key, or reschedules it if it is already scheduled.
+     * Keys whose deadline already passed are fired on the next advance.
+     *
+     * @param key      key to be scheduled
+     * @param deadline time in milliseconds
+     */
+    public synchronized void schedule(K key, long deadline) {
+        cancel(key);
+
+        // rounded up, so key is never fired before its deadline
+        final long tick = Math.max((deadline + tickMillis - 1) / tickMillis, currentTick);
+        slotOf(tick).put(key, tick);
+        ticks.put(key, tick);
+    }
+
+    /**
+     * Cancels the key, if it is scheduled.
+     *
+     * @param key key to be cancelled
+     */
+    public synchronized void cancel(K key) {
+        final Long tick = ticks.remove(key);
+        if (tick != null)
+            slotOf(tick).remove(key);
+    }
+
+    /**
+     * Cancels all scheduled keys.
+     */
+    public synchronized void clear() {
+        slots.forEach(Map::clear);
+        ticks.clear();
+    }
+
+    /**
+     * Number of the scheduled keys.
+     *
+     * @return number of keys
+     */
+    public synchronized int size() {
+        return ticks.size();
+    }
+
+    /**
+     * Advances the wheel to the provided time, and removes keys whose deadlines have passed.
+     *
+     * @param now time in milliseconds
+     * @return keys whose deadlines are not after the provided time
+     */
+    public synchronized List<K> advance(long now) {
+        final long targetTick = now / tickMillis;
+        if (targetTick < currentTick)
+            return Collections.emptyList();
+
+        final List<K> expired = new ArrayList<>();
+        // every slot is visited at most once, even if the wheel is late for more than one turn
+        final long lastTick = Math.min(targetTick, currentTick + slots.size() - 1);
+        for (long tick = currentTick; tick <= lastTick; tick++) {
+            final Iterator<Map.Entry<K, Long>> entries = slotOf(tick).entrySet().iterator();
+            while (entries.hasNext()) {
+                final Map.Entry<K, Long> entry = entries.next();
+                if (entry.getValue() <= targetTick) {
+                    expired.add(entry.getKey());
+                    ticks.remove(entry.getKey());
+                    entries.remove();
+                }
+            }
+        }
+        currentTick = targetTick + 1;
+        return expired;
+    }
+
+    private Map<K, Long> slotOf(long tick) {
+        return slots.get((int) (tick % slots.size()));
+    }
+}
@@ -1,6 +1,8 @@
 package rs.acs.uns.sw.sct.verification;
 
+import org.hibernate.annotations.GenericGenerator;
 import rs.acs.uns.sw.sct.users.User;
+import rs.acs.uns.sw.sct.util.PooledIdGenerator;
 
 import javax.persistence.*;
 import java.io.Serializable;
@@ -14,7 +16,8 @@ import java.util.Date;
 public class VerificationToken implements Serializable {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = PooledIdGenerator.NAME)
+    @GenericGenerator(name = PooledIdGenerator.NAME, strategy = PooledIdGenerator.STRATEGY)
     @Column(name = "vt_id")
     private Long id;
 
@@ -0,0 +1,10 @@
+/*
+ * Adds expiration flag and publishing date of announcements to an existing MySQL schema.
+ * Production database is not created by Hibernate, so this script has to be run once before the application is upgraded.
+ */
+ALTER TABLE `announcements`
+  ADD COLUMN `expired` BOOLEAN NOT NULL DEFAULT FALSE,
+  ADD COLUMN `publish_at` DATETIME NULL;
+
+/* Announcements whose expiration date already passed; scheduler would flag them on the first tick anyway */
+UPDATE `announcements` SET `expired` = TRUE WHERE `expiration_date` <= NOW();
@@ -0,0 +1,41 @@
+/*
+ * Creates id_generator table of PooledIdGenerator on an existing MySQL schema, and sets the segment of every table
+ * above its largest id. Production database is not created by Hibernate, so this script has to be run once before
+ * the application is upgraded, while it is stopped. Running it again never moves a segment back.
+ */
+CREATE TABLE IF NOT EXISTS `id_generator` (
+  `sequence_name` VARCHAR(255) NOT NULL,
+  `next_val` BIGINT,
+  PRIMARY KEY (`sequence_name`)
+);
+
+INSERT INTO `id_generator` (`sequence_name`, `next_val`)
+  SELECT 'announcements', COALESCE(MAX(`id`), 0) + 1 FROM `announcements`
+  ON DUPLICATE KEY UPDATE `next_val` = GREATEST(`next_val`, VALUES(`next_val`));
+INSERT INTO `id_generator` (`sequence_name`, `next_val`)
+  SELECT 'comments', COALESCE(MAX(`id`), 0) + 1 FROM `comments`
+  ON DUPLICATE KEY UPDATE `next_val` = GREATEST(`next_val`, VALUES(`next_val`));
+INSERT INTO `id_generator` (`sequence_name`, `next_val`)
+  SELECT 'companies', COALESCE(MAX(`id`), 0) + 1 FROM `companies`
+  ON DUPLICATE KEY UPDATE `next_val` = GREATEST(`next_val`, VALUES(`next_val`));
+INSERT INTO `id_generator` (`sequence_name`, `next_val`)
+  SELECT 'images', COALESCE(MAX(`id`), 0) + 1 FROM `images`
+  ON DUPLICATE KEY UPDATE `next_val` = GREATEST(`next_val`, VALUES(`next_val`));
+INSERT INTO `id_generator` (`sequence_name`, `next_val`)
+  SELECT 'locations', COALESCE(MAX(`id`), 0) + 1 FROM `locations`
+  ON DUPLICATE KEY UPDATE `next_val` = GREATEST(`next_val`, VALUES(`next_val`));
+INSERT INTO `id_generator` (`sequence_name`, `next_val`)
+  SELECT 'marks', COALESCE(MAX(`id`), 0) + 1 FROM `marks`
+  ON DUPLICATE KEY UPDATE `next_val` = GREATEST(`next_val`, VALUES(`next_val`));
+INSERT INTO `id_generator` (`sequence_name`, `next_val`)
+  SELECT 'real_estates', COALESCE(MAX(`id`), 0) + 1 FROM `real_estates`
+  ON DUPLICATE KEY UPDATE `next_val` = GREATEST(`next_val`, VALUES(`next_val`));
+INSERT INTO `id_generator` (`sequence_name`, `next_val`)
+  SELECT 'reports', COALESCE(MAX(`id`), 0) + 1 FROM `reports`
+  ON DUPLICATE KEY UPDATE `next_val` = GREATEST(`next_val`, VALUES(`next_val`));
+INSERT INTO `id_generator` (`sequence_name`, `next_val`)
+  SELECT 'users', COALESCE(MAX(`id`), 0) + 1 FROM `users`
+  ON DUPLICATE KEY UPDATE `next_val` = GREATEST(`next_val`, VALUES(`next_val`));
+INSERT INTO `id_generator` (`sequence_name`, `next_val`)
+  SELECT 'verification_tokens', COALESCE(MAX(`vt_id`), 0) + 1 FROM `verification_tokens`
+  ON DUPLICATE KEY UPDATE `next_val` = GREATEST(`next_val`, VALUES(`next_val`));
@@ -0,0 +1,7 @@
+/*
+ * Adds verification claim of announcements to an existing MySQL schema.
+ * Production database is not created by Hibernate, so this script has to be run once before the application is upgraded.
+ */
+ALTER TABLE `announcements`
+  ADD COLUMN `claimed_by` VARCHAR(255) NULL,
+  ADD COLUMN `claim_expires_at` DATETIME NULL;
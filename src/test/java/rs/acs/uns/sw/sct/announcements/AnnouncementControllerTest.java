@@ -1,19 +1,24 @@
 package rs.acs.uns.sw.sct.announcements;
 
+import com.jayway.jsonpath.JsonPath;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.AopTestUtils;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
@@ -27,6 +32,7 @@ import rs.acs.uns.sw.sct.constants.UserConstants;
 import rs.acs.uns.sw.sct.realestates.Location;
 import rs.acs.uns.sw.sct.realestates.RealEstate;
 import rs.acs.uns.sw.sct.realestates.RealEstateService;
+import rs.acs.uns.sw.sct.search.AnnouncementPredicates;
 import rs.acs.uns.sw.sct.users.User;
 import rs.acs.uns.sw.sct.users.UserControllerTest;
 import rs.acs.uns.sw.sct.users.UserService;
@@ -34,11 +40,20 @@ import rs.acs.uns.sw.sct.util.*;
 
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -98,6 +113,9 @@ public class AnnouncementControllerTest {
 
     private static final int PAGE_SIZE = 5;
 
+    @Value("${sct.batch.max-size}")
+    private Integer maxBatchSize;
+
     @Autowired
     private AnnouncementRepository announcementRepository;
 
@@ -110,6 +128,9 @@ public class AnnouncementControllerTest {
     @Autowired
     private RealEstateService realEstateService;
 
+    @Autowired
+    private AnnouncementController announcementController;
+
     @Autowired
     private WebApplicationContext context;
 
@@ -1691,6 +1712,34 @@ public class AnnouncementControllerTest {
                 .andReturn();
     }
 
+    /**
+     * Tests links of the search results
+     * <p>
+     * This test searches Announcements one slice at a time, and asserts that
+     * Link header keeps the search filters and sort order of the request,
+     * while its page and size params are replaced.
+     *
+     * @throws Exception
+     */
+    @Test
+    @Transactional
+    public void searchAnnouncementsLinksKeepFilters() throws Exception {
+        announcementRepository.saveAndFlush(announcement);
+
+        restAnnouncementMockMvc.perform(get("/api/announcements/search")
+                .param("sort", "price")
+                .param("size", "1")
+                .param("page", "0")
+                .param("count", "false")
+                .param("startPrice", String.valueOf(DEFAULT_PRICE - 1)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Link", allOf(
+                        containsString("startPrice=" + (DEFAULT_PRICE - 1)),
+                        containsString("sort=price"),
+                        containsString("count=false"),
+                        containsString("page=0&size=1"))));
+    }
+
     /**
      * Tests searching for Announcements that were deleted
      * <p>
@@ -1754,4 +1803,508 @@ public class AnnouncementControllerTest {
                 .andExpect(jsonPath("$.[*].type").value(hasItem(DEFAULT_TYPE)))
                 .andExpect(jsonPath("$.[*].verified").value(hasItem(DEFAULT_VERIFIED)));
     }
+
+    /**
+     * Tests batch creation of Announcements
+     * <p>
+     * This test uses a mock Advertiser to create two Announcements at once, and asserts
+     * that both of them are created and that result of every Announcement has its id and no errors.
+     *
+     * @throws Exception
+     */
+    @Test
+    @Transactional
+    @WithMockUser(authorities = AuthorityRoles.ADVERTISER, username = UserConstants.USER_USERNAME)
+    public void createAnnouncementsBatch() throws Exception {
+        final int databaseSizeBeforeCreate = announcementRepository.findAll().size();
+
+        restAnnouncementMockMvc.perform(post("/api/announcements/batch")
+                .contentType(TestUtil.APPLICATION_JSON_UTF8)
+                .content(TestUtil.convertObjectToJsonBytes(Arrays.asList(createDTO(), createDTO()))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$.[*].index").value(contains(0, 1)))
+                .andExpect(jsonPath("$.[*].id", everyItem(notNullValue())))
+                .andExpect(jsonPath("$.[*].errors", everyItem(empty())));
+
+        assertThat(announcementRepository.findAll()).hasSize(databaseSizeBeforeCreate + 2);
+    }
+
+    /**
+     * Tests batch creation with an invalid Announcement
+     * <p>
+     * This test creates two Announcements at once, one of which has no price, and asserts that
+     * "Bad request" status is returned with errors of the invalid Announcement, and that none of them is created.
+     *
+     * @throws Exception
+     */
+    @Test
+    @Transactional
+    @WithMockUser(authorities = AuthorityRoles.ADVERTISER, username = UserConstants.USER_USERNAME)
+    public void createAnnouncementsBatchWithInvalidAnnouncement() throws Exception {
+        final int databaseSizeBeforeCreate = announcementRepository.findAll().size();
+        final AnnouncementDTO invalid = createDTO();
+        invalid.setPrice(null);
+
+        final MvcResult result = restAnnouncementMockMvc.perform(post("/api/announcements/batch")
+                .contentType(TestUtil.APPLICATION_JSON_UTF8)
+                .content(TestUtil.convertObjectToJsonBytes(Arrays.asList(createDTO(), invalid))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0].errors", empty()))
+                .andExpect(jsonPath("$[1].errors", not(empty())))
+                .andReturn();
+
+        final Integer errorKey = Integer.valueOf(result.getResponse().getHeader(HeaderUtil.SCT_HEADER_ERROR_KEY));
+        assertThat(errorKey).isEqualTo(HeaderUtil.ERROR_CODE_INVALID_BATCH);
+        assertThat(announcementRepository.findAll()).hasSize(databaseSizeBeforeCreate);
+    }
+
+    /**
+     * Tests batch creation of Announcements which already have an id
+     * <p>
+     * This test creates two Announcements at once, one of which has an id, and asserts
+     * that "Bad request" status is returned with the error key for custom ids.
+     *
+     * @throws Exception
+     */
+    @Test
+    @Transactional
+    @WithMockUser(authorities = AuthorityRoles.ADVERTISER, username = UserConstants.USER_USERNAME)
+    public void createAnnouncementsBatchWithId() throws Exception {
+        final AnnouncementDTO withId = createDTO();
+        withId.setId(1L);
+
+        final MvcResult result = restAnnouncementMockMvc.perform(post("/api/announcements/batch")
+                .contentType(TestUtil.APPLICATION_JSON_UTF8)
+                .content(TestUtil.convertObjectToJsonBytes(Arrays.asList(createDTO(), withId))))
+                .andExpect(status().isBadRequest())
+                .andReturn();
+
+        final Integer errorKey = Integer.valueOf(result.getResponse().getHeader(HeaderUtil.SCT_HEADER_ERROR_KEY));
+        assertThat(errorKey).isEqualTo(HeaderUtil.ERROR_CODE_CUSTOM_ID);
+    }
+
+    /**
+     * Tests batch creation of too many Announcements
+     * <p>
+     * This test creates one Announcement more than the configured maximal batch size, and asserts
+     * that "Bad request" status is returned with the error key for too large batches, and that none of them is created.
+     *
+     * @throws Exception
+     */
+    @Test
+    @Transactional
+    @WithMockUser(authorities = AuthorityRoles.ADVERTISER, username = UserConstants.USER_USERNAME)
+    public void createAnnouncementsBatchTooLarge() throws Exception {
+        final int databaseSizeBeforeCreate = announcementRepository.findAll().size();
+        final List<AnnouncementDTO> announcements = new ArrayList<>();
+        for (int i = 0; i <= maxBatchSize; i++)
+            announcements.add(createDTO());
+
+        final MvcResult result = restAnnouncementMockMvc.perform(post("/api/announcements/batch")
+                .contentType(TestUtil.APPLICATION_JSON_UTF8)
+                .content(TestUtil.convertObjectToJsonBytes(announcements)))
+                .andExpect(status().isBadRequest())
+                .andReturn();
+
+        final Integer errorKey = Integer.valueOf(result.getResponse().getHeader(HeaderUtil.SCT_HEADER_ERROR_KEY));
+        assertThat(errorKey).isEqualTo(HeaderUtil.ERROR_CODE_BATCH_TOO_LARGE);
+        assertThat(announcementRepository.findAll()).hasSize(databaseSizeBeforeCreate);
+    }
+
+    /**
+     * Tests whether Verifiers can create Announcements in batch
+     * <p>
+     * This test attempts to create Announcements at once using the Verifier role, which is forbidden.
+     *
+     * @throws Exception
+     */
+    @Test
+    @Transactional
+    @WithMockUser(authorities = AuthorityRoles.VERIFIER)
+    public void createAnnouncementsBatchWithVerifierAuthority() throws Exception {
+        restAnnouncementMockMvc.perform(post("/api/announcements/batch")
+                .contentType(TestUtil.APPLICATION_JSON_UTF8)
+                .content(TestUtil.convertObjectToJsonBytes(Collections.singletonList(createDTO()))))
+                .andExpect(status().isForbidden());
+    }
+
+    /**
+     * Tests claiming and verifying Announcements in batch
+     * <p>
+     * This test uses a mock Verifier to claim Announcements waiting for verification, then verifies
+     * all of them at once and asserts that every decision is applied.
+     * Claims are committed, so claimed Announcements are restored at the end.
+     *
+     * @throws Exception
+     */
+    @Test
+    @WithMockUser(authorities = AuthorityRoles.VERIFIER, username = DBUserMocker.VERIFIER_USERNAME)
+    public void claimAndVerifyAnnouncements() throws Exception {
+        final MvcResult result = restAnnouncementMockMvc.perform(post("/api/announcements/verification/claim")
+                .param("count", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(both(greaterThan(0)).and(lessThanOrEqualTo(2)))))
+                .andExpect(jsonPath("$.[*].verified", everyItem(is(DEFAULT_VERIFIED))))
+                .andReturn();
+
+        final List<Long> ids = readIds(result);
+        try {
+            final List<VerificationDecisionDTO> decisions = ids.stream()
+                    .map(id -> new VerificationDecisionDTO(id, true))
+                    .collect(Collectors.toList());
+
+            restAnnouncementMockMvc.perform(put("/api/announcements/verify")
+                    .contentType(TestUtil.APPLICATION_JSON_UTF8)
+                    .content(TestUtil.convertObjectToJsonBytes(decisions)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.[*].id").value(contains(ids.stream().map(Long::intValue).toArray())))
+                    .andExpect(jsonPath("$.[*].errors", everyItem(empty())));
+
+            assertThat(announcementRepository.findAll(ids)).extracting("verified").containsOnly(UPDATED_VERIFIED);
+        } finally {
+            restoreClaimed(ids);
+        }
+    }
+
+    /**
+     * Tests the maximal number of claimed Announcements
+     * <p>
+     * This test lowers the configured maximal claim to one Announcement, then claims more of them
+     * and asserts that only one is claimed. It also asserts that at least one Announcement is claimed
+     * when zero is requested. Claims are committed, so claimed Announcements are restored at the end.
+     *
+     * @throws Exception
+     */
+    @Test
+    @WithMockUser(authorities = AuthorityRoles.VERIFIER, username = DBUserMocker.VERIFIER_USERNAME)
+    public void claimAnnouncementsLimitedByMaxClaim() throws Exception {
+        final Object controller = AopTestUtils.getUltimateTargetObject(announcementController);
+        final Object maxClaimCount = ReflectionTestUtils.getField(controller, "maxClaimCount");
+        final List<Long> ids = new ArrayList<>();
+        try {
+            ReflectionTestUtils.setField(controller, "maxClaimCount", 1);
+
+            ids.addAll(readIds(restAnnouncementMockMvc.perform(post("/api/announcements/verification/claim")
+                    .param("count", "10"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(1)))
+                    .andReturn()));
+
+            ids.addAll(readIds(restAnnouncementMockMvc.perform(post("/api/announcements/verification/claim")
+                    .param("count", "0"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(1)))
+                    .andReturn()));
+        } finally {
+            ReflectionTestUtils.setField(controller, "maxClaimCount", maxClaimCount);
+            restoreClaimed(ids);
+        }
+    }
+
+    /**
+     * Tests whether Advertisers can claim Announcements for verification
+     * <p>
+     * This test attempts to claim Announcements as an Advertiser, which is forbidden.
+     *
+     * @throws Exception
+     */
+    @Test
+    @WithMockUser(authorities = AuthorityRoles.ADVERTISER, username = UserConstants.USER_USERNAME)
+    public void claimAnnouncementsWithAdvertiserAuthority() throws Exception {
+        restAnnouncementMockMvc.perform(post("/api/announcements/verification/claim"))
+                .andExpect(status().isForbidden());
+    }
+
+    /**
+     * Tests verification of Announcements which are not claimed
+     * <p>
+     * This test sends a decision about an Announcement which the Verifier didn't claim, and asserts
+     * that the decision is not applied and that its result holds an error.
+     *
+     * @throws Exception
+     */
+    @Test
+    @Transactional
+    @WithMockUser(authorities = AuthorityRoles.VERIFIER, username = DBUserMocker.VERIFIER_USERNAME)
+    public void verifyAnnouncementsNotClaimed() throws Exception {
+        final Announcement persisted = announcementRepository.saveAndFlush(announcement);
+
+        restAnnouncementMockMvc.perform(put("/api/announcements/verify")
+                .contentType(TestUtil.APPLICATION_JSON_UTF8)
+                .content(TestUtil.convertObjectToJsonBytes(
+                        Collections.singletonList(new VerificationDecisionDTO(persisted.getId(), true)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(nullValue()))
+                .andExpect(jsonPath("$[0].errors").value(hasItem(HeaderUtil.ERROR_MSG_NOT_CLAIMED)));
+
+        em.clear();
+        assertThat(announcementRepository.findOne(persisted.getId()).getVerified()).isEqualTo(DEFAULT_VERIFIED);
+    }
+
+    /**
+     * Tests verification of too many Announcements at once
+     * <p>
+     * This test sends one decision more than the configured maximal batch size, and asserts
+     * that "Bad request" status is returned with the error key for too large batches.
+     *
+     * @throws Exception
+     */
+    @Test
+    @Transactional
+    @WithMockUser(authorities = AuthorityRoles.VERIFIER, username = DBUserMocker.VERIFIER_USERNAME)
+    public void verifyAnnouncementsTooLarge() throws Exception {
+        final List<VerificationDecisionDTO> decisions = new ArrayList<>();
+        for (long i = 0; i <= maxBatchSize; i++)
+            decisions.add(new VerificationDecisionDTO(i, true));
+
+        final MvcResult result = restAnnouncementMockMvc.perform(put("/api/announcements/verify")
+                .contentType(TestUtil.APPLICATION_JSON_UTF8)
+                .content(TestUtil.convertObjectToJsonBytes(decisions)))
+                .andExpect(status().isBadRequest())
+                .andReturn();
+
+        final Integer errorKey = Integer.valueOf(result.getResponse().getHeader(HeaderUtil.SCT_HEADER_ERROR_KEY));
+        assertThat(errorKey).isEqualTo(HeaderUtil.ERROR_CODE_BATCH_TOO_LARGE);
+    }
+
+    /**
+     * Tests whether Advertisers can verify Announcements in batch
+     * <p>
+     * This test attempts to send verification decisions as an Advertiser, which is forbidden.
+     *
+     * @throws Exception
+     */
+    @Test
+    @Transactional
+    @WithMockUser(authorities = AuthorityRoles.ADVERTISER, username = UserConstants.USER_USERNAME)
+    public void verifyAnnouncementsWithAdvertiserAuthority() throws Exception {
+        restAnnouncementMockMvc.perform(put("/api/announcements/verify")
+                .contentType(TestUtil.APPLICATION_JSON_UTF8)
+                .content(TestUtil.convertObjectToJsonBytes(
+                        Collections.singletonList(new VerificationDecisionDTO(1L, true)))))
+                .andExpect(status().isForbidden());
+    }
+
+    /**
+     * Tests export of active Announcements
+     * <p>
+     * This test exports Announcements without accepted encodings, and asserts that one line
+     * is returned for every active Announcement and that the response is not compressed.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void exportAnnouncements() throws Exception {
+        final MvcResult result = restAnnouncementMockMvc.perform(get("/api/announcements/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn();
+
+        assertThat(readLines(result.getResponse().getContentAsByteArray())).hasSize(countActive());
+    }
+
+    /**
+     * Tests compressed export of active Announcements
+     * <p>
+     * This test exports Announcements accepting gzip, and asserts that the response is compressed
+     * and that it holds one line for every active Announcement.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void exportAnnouncementsWithGzip() throws Exception {
+        final MvcResult result = restAnnouncementMockMvc.perform(get("/api/announcements/export")
+                .header(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip;q=0.5"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn();
+
+        final byte[] content = IOUtils.toByteArray(
+                new GZIPInputStream(new ByteArrayInputStream(result.getResponse().getContentAsByteArray())));
+        assertThat(readLines(content)).hasSize(countActive());
+    }
+
+    /**
+     * Tests export when gzip is refused
+     * <p>
+     * This test exports Announcements with gzip listed with zero quality, which means that the client
+     * refuses it, and asserts that the response is not compressed.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void exportAnnouncementsWithGzipRefused() throws Exception {
+        final MvcResult result = restAnnouncementMockMvc.perform(get("/api/announcements/export")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, identity"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn();
+
+        assertThat(readLines(result.getResponse().getContentAsByteArray())).hasSize(countActive());
+    }
+
+    /**
+     * Tests facet counts of the search results
+     * <p>
+     * This test requests facets of Announcements within a price range, and asserts that
+     * total count matches the number of search results and that every price bucket is returned.
+     *
+     * @throws Exception
+     */
+    @Test
+    @Transactional
+    public void searchAnnouncementFacets() throws Exception {
+        announcementRepository.saveAndFlush(announcement);
+
+        final MvcResult search = restAnnouncementMockMvc.perform(get("/api/announcements/search")
+                .param("startPrice", String.valueOf(DEFAULT_PRICE - 1)))
+                .andExpect(status().isOk())
+                .andReturn();
+        final int total = Integer.valueOf(search.getResponse().getHeader("X-Total-Count"));
+
+        restAnnouncementMockMvc.perform(get("/api/announcements/search/facets")
+                .param("startPrice", String.valueOf(DEFAULT_PRICE - 1)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+                .andExpect(jsonPath("$.total").value(total))
+                .andExpect(jsonPath("$.price").isNotEmpty())
+                .andExpect(jsonPath("$.type." + DEFAULT_TYPE).value(greaterThanOrEqualTo(1)));
+    }
+
+    /**
+     * Tests listing Announcements without counting them
+     * <p>
+     * This test requests the first slice of Announcements, and asserts that <em>X-Has-Next</em> header is returned
+     * instead of <em>X-Total-Count</em>, and that Link header has no last page.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void getAllAnnouncementsAsSlice() throws Exception {
+        restAnnouncementMockMvc.perform(get("/api/announcements")
+                .param("count", "false")
+                .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(header().string("X-Has-Next", "true"))
+                .andExpect(header().doesNotExist("X-Total-Count"))
+                .andExpect(header().string(HttpHeaders.LINK, allOf(
+                        containsString("rel=\"next\""),
+                        not(containsString("rel=\"last\"")))));
+    }
+
+    /**
+     * Tests searching Announcements with estimated count
+     * <p>
+     * This test searches Announcements one at a time with estimate param, and asserts that
+     * estimated count and its error are returned instead of <em>X-Total-Count</em>.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void searchAnnouncementsWithEstimate() throws Exception {
+        restAnnouncementMockMvc.perform(get("/api/announcements/search")
+                .param("estimate", "true")
+                .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(header().string("X-Has-Next", "true"))
+                .andExpect(header().string("X-Total-Count-Estimate", notNullValue()))
+                .andExpect(header().string("X-Total-Count-Error", notNullValue()))
+                .andExpect(header().doesNotExist("X-Total-Count"));
+    }
+
+    /**
+     * Tests keyset pagination of Announcements
+     * <p>
+     * This test requests the first keyset page of Announcements sorted by id, follows the cursor
+     * from its Link header, and asserts that the next page continues after the last returned Announcement.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void getAllAnnouncementsByCursor() throws Exception {
+        final MvcResult first = restAnnouncementMockMvc.perform(get("/api/announcements")
+                .param("after", "")
+                .param("size", "2")
+                .param("sort", "id,asc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"next\"")))
+                .andReturn();
+
+        final List<Long> firstIds = readIds(first);
+        final Matcher cursor = Pattern.compile("after=([^&>]+)").matcher(first.getResponse().getHeader(HttpHeaders.LINK));
+        assertThat(cursor.find()).isTrue();
+
+        final MvcResult next = restAnnouncementMockMvc.perform(get("/api/announcements")
+                .param("after", cursor.group(1))
+                .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", not(empty())))
+                .andReturn();
+
+        for (Long id : readIds(next))
+            assertThat(id).isGreaterThan(firstIds.get(firstIds.size() - 1));
+    }
+
+    /**
+     * Tests keyset pagination with an invalid cursor
+     * <p>
+     * This test requests Announcements after a malformed cursor, and asserts that
+     * "Bad request" status is returned with the error key for invalid cursors.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void getAllAnnouncementsByInvalidCursor() throws Exception {
+        final MvcResult result = restAnnouncementMockMvc.perform(get("/api/announcements")
+                .param("after", "!!!"))
+                .andExpect(status().isBadRequest())
+                .andReturn();
+
+        final Integer errorKey = Integer.valueOf(result.getResponse().getHeader(HeaderUtil.SCT_HEADER_ERROR_KEY));
+        assertThat(errorKey).isEqualTo(HeaderUtil.ERROR_CODE_INVALID_CURSOR);
+    }
+
+    /**
+     * Reads ids of the Announcements returned in the response body.
+     *
+     * @param result result of the request
+     * @return ids of the Announcements
+     */
+    private static List<Long> readIds(MvcResult result) throws Exception {
+        final List<Number> ids = JsonPath.read(result.getResponse().getContentAsString(), "$[*].id");
+        return ids.stream().map(Number::longValue).collect(Collectors.toList());
+    }
+
+    private static List<String> readLines(byte[] content) {
+        final String text = new String(content, StandardCharsets.UTF_8);
+        return text.isEmpty() ? Collections.emptyList() : Arrays.asList(text.split("\n"));
+    }
+
+    private int countActive() {
+        return (int) announcementRepository.count(AnnouncementPredicates.active());
+    }
+
+    /**
+     * Releases claims of the Announcements and marks them as not verified again.
+     *
+     * @param ids ids of the claimed Announcements
+     */
+    private void restoreClaimed(List<Long> ids) {
+        if (ids.isEmpty())
+            return;
+
+        final List<Announcement> announcements = announcementRepository.findAll(ids);
+        for (Announcement claimed : announcements) {
+            claimed.setClaimedBy(null);
+            claimed.setClaimExpiresAt(null);
+            claimed.setVerified(DEFAULT_VERIFIED);
+        }
+        announcementRepository.save(announcements);
+    }
 }
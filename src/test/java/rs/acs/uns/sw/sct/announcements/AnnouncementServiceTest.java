@@ -7,18 +7,41 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.transaction.annotation.Transactional;
 import rs.acs.uns.sw.sct.SctServiceApplication;
+import rs.acs.uns.sw.sct.companies.Company;
+import rs.acs.uns.sw.sct.companies.CompanyRepository;
 import rs.acs.uns.sw.sct.constants.AnnouncementConstants;
 import rs.acs.uns.sw.sct.realestates.Location;
 import rs.acs.uns.sw.sct.realestates.RealEstate;
 import rs.acs.uns.sw.sct.search.AnnouncementSearchWrapper;
+import rs.acs.uns.sw.sct.search.SearchResultCache;
+import rs.acs.uns.sw.sct.users.User;
+import rs.acs.uns.sw.sct.users.UserRepository;
+import rs.acs.uns.sw.sct.util.CountEstimate;
+import rs.acs.uns.sw.sct.util.CursorPage;
 
 import javax.validation.ConstraintViolationException;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Java6Assertions.assertThat;
 import static rs.acs.uns.sw.sct.constants.AnnouncementConstants.*;
@@ -35,6 +58,15 @@ public class AnnouncementServiceTest {
     @Autowired
     private AnnouncementRepository announcementRepository;
 
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CompanyRepository companyRepository;
+
     private Announcement newAnnouncement;
     private Announcement updatedAnnouncement;
     private Announcement existingAnnouncement;
@@ -146,6 +178,98 @@ public class AnnouncementServiceTest {
         assertThat(announcements).hasSize(PAGE_SIZE);
     }
 
+    /**
+     * Tests pageable retrieval of Announcements as DTOs
+     * <p>
+     * This test requests one page of Announcement DTOs sorted by id, and asserts
+     * that every DTO matches the entity converted to DTO.
+     */
+    @Test
+    @Transactional
+    public void testFindAllAsDTOPageable() {
+        PageRequest pageRequest = new PageRequest(0, PAGE_SIZE, Sort.Direction.ASC, "id");
+        Page<AnnouncementDTO> announcements = announcementService.findAllByStatusAsDTO(null, pageRequest);
+
+        assertThat(announcements).hasSize(PAGE_SIZE);
+        assertThat(announcements.getTotalElements()).isEqualTo(DB_COUNT_ANNOUNCEMENT);
+        for (AnnouncementDTO dto : announcements) {
+            AnnouncementDTO expected = announcementService.findOne(dto.getId()).convertToDTO();
+            assertThat(dto.getName()).isEqualTo(expected.getName());
+            assertThat(dto.getPrice()).isEqualTo(expected.getPrice());
+            assertThat(dto.getAuthor().getId()).isEqualTo(expected.getAuthor().getId());
+            assertThat(dto.getRealEstate().getLocation().getCity())
+                    .isEqualTo(expected.getRealEstate().getLocation().getCity());
+            assertThat(dto.getImages()).hasSameSizeAs(expected.getImages());
+        }
+    }
+
+    /**
+     * Tests retrieval of Announcements as slices
+     * <p>
+     * This test requests the first and the last slice of Announcements, and asserts
+     * that only the first one reports the next slice.
+     */
+    @Test
+    @Transactional
+    public void testFindSliceByStatusAsDTO() {
+        Slice<AnnouncementDTO> first = announcementService.findSliceByStatusAsDTO(null, new PageRequest(0, PAGE_SIZE));
+        assertThat(first).hasSize(PAGE_SIZE);
+        assertThat(first.hasNext()).isTrue();
+
+        int lastPage = (DB_COUNT_ANNOUNCEMENT - 1) / PAGE_SIZE;
+        Slice<AnnouncementDTO> last = announcementService.findSliceByStatusAsDTO(null, new PageRequest(lastPage, PAGE_SIZE));
+        assertThat(last).hasSize(DB_COUNT_ANNOUNCEMENT - lastPage * PAGE_SIZE);
+        assertThat(last.hasNext()).isFalse();
+    }
+
+    /**
+     * Tests keyset pagination of Announcements
+     * <p>
+     * This test walks through all Announcements sorted by price, following the cursor
+     * of each page, and asserts that every Announcement is returned exactly once
+     * and that prices are not decreasing.
+     */
+    @Test
+    @Transactional
+    public void testFindAllByCursor() {
+        PageRequest pageRequest = new PageRequest(0, PAGE_SIZE, Sort.Direction.ASC, "price");
+        Set<Long> ids = new HashSet<>();
+        Double lastPrice = null;
+
+        String after = "";
+        while (after != null) {
+            CursorPage<AnnouncementDTO> page = announcementService.findAllByStatusAsDTO(null, after, pageRequest);
+            assertThat(page.getContent().size()).isLessThanOrEqualTo(PAGE_SIZE);
+            for (AnnouncementDTO dto : page.getContent()) {
+                assertThat(ids.add(dto.getId())).isTrue();
+                if (lastPrice != null)
+                    assertThat(dto.getPrice()).isGreaterThanOrEqualTo(lastPrice);
+                lastPrice = dto.getPrice();
+            }
+            after = page.getNextCursor();
+        }
+
+        assertThat(ids).hasSize(DB_COUNT_ANNOUNCEMENT);
+    }
+
+    /**
+     * Tests export of active Announcements
+     * <p>
+     * This test exports active Announcements as newline-delimited JSON, and asserts
+     * that there is one line for every Announcement which is not deleted.
+     */
+    @Test
+    @Transactional
+    public void testExportActive() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        announcementService.exportActive(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8.name()).split("\n");
+        assertThat(lines).hasSize(DB_COUNT_ANNOUNCEMENT_DELETED_FALSE.intValue());
+        for (String line : lines)
+            assertThat(line).startsWith("{").endsWith("}");
+    }
+
     /**
      * Tests retrieval of all Announcements
      * <p>
@@ -197,6 +321,48 @@ public class AnnouncementServiceTest {
         compareAnnouncements(dbAnnouncement, newAnnouncement);
     }
 
+    /**
+     * Tests adding multiple Announcements at once.
+     * <p>
+     * This test saves two new Announcements with their new RealEstates and Locations,
+     * and asserts that both are in the database and have no validation errors.
+     */
+    @Test
+    @Transactional
+    public void testSaveAll() {
+        int dbSizeBeforeAdd = announcementRepository.findAll().size();
+
+        List<AnnouncementBatchResultDTO> results = announcementService.saveAll(
+                Arrays.asList(createNewEntity(), createNewEntity()));
+
+        assertThat(results).hasSize(2);
+        for (AnnouncementBatchResultDTO result : results) {
+            assertThat(result.getErrors()).isEmpty();
+            assertThat(result.getId()).isNotNull();
+        }
+        assertThat(announcementRepository.findAll()).hasSize(dbSizeBeforeAdd + 2);
+    }
+
+    /**
+     * Tests adding multiple Announcements at once, when one of them is not valid.
+     * <p>
+     * This test saves a valid Announcement together with an Announcement without price,
+     * and asserts that only the invalid one has errors and that none of them were saved.
+     */
+    @Test
+    @Transactional
+    public void testSaveAllWithInvalidAnnouncement() {
+        int dbSizeBeforeAdd = announcementRepository.findAll().size();
+
+        List<AnnouncementBatchResultDTO> results = announcementService.saveAll(
+                Arrays.asList(createNewEntity(), createNewEntity().price(null)));
+
+        assertThat(results.get(0).getErrors()).isEmpty();
+        assertThat(results.get(1).getErrors()).hasSize(1);
+        assertThat(results.get(1).getErrors().get(0)).startsWith("price");
+        assertThat(announcementRepository.findAll()).hasSize(dbSizeBeforeAdd);
+    }
+
     /**
      * Tests updating of Announcements.
      * <p>
@@ -287,6 +453,176 @@ public class AnnouncementServiceTest {
         }
     }
 
+    /**
+     * Tests that top three Announcements follow Announcement changes
+     * <p>
+     * This test saves the new cheapest Announcement of the company and asserts that it is
+     * the first of the top Announcements, then expires it and asserts that it is not.
+     */
+    @Test
+    @Transactional
+    public void testTopThreeAnnouncementsAfterSave() {
+        Announcement cheapest = createNewEntity()
+                .price(0.5)
+                .expirationDate(new Date(System.currentTimeMillis() + 24 * 60 * 60 * 1000))
+                .author(userRepository.findOne(COMPANY_MEMBER_ID));
+        announcementRepository.saveAndFlush(cheapest);
+
+        List<Announcement> dbAnnouncements = announcementService.findTopByCompany(COMPANY_ID);
+        assertThat(dbAnnouncements.get(0).getId()).isEqualTo(cheapest.getId());
+
+        announcementRepository.saveAndFlush(cheapest.expirationDate(new Date(System.currentTimeMillis() - 1000)));
+
+        dbAnnouncements = announcementService.findTopByCompany(COMPANY_ID);
+        assertThat(dbAnnouncements).extracting("id").doesNotContain(cheapest.getId());
+    }
+
+    /**
+     * Tests that top three Announcements contain only active Announcements
+     * <p>
+     * This test saves two Announcements of the company, cheaper than all others, one of which is deleted
+     * and the other one scheduled for publishing, and asserts that neither of them is among the top Announcements.
+     */
+    @Test
+    @Transactional
+    public void testTopThreeAnnouncementsSkipsInactive() {
+        final Date tomorrow = new Date(System.currentTimeMillis() + 24 * 60 * 60 * 1000);
+        Announcement deleted = createNewEntity()
+                .price(0.5)
+                .expirationDate(tomorrow)
+                .author(userRepository.findOne(COMPANY_MEMBER_ID))
+                .deleted(true);
+        Announcement scheduled = createNewEntity()
+                .price(0.5)
+                .expirationDate(tomorrow)
+                .author(userRepository.findOne(COMPANY_MEMBER_ID))
+                .publishAt(tomorrow);
+        announcementRepository.save(deleted);
+        announcementRepository.saveAndFlush(scheduled);
+
+        List<Announcement> dbAnnouncements = announcementService.findTopByCompany(COMPANY_ID);
+        assertThat(dbAnnouncements).extracting("id").doesNotContain(deleted.getId(), scheduled.getId());
+    }
+
+    /**
+     * Tests expiring Announcements
+     * <p>
+     * This test saves one Announcement whose expiration date has passed and one which is extended,
+     * and asserts that only the first one is marked as expired.
+     */
+    @Test
+    @Transactional
+    public void testExpire() {
+        Announcement past = createNewEntity().expirationDate(new Date(System.currentTimeMillis() - 1000));
+        Announcement extended = createNewEntity().expirationDate(new Date(System.currentTimeMillis() + 24 * 60 * 60 * 1000));
+        announcementRepository.save(past);
+        announcementRepository.saveAndFlush(extended);
+
+        announcementService.expire(Arrays.asList(past.getId(), extended.getId()), new Date());
+        announcementRepository.flush();
+
+        assertThat(announcementService.findOne(past.getId()).isExpired()).isTrue();
+        assertThat(announcementService.findOne(extended.getId()).isExpired()).isFalse();
+    }
+
+    /**
+     * Tests claiming Announcements for verification and deciding about them
+     * <p>
+     * This test claims Announcements as one verifier, asserts that another verifier can't claim
+     * or verify them, then verifies them as the first verifier and asserts that they are no longer claimable.
+     * Claims are committed, so claimed Announcements are restored at the end.
+     */
+    @Test
+    public void testClaimAndVerify() {
+        List<Announcement> claimed = announcementService.claimForVerification("first_verifier", 2);
+        List<Long> ids = claimed.stream().map(Announcement::getId).collect(Collectors.toCollection(ArrayList::new));
+        try {
+            assertThat(claimed).isNotEmpty();
+            assertThat(claimed).extracting("verified").containsOnly(DEFAULT_VERIFIED);
+
+            List<Announcement> others = announcementService.claimForVerification("second_verifier", Integer.MAX_VALUE);
+            others.forEach(announcement -> ids.add(announcement.getId()));
+            assertThat(others).extracting("id").doesNotContain(claimed.stream().map(Announcement::getId).toArray());
+
+            List<VerificationDecisionDTO> decisions = claimed.stream()
+                    .map(announcement -> new VerificationDecisionDTO(announcement.getId(), true))
+                    .collect(Collectors.toList());
+            for (AnnouncementBatchResultDTO result : announcementService.decideAll("second_verifier", decisions)) {
+                assertThat(result.getId()).isNull();
+                assertThat(result.getErrors()).isNotEmpty();
+            }
+            assertThat(announcementService.decideAll("first_verifier", decisions))
+                    .extracting("id").containsExactly(claimed.stream().map(Announcement::getId).toArray());
+
+            assertThat(announcementRepository.findClaimableIds(new Date(), Integer.MAX_VALUE))
+                    .doesNotContain(ids.toArray(new Long[ids.size()]));
+        } finally {
+            restoreClaimed(ids);
+        }
+    }
+
+    /**
+     * Tests claiming Announcements by concurrent verifiers
+     * <p>
+     * This test lets two verifiers claim Announcements at the same time, each asking for more
+     * than half of the claimable ones. It asserts that no Announcement is claimed by both of them,
+     * and that together they claimed all claimable Announcements.
+     * Claims are committed, so claimed Announcements are restored at the end.
+     */
+    @Test
+    public void testConcurrentClaims() throws Exception {
+        final List<Long> claimable = announcementRepository.findClaimableIds(new Date(), Integer.MAX_VALUE);
+        assertThat(claimable.size()).isGreaterThan(1);
+        final int count = claimable.size() / 2 + 1;
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Long> ids = new ArrayList<>();
+        try {
+            final Future<List<Announcement>> first = executor.submit(() -> {
+                start.await();
+                return announcementService.claimForVerification("first_verifier", count);
+            });
+            final Future<List<Announcement>> second = executor.submit(() -> {
+                start.await();
+                return announcementService.claimForVerification("second_verifier", count);
+            });
+            start.countDown();
+
+            final List<Long> firstIds = first.get(30, TimeUnit.SECONDS).stream()
+                    .map(Announcement::getId).collect(Collectors.toList());
+            final List<Long> secondIds = second.get(30, TimeUnit.SECONDS).stream()
+                    .map(Announcement::getId).collect(Collectors.toList());
+            ids.addAll(firstIds);
+            ids.addAll(secondIds);
+
+            assertThat(firstIds).doesNotContain(secondIds.toArray(new Long[secondIds.size()]));
+            assertThat(ids).containsOnly(claimable.toArray(new Long[claimable.size()]));
+            assertThat(ids).hasSize(claimable.size());
+        } finally {
+            executor.shutdownNow();
+            restoreClaimed(ids);
+        }
+    }
+
+    /**
+     * Releases claims of the Announcements and marks them as not verified again.
+     *
+     * @param ids ids of the claimed Announcements
+     */
+    private void restoreClaimed(List<Long> ids) {
+        if (ids.isEmpty())
+            return;
+
+        List<Announcement> announcements = announcementRepository.findAll(ids);
+        for (Announcement announcement : announcements) {
+            announcement.setClaimedBy(null);
+            announcement.setClaimExpiresAt(null);
+            announcement.setVerified(DEFAULT_VERIFIED);
+        }
+        announcementRepository.save(announcements);
+    }
+
     /*
      * Negative tests
      */
@@ -304,6 +640,7 @@ public class AnnouncementServiceTest {
     public void testAddNullPrice() {
         newAnnouncement.price(null);
         announcementService.save(newAnnouncement);
+        announcementRepository.flush();
     }
 
     /**
@@ -319,6 +656,7 @@ public class AnnouncementServiceTest {
     public void testAddNullDateAnnounced() {
         newAnnouncement.dateAnnounced(null);
         announcementService.save(newAnnouncement);
+        announcementRepository.flush();
     }
 
     /**
@@ -334,6 +672,7 @@ public class AnnouncementServiceTest {
     public void testAddNullExpirationDate() {
         newAnnouncement.setExpirationDate(null);
         announcementService.save(newAnnouncement);
+        announcementRepository.flush();
     }
 
     /**
@@ -349,6 +688,7 @@ public class AnnouncementServiceTest {
     public void testAddNullTelephoneNo() {
         newAnnouncement.setPhoneNumber(null);
         announcementService.save(newAnnouncement);
+        announcementRepository.flush();
     }
 
     /**
@@ -364,6 +704,7 @@ public class AnnouncementServiceTest {
     public void testAddNullType() {
         newAnnouncement.setType(null);
         announcementService.save(newAnnouncement);
+        announcementRepository.flush();
     }
 
 
@@ -380,6 +721,7 @@ public class AnnouncementServiceTest {
     public void testAddNullName() {
         newAnnouncement.setName(null);
         announcementService.save(newAnnouncement);
+        announcementRepository.flush();
     }
 
 
@@ -396,6 +738,7 @@ public class AnnouncementServiceTest {
     public void testAddNullDescription() {
         newAnnouncement.setDescription(null);
         announcementService.save(newAnnouncement);
+        announcementRepository.flush();
     }
 
     /**
@@ -513,6 +856,34 @@ public class AnnouncementServiceTest {
         }
     }
 
+    /**
+     * Tests listing and searching for inactive Announcements
+     * <p>
+     * This test saves one active, one expired and one not yet published Announcement
+     * with the same name, then asserts that only the active one is listed, searched by name
+     * and found in its area.
+     */
+    @Test
+    @Transactional
+    public void searchInactiveAnnouncements() {
+        final String name = "inactive-search";
+        Announcement active = announcementRepository.save(createNewEntity().name(name));
+        Announcement expired = announcementRepository.save(createNewEntity().name(name).expired(true));
+        Announcement scheduled = announcementRepository.saveAndFlush(createNewEntity().name(name)
+                .publishAt(new Date(System.currentTimeMillis() + 24 * 60 * 60 * 1000)));
+
+        final Long[] inactiveIds = {expired.getId(), scheduled.getId()};
+
+        assertThat(announcementService.findAllByStatus(false, null).getContent()).extracting("id")
+                .contains(active.getId())
+                .doesNotContain(inactiveIds);
+        assertThat(announcementService.findBySearchTerm(new AnnouncementSearchWrapper().name(name), PAGEABLE).getContent())
+                .extracting("id")
+                .containsOnly(active.getId());
+        assertThat(announcementService.findAllInArea(90.5, 90.5, 89.5, 89.5, PAGEABLE).getContent()).extracting("id")
+                .doesNotContain(inactiveIds);
+    }
+
     /**
      * Tests searching for all announcements in provided area
      * <p>
@@ -540,4 +911,307 @@ public class AnnouncementServiceTest {
         }
     }
 
+    /**
+     * Tests paginated search for announcements in provided area
+     * <p>
+     * This test requests only the first announcement in provided square and
+     * asserts that total count still matches number of all announcements in
+     * database which satisfies this condition, meaning that area filtering
+     * is performed before pagination.
+     *
+     * @throws Exception
+     */
+    @Test
+    @Transactional
+    public void searchAnnouncementsInAreaPaginated() throws Exception {
+
+        final Double topRightLong = 20.0;
+        final Double topRightLat = 46.0;
+        final Double bottomLeftLong = 18.0;
+        final Double bottomLeftLat = 45.0;
+
+        final Page<Announcement> announcements = announcementService.findAllInArea(topRightLong, topRightLat, bottomLeftLong, bottomLeftLat, new PageRequest(0, 1));
+
+        assertThat(announcements.getContent()).hasSize(1);
+        assertThat(announcements.getTotalElements()).isEqualTo(ANNOUNCEMENTS_IN_AREA.longValue());
+    }
+
+    /**
+     * Tests searching Announcements in area after their location is changed
+     * <p>
+     * This test moves location of an Announcement and commits the change, then asserts that
+     * the Announcement is found in the new area and not in the old one, once indexes are updated
+     * after commit. The location is moved back at the end.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void searchAnnouncementsInAreaAfterCommit() throws Exception {
+        final Announcement announcement = announcementService.findOne(ID);
+        final Location location = announcement.getRealEstate().getLocation();
+        final Double latitude = location.getLatitude();
+        final Double longitude = location.getLongitude();
+        try {
+            location.latitude(-33.87).longitude(151.21);
+            announcementService.save(announcement);
+
+            assertThat(awaitInArea(-33.87, 151.21)).contains(ID);
+            assertThat(findIdsInArea(latitude, longitude)).doesNotContain(ID);
+        } finally {
+            location.latitude(latitude).longitude(longitude);
+            announcementService.save(announcement);
+            assertThat(awaitInArea(latitude, longitude)).contains(ID);
+        }
+    }
+
+    /**
+     * Finds ids of Announcements near the provided point, waiting until Announcement
+     * with the test id is there, since locations are reindexed asynchronously after commit.
+     *
+     * @param latitude  latitude of the point
+     * @param longitude longitude of the point
+     * @return ids of Announcements near the point
+     */
+    private List<Long> awaitInArea(Double latitude, Double longitude) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        List<Long> ids = findIdsInArea(latitude, longitude);
+        while (!ids.contains(ID) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            ids = findIdsInArea(latitude, longitude);
+        }
+        return ids;
+    }
+
+    private List<Long> findIdsInArea(Double latitude, Double longitude) {
+        return announcementService.findAllInArea(longitude + 0.01, latitude + 0.01, longitude - 0.01, latitude - 0.01, PAGEABLE)
+                .getContent().stream().map(Announcement::getId).collect(Collectors.toList());
+    }
+
+    /**
+     * Tests search using keywords
+     * <p>
+     * This test saves an Announcement to the database, then searches
+     * by words from its name and description written in different case.
+     * It asserts that saved Announcement is found and that every result
+     * contains all of the keywords.
+     *
+     * @throws Exception
+     */
+    @Test
+    @Transactional
+    public void searchAnnouncementsByKeywords() throws Exception {
+        Announcement persisted = announcementRepository.saveAndFlush(newAnnouncement);
+
+        AnnouncementSearchWrapper wrapper = new AnnouncementSearchWrapper()
+                .keywords("NEW, Desc");
+
+        Page<Announcement> result = announcementService.findBySearchTerm(wrapper, PAGEABLE);
+
+        assertThat(result).extracting("id").contains(persisted.getId());
+        for (Announcement ann : result) {
+            final String text = (ann.getName() + " " + ann.getDescription()).toLowerCase();
+            assertThat(text).contains("new").contains("desc");
+        }
+    }
+
+    /**
+     * Tests that keywords match whole words
+     * <p>
+     * This test saves an Announcement to the database, then searches by a part
+     * of a word from its name and asserts that saved Announcement is not found.
+     */
+    @Test
+    @Transactional
+    public void searchAnnouncementsByKeywordsMatchesWholeWords() {
+        Announcement persisted = announcementRepository.saveAndFlush(newAnnouncement);
+
+        AnnouncementSearchWrapper wrapper = new AnnouncementSearchWrapper()
+                .keywords("nam");
+
+        Page<Announcement> result = announcementService.findBySearchTerm(wrapper, PAGEABLE);
+
+        assertThat(result).extracting("id").doesNotContain(persisted.getId());
+    }
+
+    /**
+     * Tests that keywords match whole words when they match more announcements than the candidate limit
+     * <p>
+     * This test saves one Announcement with a word in its description, and another one with a longer word
+     * which starts with it, then lowers the candidate limit of the full text index, so the search
+     * is served by the database. It asserts that only the Announcement with the whole word is found.
+     */
+    @Test
+    @Transactional
+    public void searchAnnouncementsByKeywordsAboveCandidateLimit() {
+        Announcement withWord = announcementRepository.saveAndFlush(newAnnouncement.description("Big garden, renovated."));
+        Announcement withLongerWord = announcementRepository.saveAndFlush(createNewEntity().description("gardenia"));
+
+        final Object service = AopTestUtils.getUltimateTargetObject(announcementService);
+        final Object maxTextCandidates = ReflectionTestUtils.getField(service, "maxTextCandidates");
+        try {
+            ReflectionTestUtils.setField(service, "maxTextCandidates", 0);
+
+            AnnouncementSearchWrapper wrapper = new AnnouncementSearchWrapper()
+                    .keywords("GARDEN");
+
+            Page<Announcement> result = announcementService.findBySearchTerm(wrapper, PAGEABLE);
+
+            assertThat(result).extracting("id").contains(withWord.getId()).doesNotContain(withLongerWord.getId());
+        } finally {
+            ReflectionTestUtils.setField(service, "maxTextCandidates", maxTextCandidates);
+        }
+    }
+
+    /**
+     * Tests search by combination of amenities
+     * <p>
+     * This test searches for announcements with intercom and without internet,
+     * and asserts that number of results is same as number of undeleted
+     * announcements in database which satisfy this condition.
+     *
+     * @throws Exception
+     */
+    @Test
+    @Transactional
+    public void searchAnnouncementsByAmenities() throws Exception {
+        final long expected = announcementService.findAllByStatus(false, null).getContent().stream()
+                .filter(ann -> Boolean.TRUE.equals(ann.getRealEstate().getIntercom()))
+                .filter(ann -> Boolean.FALSE.equals(ann.getRealEstate().getInternet()))
+                .count();
+
+        AnnouncementSearchWrapper wrapper = new AnnouncementSearchWrapper()
+                .intercom(true)
+                .internet(false);
+
+        Page<Announcement> result = announcementService.findBySearchTerm(wrapper, PAGEABLE);
+
+        assertThat(result.getTotalElements()).isEqualTo(expected);
+        for (Announcement ann : result) {
+            assertThat(ann.getRealEstate().getIntercom()).isTrue();
+            assertThat(ann.getRealEstate().getInternet()).isFalse();
+        }
+    }
+
+    /**
+     * Test of findFacetsBySearchTerm method.
+     * <p>
+     * This test asserts that facet total equals the number of search results
+     * and that buckets of every single-valued facet add up to that total.
+     *
+     * @throws Exception
+     */
+    @Test
+    @Transactional
+    public void searchFacetsCountsMatchSearchResults() throws Exception {
+        AnnouncementSearchWrapper wrapper = new AnnouncementSearchWrapper();
+
+        AnnouncementFacetsDTO facets = announcementService.findFacetsBySearchTerm(wrapper);
+        Page<Announcement> result = announcementService.findBySearchTerm(wrapper, PAGEABLE);
+
+        assertThat(facets.getTotal()).isEqualTo(result.getTotalElements());
+        assertThat(facets.getPrice().values().stream().mapToLong(Long::longValue).sum()).isEqualTo(facets.getTotal());
+        assertThat(facets.getArea().values().stream().mapToLong(Long::longValue).sum()).isEqualTo(facets.getTotal());
+        assertThat(facets.getType().values().stream().mapToLong(Long::longValue).sum()).isEqualTo(facets.getTotal());
+    }
+
+    /**
+     * Tests count estimate of searched Announcements
+     * <p>
+     * Table in the test database is smaller than the sample, so this test asserts
+     * that the estimate is exact and equal to the total of the search.
+     */
+    @Test
+    @Transactional
+    public void searchEstimateIsExactForSmallTable() throws Exception {
+        AnnouncementSearchWrapper wrapper = new AnnouncementSearchWrapper();
+
+        CountEstimate estimate = announcementService.estimateBySearchTerm(wrapper);
+        Page<Announcement> result = announcementService.findBySearchTerm(wrapper, PAGEABLE);
+
+        assertThat(estimate.isExact()).isTrue();
+        assertThat(estimate.getValue()).isEqualTo(result.getTotalElements());
+    }
+
+    /**
+     * Tests that repeated search is served from the search result cache
+     * <p>
+     * This test searches twice with equivalent params written in different case,
+     * and asserts that second search is a cache hit which returns the same result.
+     * Then it searches twice for entities, and asserts that they are not served from the cache.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void searchAnnouncementsServedFromCache() throws Exception {
+        final long hits = searchResultCache.getStatistics().getHits();
+
+        Page<AnnouncementDTO> first = announcementService.findBySearchTermAsDTO(
+                new AnnouncementSearchWrapper().city("Novi Sad").startPrice(0.0).endPrice(PRICE), PAGEABLE);
+        Page<AnnouncementDTO> second = announcementService.findBySearchTermAsDTO(
+                new AnnouncementSearchWrapper().city("NOVI SAD").startPrice(0.0).endPrice(PRICE), PAGEABLE);
+
+        assertThat(searchResultCache.getStatistics().getHits()).isEqualTo(hits + 1);
+        assertThat(second).isSameAs(first);
+
+        Page<Announcement> firstEntities = announcementService.findBySearchTerm(
+                new AnnouncementSearchWrapper().city("Novi Sad").startPrice(0.0).endPrice(PRICE), PAGEABLE);
+        Page<Announcement> secondEntities = announcementService.findBySearchTerm(
+                new AnnouncementSearchWrapper().city("Novi Sad").startPrice(0.0).endPrice(PRICE), PAGEABLE);
+
+        assertThat(searchResultCache.getStatistics().getHits()).isEqualTo(hits + 1);
+        assertThat(secondEntities).isNotSameAs(firstEntities);
+    }
+
+    /**
+     * Tests that cached search results follow changes of authors
+     * <p>
+     * This test caches a search result, then changes first name of the author of its Announcements,
+     * and asserts that repeated search is not served from the cache and shows the new name.
+     */
+    @Test
+    public void searchCacheInvalidatedByAuthorChange() {
+        final AnnouncementSearchWrapper wrapper = new AnnouncementSearchWrapper().type("buy");
+        announcementService.findBySearchTermAsDTO(wrapper, PAGEABLE);
+
+        final User author = userRepository.findOne(COMPANY_MEMBER_ID);
+        final String firstName = author.getFirstName();
+        try {
+            userRepository.save(author.firstName("Changed"));
+            final long hits = searchResultCache.getStatistics().getHits();
+
+            final Page<AnnouncementDTO> result = announcementService.findBySearchTermAsDTO(wrapper, PAGEABLE);
+
+            assertThat(searchResultCache.getStatistics().getHits()).isEqualTo(hits);
+            assertThat(result).extracting("author.firstName").contains("Changed");
+        } finally {
+            userRepository.save(userRepository.findOne(COMPANY_MEMBER_ID).firstName(firstName));
+        }
+    }
+
+    /**
+     * Tests that cached search results follow changes of companies
+     * <p>
+     * This test caches a search result, then changes name of the company of its Announcements' author,
+     * and asserts that repeated search is not served from the cache and shows the new name.
+     */
+    @Test
+    public void searchCacheInvalidatedByCompanyChange() {
+        final AnnouncementSearchWrapper wrapper = new AnnouncementSearchWrapper().type("buy");
+        announcementService.findBySearchTermAsDTO(wrapper, PAGEABLE);
+
+        final Company company = companyRepository.findOne(COMPANY_ID);
+        final String name = company.getName();
+        try {
+            companyRepository.save(company.name("Changed"));
+            final long hits = searchResultCache.getStatistics().getHits();
+
+            final Page<AnnouncementDTO> result = announcementService.findBySearchTermAsDTO(wrapper, PAGEABLE);
+
+            assertThat(searchResultCache.getStatistics().getHits()).isEqualTo(hits);
+            assertThat(result).extracting("author.company.name").contains("Changed");
+        } finally {
+            companyRepository.save(companyRepository.findOne(COMPANY_ID).name(name));
+        }
+    }
+
 }
@@ -201,6 +201,7 @@ public class CommentServiceTest {
     public void testAddNullContent() {
         newComment.setContent(null);
         commentService.save(newComment);
+        commentRepository.flush();
         // rollback previous content
         newComment.setContent(NEW_CONTENT);
     }
@@ -218,6 +219,7 @@ public class CommentServiceTest {
     public void testAddNullDate() {
         newComment.setDate(null);
         commentService.save(newComment);
+        commentRepository.flush();
         // rollback previous date
         newComment.setDate(NEW_DATE);
     }
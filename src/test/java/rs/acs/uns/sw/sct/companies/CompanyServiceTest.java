@@ -157,6 +157,26 @@ public class CompanyServiceTest {
         compareCompanies(updatedDbCompany, updatedCompany);
     }
 
+    /**
+     * Tests that update of a Company is visible through the second-level cache
+     * <p>
+     * This test reads a Company, so it is cached, then saves changes using the service
+     * outside of a test transaction, and asserts that the Company read afterwards is the updated one.
+     * The Company is restored at the end.
+     */
+    @Test
+    public void testUpdateWithEntityCache() {
+        Company dbCompany = companyService.findOne(ID);
+        compareCompanies(dbCompany, existingCompany);
+
+        companyService.save(dbCompany.name(UPDATED_NAME).address(UPDATED_ADDRESS).phoneNumber(UPDATED_PHONE_NUMBER));
+        try {
+            compareCompanies(companyService.findOne(ID), updatedCompany);
+        } finally {
+            companyService.save(companyService.findOne(ID).name(NAME).address(ADDRESS).phoneNumber(PHONE_NUMBER));
+        }
+    }
+
     /**
      * Tests removal of Company
      * <p>
@@ -197,6 +217,7 @@ public class CompanyServiceTest {
     public void testAddNullName() {
         newCompany.setName(null);
         companyService.save(newCompany);
+        companyRepository.flush();
         // rollback previous name
         newCompany.setName(NEW_NAME);
     }
@@ -214,6 +235,7 @@ public class CompanyServiceTest {
     public void testAddNullAddress() {
         newCompany.setAddress(null);
         companyService.save(newCompany);
+        companyRepository.flush();
         // rollback previous address
         newCompany.setAddress(NEW_ADDRESS);
     }
@@ -231,6 +253,7 @@ public class CompanyServiceTest {
     public void testAddNullTelephoneNo() {
         newCompany.setPhoneNumber(null);
         companyService.save(newCompany);
+        companyRepository.flush();
         // rollback previous telephone no
         newCompany.setPhoneNumber(NEW_PHONE_NUMBER);
     }
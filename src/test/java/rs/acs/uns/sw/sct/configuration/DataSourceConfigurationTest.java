@@ -0,0 +1,40 @@
+package rs.acs.uns.sw.sct.configuration;
+
+import org.apache.tomcat.jdbc.pool.DataSource;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import rs.acs.uns.sw.sct.SctServiceApplication;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = SctServiceApplication.class)
+@ActiveProfiles("test")
+public class DataSourceConfigurationTest {
+
+    private static final int MAX_ACTIVE = 20;
+
+    @Autowired
+    private javax.sql.DataSource dataSource;
+
+    /**
+     * Tests configuration of the connection pool of the primary database
+     * <p>
+     * This test asserts that connections are validated on borrow with the validation query
+     * of the driver, and that <em>spring.datasource.tomcat.*</em> properties are applied to the pool.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testPrimaryPoolConfiguration() throws Exception {
+        final DataSource pool = dataSource.unwrap(InstrumentedDataSource.class).getPool();
+
+        assertThat(pool.isTestOnBorrow()).isTrue();
+        assertThat(pool.getValidationQuery()).isEqualTo("SELECT 1");
+        assertThat(pool.getMaxActive()).isEqualTo(MAX_ACTIVE);
+    }
+}
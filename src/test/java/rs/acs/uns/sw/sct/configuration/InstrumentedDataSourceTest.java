@@ -0,0 +1,101 @@
+package rs.acs.uns.sw.sct.configuration;
+
+import org.apache.tomcat.jdbc.pool.DataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import rs.acs.uns.sw.sct.metrics.ConnectionLeakDTO;
+import rs.acs.uns.sw.sct.metrics.ConnectionPoolStatisticsDTO;
+
+import java.sql.Connection;
+import java.util.List;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+public class InstrumentedDataSourceTest {
+
+    private static final long LEAK_THRESHOLD_MILLIS = 10;
+
+    private DataSource pool;
+
+    /**
+     * Creates pool of an in-memory database.
+     */
+    @Before
+    public void initTest() {
+        pool = new DataSource();
+        pool.setDriverClassName("org.h2.Driver");
+        pool.setUrl("jdbc:h2:mem:instrumented_test;DB_CLOSE_DELAY=-1");
+    }
+
+    /**
+     * Closes the pool.
+     */
+    @After
+    public void cleanUp() {
+        pool.close();
+    }
+
+    /**
+     * Tests closing a connection more than once
+     * <p>
+     * This test closes the same connection twice, and asserts that its usage is recorded only once,
+     * that it is returned to the pool, and that it is reported as a released leak only once.
+     */
+    @Test
+    public void testDoubleClose() throws Exception {
+        final InstrumentedDataSource dataSource = new InstrumentedDataSource("test", pool, LEAK_THRESHOLD_MILLIS);
+
+        final Connection connection = dataSource.getConnection();
+        Thread.sleep(2 * LEAK_THRESHOLD_MILLIS);
+        connection.close();
+        connection.close();
+
+        final ConnectionPoolStatisticsDTO statistics = dataSource.getStatistics();
+        assertThat(statistics.getAcquireTime().getCount()).isEqualTo(1);
+        assertThat(statistics.getUsageTime().getCount()).isEqualTo(1);
+        assertThat(statistics.getActive()).isZero();
+        assertThat(statistics.getLeaks()).hasSize(1);
+        assertThat(statistics.getLeaks().get(0).getReleased()).isTrue();
+    }
+
+    /**
+     * Tests detection of a connection held longer than the threshold
+     * <p>
+     * This test holds a connection longer than the threshold, and asserts that it is reported
+     * together with the stack which acquired it, starting with the caller of the pool.
+     */
+    @Test
+    public void testLeakDetection() throws Exception {
+        final InstrumentedDataSource dataSource = new InstrumentedDataSource("test", pool, LEAK_THRESHOLD_MILLIS);
+
+        try (Connection connection = dataSource.getConnection()) {
+            Thread.sleep(2 * LEAK_THRESHOLD_MILLIS);
+
+            final List<ConnectionLeakDTO> leaks = dataSource.getStatistics().getLeaks();
+            assertThat(leaks).hasSize(1);
+            assertThat(leaks.get(0).getReleased()).isFalse();
+            assertThat(leaks.get(0).getHeldMillis()).isGreaterThanOrEqualTo(LEAK_THRESHOLD_MILLIS);
+            assertThat(leaks.get(0).getStackTrace().get(0)).contains(InstrumentedDataSourceTest.class.getName());
+        }
+    }
+
+    /**
+     * Tests disabled leak detection
+     * <p>
+     * This test holds a connection with leak detection disabled, and asserts that times are still
+     * measured, but no leak is reported.
+     */
+    @Test
+    public void testLeakDetectionDisabled() throws Exception {
+        final InstrumentedDataSource dataSource = new InstrumentedDataSource("test", pool, 0);
+
+        try (Connection connection = dataSource.getConnection()) {
+            Thread.sleep(2 * LEAK_THRESHOLD_MILLIS);
+        }
+
+        final ConnectionPoolStatisticsDTO statistics = dataSource.getStatistics();
+        assertThat(statistics.getUsageTime().getCount()).isEqualTo(1);
+        assertThat(statistics.getLeaks()).isEmpty();
+    }
+}
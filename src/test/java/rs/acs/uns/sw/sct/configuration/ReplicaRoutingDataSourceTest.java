@@ -0,0 +1,138 @@
+package rs.acs.uns.sw.sct.configuration;
+
+import org.apache.tomcat.jdbc.pool.DataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+public class ReplicaRoutingDataSourceTest {
+
+    private static final long REPLICA_LAG_MILLIS = 60000;
+    private static final long MAX_REPLICA_LAG_MILLIS = 120000;
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    /**
+     * Creates routing data source with two replicas, whose pools are never connected,
+     * and starts transaction synchronization of the current thread.
+     */
+    @Before
+    public void initTest() {
+        routingDataSource = new ReplicaRoutingDataSource(new DataSource(), Arrays.asList(new DataSource(), new DataSource()),
+                REPLICA_LAG_MILLIS, MAX_REPLICA_LAG_MILLIS, 0);
+        TransactionSynchronizationManager.initSynchronization();
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("user", null));
+    }
+
+    /**
+     * Clears transaction state and authentication of the current thread.
+     */
+    @After
+    public void cleanUp() {
+        TransactionSynchronizationManager.clear();
+        SecurityContextHolder.clearContext();
+    }
+
+    /**
+     * Tests routing of read-write and read-only transactions
+     * <p>
+     * This test asserts that read-write transactions go to the primary, and that
+     * read-only transactions go to both replicas in turns.
+     */
+    @Test
+    public void testReadOnlyTransactionsUseReplicas() {
+        assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.PRIMARY);
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        final List<Object> keys = new ArrayList<>();
+        for (int i = 0; i < 4; i++)
+            keys.add(routingDataSource.determineCurrentLookupKey());
+
+        assertThat(keys).doesNotContain(ReplicaRoutingDataSource.PRIMARY);
+        assertThat(keys).containsOnly("replica-0", "replica-1");
+        assertThat(keys.get(0)).isNotEqualTo(keys.get(1));
+    }
+
+    /**
+     * Tests routing of a user who recently committed a write
+     * <p>
+     * This test commits a read-write transaction of the user, then asserts that
+     * read-only transactions of the same user go to the primary, while reads
+     * of another user still go to a replica.
+     */
+    @Test
+    public void testRecentWriterReadsFromPrimary() {
+        assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.PRIMARY);
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.PRIMARY);
+
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("other", null));
+        assertThat(routingDataSource.determineCurrentLookupKey()).isNotEqualTo(ReplicaRoutingDataSource.PRIMARY);
+    }
+
+    /**
+     * Tests routing of a user whose write was rolled back
+     * <p>
+     * This test rolls back a read-write transaction of the user, then asserts
+     * that read-only transactions of the user still go to a replica.
+     */
+    @Test
+    public void testRolledBackWriteIsNotTracked() {
+        routingDataSource.determineCurrentLookupKey();
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertThat(routingDataSource.determineCurrentLookupKey()).isNotEqualTo(ReplicaRoutingDataSource.PRIMARY);
+    }
+
+    /**
+     * Tests routing without replicas
+     * <p>
+     * This test asserts that read-only transactions go to the primary
+     * when no replicas are configured.
+     */
+    @Test
+    public void testNoReplicas() {
+        routingDataSource = new ReplicaRoutingDataSource(new DataSource(), Collections.emptyList(),
+                REPLICA_LAG_MILLIS, MAX_REPLICA_LAG_MILLIS, 0);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.PRIMARY);
+    }
+
+    /**
+     * Tests routing when lag of the replicas can not be measured
+     * <p>
+     * This test measures lag of replicas which can not be connected to, then asserts that
+     * their lag is unknown and that read-only transactions go to the primary.
+     */
+    @Test
+    public void testUnmeasuredReplicasAreNotUsed() {
+        routingDataSource.measureLag("SHOW SLAVE STATUS");
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(routingDataSource.getReplicaLag("replica-0")).isEqualTo(Long.MAX_VALUE);
+        assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.PRIMARY);
+    }
+
+    private static void completeTransaction(int status) {
+        final List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+        TransactionSynchronizationManager.initSynchronization();
+    }
+}
@@ -69,6 +69,7 @@ public interface AnnouncementConstants {
 
     // Companies
     Long COMPANY_ID = 1L;
+    Long COMPANY_MEMBER_ID = 1L;
     Integer COUNT_OF_COMPANY_ANN = 2;
 
     // 1st page with 10 elements
@@ -198,6 +198,7 @@ public class MarkServiceTest {
     public void testAddNullValue() {
         newMark.setValue(null);
         markService.save(newMark);
+        markRepository.flush();
         // rollback previous value
         newMark.setValue(NEW_VALUE);
     }
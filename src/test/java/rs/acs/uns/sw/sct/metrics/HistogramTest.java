@@ -0,0 +1,107 @@
+package rs.acs.uns.sw.sct.metrics;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+public class HistogramTest {
+
+    private static final long NANOS_PER_MICRO = 1000;
+
+    private Histogram histogram;
+
+    /**
+     * Creates empty histogram.
+     */
+    @Before
+    public void initTest() {
+        histogram = new Histogram();
+    }
+
+    /**
+     * Tests snapshot of an empty histogram
+     * <p>
+     * This test asserts that all counts, mean, maximum and percentiles of an empty histogram are zero.
+     */
+    @Test
+    public void testEmpty() {
+        final HistogramDTO snapshot = histogram.snapshot();
+
+        assertThat(snapshot.getCount()).isZero();
+        assertThat(snapshot.getCounts()).containsOnly(0L);
+        assertThat(snapshot.getMeanMicros()).isZero();
+        assertThat(snapshot.getMaxMicros()).isZero();
+        assertThat(snapshot.getP50Micros()).isZero();
+        assertThat(snapshot.getP99Micros()).isZero();
+    }
+
+    /**
+     * Tests durations on the bounds of the buckets
+     * <p>
+     * This test records durations equal to the upper bound of a bucket and one microsecond above it, and asserts
+     * that bounds are inclusive, that durations below one microsecond fall into the first bucket, and that
+     * durations above the last bound fall into the overflow bucket.
+     */
+    @Test
+    public void testBucketBoundaries() {
+        final long[] bounds = Histogram.UPPER_BOUNDS_MICROS;
+        final long last = bounds[bounds.length - 1];
+
+        histogram.record(999);
+        histogram.record(bounds[0] * NANOS_PER_MICRO);
+        histogram.record((bounds[0] + 1) * NANOS_PER_MICRO);
+        histogram.record(last * NANOS_PER_MICRO);
+        histogram.record((last + 1) * NANOS_PER_MICRO);
+
+        final long[] counts = histogram.snapshot().getCounts();
+        assertThat(counts).hasSize(bounds.length + 1);
+        assertThat(counts[0]).isEqualTo(2);
+        assertThat(counts[1]).isEqualTo(1);
+        assertThat(counts[bounds.length - 1]).isEqualTo(1);
+        assertThat(counts[bounds.length]).isEqualTo(1);
+    }
+
+    /**
+     * Tests percentiles, mean and maximum
+     * <p>
+     * This test records a hundred durations in four buckets, and asserts that every percentile
+     * is the upper bound of the bucket which holds its rank, and that mean and maximum are exact.
+     */
+    @Test
+    public void testPercentiles() {
+        record(50, 100);
+        record(45, 1000);
+        record(4, 5000);
+        record(1, 20000000);
+
+        final HistogramDTO snapshot = histogram.snapshot();
+        assertThat(snapshot.getCount()).isEqualTo(100);
+        assertThat(snapshot.getP50Micros()).isEqualTo(100);
+        assertThat(snapshot.getP95Micros()).isEqualTo(1000);
+        assertThat(snapshot.getP99Micros()).isEqualTo(5000);
+        assertThat(snapshot.getMeanMicros()).isEqualTo((50 * 100 + 45 * 1000 + 4 * 5000 + 20000000) / 100);
+        assertThat(snapshot.getMaxMicros()).isEqualTo(20000000);
+    }
+
+    /**
+     * Tests percentiles in the overflow bucket
+     * <p>
+     * This test records durations above the last bucket bound, and asserts that percentiles
+     * which fall into the overflow bucket are reported as the maximal duration.
+     */
+    @Test
+    public void testPercentilesAboveLastBound() {
+        record(1, 100);
+        record(9, 30000000);
+
+        final HistogramDTO snapshot = histogram.snapshot();
+        assertThat(snapshot.getP50Micros()).isEqualTo(30000000);
+        assertThat(snapshot.getP99Micros()).isEqualTo(30000000);
+    }
+
+    private void record(int times, long micros) {
+        for (int i = 0; i < times; i++)
+            histogram.record(micros * NANOS_PER_MICRO);
+    }
+}
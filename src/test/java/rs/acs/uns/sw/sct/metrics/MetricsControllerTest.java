@@ -0,0 +1,143 @@
+package rs.acs.uns.sw.sct.metrics;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import rs.acs.uns.sw.sct.SctServiceApplication;
+import rs.acs.uns.sw.sct.configuration.ReplicaRoutingDataSource;
+import rs.acs.uns.sw.sct.util.AuthorityRoles;
+
+import javax.annotation.PostConstruct;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the MetricsController REST controller.
+ *
+ * @see MetricsController
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = SctServiceApplication.class)
+@ActiveProfiles("test")
+public class MetricsControllerTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    private MockMvc restMetricsMockMvc;
+
+    @PostConstruct
+    public void setup() {
+        this.restMetricsMockMvc = MockMvcBuilders
+                .webAppContextSetup(context)
+                .apply(springSecurity())
+                .build();
+    }
+
+    /**
+     * Tests retrieval of search result cache statistics as an Admin.
+     *
+     * @throws Exception
+     */
+    @Test
+    @WithMockUser(authorities = AuthorityRoles.ADMIN)
+    public void getSearchCacheStatistics() throws Exception {
+        restMetricsMockMvc.perform(get("/api/admin/metrics/search-cache"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+                .andExpect(jsonPath("$.hits").value(greaterThanOrEqualTo(0)))
+                .andExpect(jsonPath("$.misses").value(greaterThanOrEqualTo(0)))
+                .andExpect(jsonPath("$.size").value(greaterThanOrEqualTo(0)));
+    }
+
+    /**
+     * Tests retrieval of second-level cache statistics as an Admin.
+     * <p>
+     * This test asserts that statistics of every cached entity region are returned.
+     *
+     * @throws Exception
+     */
+    @Test
+    @WithMockUser(authorities = AuthorityRoles.ADMIN)
+    public void getEntityCacheStatistics() throws Exception {
+        restMetricsMockMvc.perform(get("/api/admin/metrics/entity-cache"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+                .andExpect(jsonPath("$").isNotEmpty());
+    }
+
+    /**
+     * Tests retrieval of authenticated users cache statistics as an Admin.
+     *
+     * @throws Exception
+     */
+    @Test
+    @WithMockUser(authorities = AuthorityRoles.ADMIN)
+    public void getUserDetailsCacheStatistics() throws Exception {
+        restMetricsMockMvc.perform(get("/api/admin/metrics/user-details-cache"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+                .andExpect(jsonPath("$.hits").value(greaterThanOrEqualTo(0)));
+    }
+
+    /**
+     * Tests retrieval of connection pool statistics as an Admin.
+     * <p>
+     * This test asserts that statistics of the primary pool are returned, with histograms
+     * of connection acquire and usage times.
+     *
+     * @throws Exception
+     */
+    @Test
+    @WithMockUser(authorities = AuthorityRoles.ADMIN)
+    public void getConnectionPoolStatistics() throws Exception {
+        restMetricsMockMvc.perform(get("/api/admin/metrics/db"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+                .andExpect(jsonPath("$.[*].name").value(hasItem(ReplicaRoutingDataSource.PRIMARY)))
+                .andExpect(jsonPath("$[0].acquireTime").exists())
+                .andExpect(jsonPath("$[0].usageTime").exists())
+                .andExpect(jsonPath("$[0].leaks").isArray());
+    }
+
+    /**
+     * Tests retrieval of metrics as an Advertiser.
+     * <p>
+     * This test requests every metric as an Advertiser, which is forbidden.
+     *
+     * @throws Exception
+     */
+    @Test
+    @WithMockUser(authorities = AuthorityRoles.ADVERTISER)
+    public void getMetricsAsAdvertiser() throws Exception {
+        for (String metric : new String[]{"search-cache", "entity-cache", "user-details-cache", "db"}) {
+            restMetricsMockMvc.perform(get("/api/admin/metrics/{metric}", metric))
+                    .andExpect(status().isForbidden());
+        }
+    }
+
+    /**
+     * Tests retrieval of metrics as a Guest.
+     * <p>
+     * This test requests connection pool statistics without authentication, which fails.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void getMetricsAsGuest() throws Exception {
+        restMetricsMockMvc.perform(get("/api/admin/metrics/db"))
+                .andExpect(status().isUnauthorized());
+    }
+}
@@ -200,6 +200,7 @@ public class RealEstateServiceTest {
     public void testAddNullType() {
         newRealEstate.setType(null);
         realEstateService.save(newRealEstate);
+        realEstateRepository.flush();
         // rollback previous type
         newRealEstate.setType(NEW_TYPE);
     }
@@ -217,6 +218,7 @@ public class RealEstateServiceTest {
     public void testAddNullArea() {
         newRealEstate.setArea(null);
         realEstateService.save(newRealEstate);
+        realEstateRepository.flush();
         // rollback previous area
         newRealEstate.setArea(NEW_AREA);
     }
@@ -234,6 +236,7 @@ public class RealEstateServiceTest {
     public void testAddNullHeatingType() {
         newRealEstate.setHeatingType(null);
         realEstateService.save(newRealEstate);
+        realEstateRepository.flush();
         // rollback previous heating type
         newRealEstate.setHeatingType(NEW_HEATING_TYPE);
     }
@@ -314,4 +317,68 @@ public class RealEstateServiceTest {
         }
     }
 
+    /**
+     * Tests searching for similar RealEstates after a similar RealEstate is added
+     * <p>
+     * This test saves a new Real Estate on the referent location with slightly bigger area,
+     * then requests the first page of similar real estates with size of one, and asserts
+     * that the new Real Estate is counted and that only one Real Estate is returned.
+     */
+    @Test
+    @Transactional
+    public void testFindAllSimilarPaginated() {
+        Location location = new Location()
+                .country(RealEstateConstants.SIMILAR_COUNTRY)
+                .city(RealEstateConstants.SIMILAR_CITY)
+                .cityRegion(RealEstateConstants.SIMILAR_REGION)
+                .street(RealEstateConstants.SIMILAR_STREET)
+                .streetNumber(RealEstateConstants.SIMILAR_STREET_NO)
+                .latitude(45.25)
+                .longitude(19.84);
+        final Double area = Double.parseDouble(RealEstateConstants.SIMILAR_AREA);
+
+        realEstateRepository.saveAndFlush(newRealEstate.area(area * 1.01).location(location));
+
+        final RealEstateSimilarDTO similar = new RealEstateSimilarDTO(location, area);
+        final Page<RealEstate> realEstates = realEstateService.findAllSimilar(similar, new PageRequest(0, 1));
+
+        assertThat(realEstates.getTotalElements()).isEqualTo(DB_COUNT_REAL_ESTATES_SIMILAR_NON_DELETED + 1);
+        assertThat(realEstates.getContent()).hasSize(1);
+    }
+
+    /**
+     * Tests searching for similar RealEstates whose location is written differently
+     * <p>
+     * This test saves a new Real Estate whose city and street have surrounding whitespace and different case,
+     * then searches with the referent location and asserts that the new Real Estate is found, and that
+     * nothing is found when only a part of the city name is searched.
+     */
+    @Test
+    @Transactional
+    public void testFindAllSimilarNormalizesLocation() {
+        Location stored = new Location()
+                .country(RealEstateConstants.SIMILAR_COUNTRY)
+                .city(" " + RealEstateConstants.SIMILAR_CITY.toUpperCase() + " ")
+                .cityRegion(RealEstateConstants.SIMILAR_REGION)
+                .street(RealEstateConstants.SIMILAR_STREET.toLowerCase() + " ")
+                .streetNumber(RealEstateConstants.SIMILAR_STREET_NO)
+                .latitude(45.25)
+                .longitude(19.84);
+        Location searched = new Location()
+                .country(RealEstateConstants.SIMILAR_COUNTRY)
+                .city(RealEstateConstants.SIMILAR_CITY)
+                .cityRegion(RealEstateConstants.SIMILAR_REGION)
+                .street(RealEstateConstants.SIMILAR_STREET)
+                .streetNumber(RealEstateConstants.SIMILAR_STREET_NO);
+        final Double area = Double.parseDouble(RealEstateConstants.SIMILAR_AREA);
+
+        final RealEstate persisted = realEstateRepository.saveAndFlush(newRealEstate.area(area).location(stored));
+
+        final Page<RealEstate> realEstates = realEstateService.findAllSimilar(new RealEstateSimilarDTO(searched, area), PAGEABLE);
+        assertThat(realEstates.getContent()).extracting("id").contains(persisted.getId());
+
+        final Page<RealEstate> partOfCity = realEstateService.findAllSimilar(
+                new RealEstateSimilarDTO(searched.city(RealEstateConstants.SIMILAR_CITY.split(" ")[0]), area), PAGEABLE);
+        assertThat(partOfCity.getContent()).isEmpty();
+    }
 }
@@ -248,6 +248,7 @@ public class ReportServiceTest {
     public void testAddNullEmail() {
         newReport.setEmail(null);
         reportService.save(newReport);
+        reportRepository.flush();
         // rollback previous email
         newReport.setEmail(NEW_EMAIL);
     }
@@ -265,6 +266,7 @@ public class ReportServiceTest {
     public void testAddNullType() {
         newReport.setType(null);
         reportService.save(newReport);
+        reportRepository.flush();
         // rollback previous type
         newReport.setType(NEW_TYPE);
     }
@@ -282,6 +284,7 @@ public class ReportServiceTest {
     public void testAddNullContent() {
         newReport.setContent(null);
         reportService.save(newReport);
+        reportRepository.flush();
         // rollback previous content
         newReport.setContent(NEW_CONTENT);
     }
@@ -299,6 +302,7 @@ public class ReportServiceTest {
     public void testAddNullStatus() {
         newReport.setStatus(null);
         reportService.save(newReport);
+        reportRepository.flush();
         // rollback previous status
         newReport.setStatus(NEW_STATUS);
     }
@@ -0,0 +1,139 @@
+package rs.acs.uns.sw.sct.search;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import rs.acs.uns.sw.sct.announcements.Announcement;
+import rs.acs.uns.sw.sct.realestates.Location;
+import rs.acs.uns.sw.sct.realestates.RealEstate;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+public class LocationGridIndexTest {
+
+    private static final double CELL_SIZE = 0.05;
+    private static final int LIMIT = 100;
+
+    private LocationGridIndex index;
+
+    /**
+     * Creates empty index with test cell size.
+     */
+    @Before
+    public void initTest() {
+        index = new LocationGridIndex();
+        ReflectionTestUtils.setField(index, "cellSize", CELL_SIZE);
+    }
+
+    /**
+     * Tests points on the bounds of cells and areas
+     * <p>
+     * This test indexes points on the corner of a cell, just below it and inside of it, and asserts
+     * that area bounds are inclusive, and that points of the visited cells which are outside
+     * of the area are not returned.
+     */
+    @Test
+    public void testCellBounds() {
+        index.index(createAnnouncement(1L, 0.05, 0.05));
+        index.index(createAnnouncement(2L, 0.0499, 0.0499));
+        index.index(createAnnouncement(3L, 0.1, 0.1));
+        index.index(createAnnouncement(4L, 0.07, 0.07));
+
+        assertThat(index.findInArea(0.1, 0.1, 0.05, 0.05, LIMIT)).containsExactly(1L, 3L, 4L);
+        assertThat(index.findInArea(0.05, 0.05, 0.05, 0.05, LIMIT)).containsExactly(1L);
+        assertThat(index.findInArea(0.09, 0.09, 0.06, 0.06, LIMIT)).containsExactly(4L);
+        assertThat(index.findInArea(0.04, 0.04, 0.0, 0.0, LIMIT)).isEmpty();
+        assertThat(index.findInArea(180.0, 90.0, -180.0, -90.0, LIMIT)).containsExactly(1L, 2L, 3L, 4L);
+    }
+
+    /**
+     * Tests points with negative coordinates
+     * <p>
+     * This test indexes points on both sides of the equator and the prime meridian,
+     * and asserts that they are found by areas around and next to them.
+     */
+    @Test
+    public void testNegativeCoordinates() {
+        index.index(createAnnouncement(1L, -0.01, -0.01));
+        index.index(createAnnouncement(2L, 0.01, 0.01));
+        index.index(createAnnouncement(3L, -45.5, -120.25));
+
+        assertThat(index.findInArea(0.02, 0.02, -0.02, -0.02, LIMIT)).containsExactly(1L, 2L);
+        assertThat(index.findInArea(0.0, 0.0, -0.02, -0.02, LIMIT)).containsExactly(1L);
+        assertThat(index.findInArea(-120.0, -45.0, -121.0, -46.0, LIMIT)).containsExactly(3L);
+        assertThat(index.findInArea(121.0, 46.0, 120.0, 45.0, LIMIT)).isEmpty();
+    }
+
+    /**
+     * Tests areas which cross the antimeridian
+     * <p>
+     * This test indexes points on both sides of the antimeridian, and asserts that area whose bottom left
+     * longitude is greater than its top right longitude returns points from both sides, while area with
+     * the same longitudes in the usual order returns the points between them.
+     */
+    @Test
+    public void testAntimeridian() {
+        index.index(createAnnouncement(1L, 10.0, 179.99));
+        index.index(createAnnouncement(2L, 10.0, -179.99));
+        index.index(createAnnouncement(3L, 10.0, 0.0));
+        index.index(createAnnouncement(4L, 10.0, 180.0));
+        index.index(createAnnouncement(5L, 10.0, -180.0));
+
+        assertThat(index.findInArea(-179.9, 11.0, 179.9, 9.0, LIMIT)).containsExactly(1L, 2L, 4L, 5L);
+        assertThat(index.findInArea(179.9, 11.0, -179.9, 9.0, LIMIT)).containsExactly(3L);
+        assertThat(index.findInArea(-179.9, 9.0, 179.9, 8.0, LIMIT)).isEmpty();
+    }
+
+    /**
+     * Tests indexing, removing and reindexing announcements
+     * <p>
+     * This test moves an indexed announcement and asserts that it is found only at its new location,
+     * then asserts that it is removed from the index once it is deleted, removed or loses its location.
+     */
+    @Test
+    public void testIndexRemoveAndReindex() {
+        final Announcement announcement = createAnnouncement(1L, 45.25, 19.83);
+        index.index(announcement);
+        assertThat(index.findInArea(19.9, 45.3, 19.8, 45.2, LIMIT)).containsExactly(1L);
+
+        announcement.getRealEstate().getLocation().latitude(44.81).longitude(20.46);
+        index.index(announcement);
+        assertThat(index.findInArea(19.9, 45.3, 19.8, 45.2, LIMIT)).isEmpty();
+        assertThat(index.findInArea(20.5, 44.9, 20.4, 44.8, LIMIT)).containsExactly(1L);
+
+        index.index(announcement.deleted(true));
+        assertThat(index.findInArea(20.5, 44.9, 20.4, 44.8, LIMIT)).isEmpty();
+
+        index.index(announcement.deleted(false));
+        index.remove(1L);
+        assertThat(index.findInArea(20.5, 44.9, 20.4, 44.8, LIMIT)).isEmpty();
+
+        index.index(announcement);
+        index.index(announcement.realEstate(new RealEstate()));
+        assertThat(index.findInArea(180.0, 90.0, -180.0, -90.0, LIMIT)).isEmpty();
+    }
+
+    /**
+     * Tests limit of the returned ids
+     * <p>
+     * This test indexes more announcements than the limit, and asserts that null is returned,
+     * and that ids are returned sorted ascending when they fit in the limit.
+     */
+    @Test
+    public void testLimit() {
+        index.index(createAnnouncement(3L, 1.0, 1.0));
+        index.index(createAnnouncement(2L, 1.0, 1.0));
+        index.index(createAnnouncement(1L, 1.0, 1.0));
+
+        assertThat(index.findInArea(2.0, 2.0, 0.0, 0.0, 2)).isNull();
+        assertThat(index.findInArea(2.0, 2.0, 0.0, 0.0, 3)).containsExactly(1L, 2L, 3L);
+    }
+
+    private static Announcement createAnnouncement(Long id, Double latitude, Double longitude) {
+        final Location location = new Location().latitude(latitude).longitude(longitude);
+        return new Announcement()
+                .id(id)
+                .deleted(false)
+                .realEstate(new RealEstate().location(location));
+    }
+}
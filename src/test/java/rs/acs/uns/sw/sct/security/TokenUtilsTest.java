@@ -0,0 +1,129 @@
+package rs.acs.uns.sw.sct.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.Date;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+public class TokenUtilsTest {
+
+    private static final String SECRET = "TEST-SECRET";
+    private static final long EXPIRATION = 60000;
+    private static final int CACHE_MAX_SIZE = 10;
+
+    private TokenUtils tokenUtils;
+    private UserDetails user;
+
+    /**
+     * Creates token utils with test secret, expiration and cache size.
+     */
+    @Before
+    public void initTest() {
+        tokenUtils = createTokenUtils(EXPIRATION);
+        user = new User("user", "password", Collections.singletonList(new SimpleGrantedAuthority("advertiser")));
+    }
+
+    /**
+     * Tests verification of a valid token
+     * <p>
+     * This test generates a token and asserts that its claims are verified,
+     * and that they are served from the cache the second time.
+     */
+    @Test
+    public void testValidToken() {
+        final String token = tokenUtils.generateToken(user);
+
+        final Claims claims = tokenUtils.getVerifiedClaims(token);
+
+        assertThat(claims).isNotNull();
+        assertThat(claims.getSubject()).isEqualTo("user");
+        assertThat(tokenUtils.getVerifiedClaims(token)).isSameAs(claims);
+    }
+
+    /**
+     * Tests verification of a token with bad signature
+     * <p>
+     * This test signs a token with another secret and changes signature of a valid token,
+     * then asserts that neither of them is verified.
+     */
+    @Test
+    public void testBadSignature() {
+        final String foreign = Jwts.builder()
+                .setSubject("user")
+                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION))
+                .signWith(SignatureAlgorithm.HS512, "OTHER-SECRET")
+                .compact();
+        final String token = tokenUtils.generateToken(user);
+        final String tampered = token.substring(0, token.length() - 2)
+                + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThat(tokenUtils.getVerifiedClaims(foreign)).isNull();
+        assertThat(tokenUtils.getVerifiedClaims(tampered)).isNull();
+        assertThat(tokenUtils.getUsernameFromToken(tampered)).isNull();
+    }
+
+    /**
+     * Tests verification of an expired token
+     * <p>
+     * This test generates a token which is already expired, and asserts that it is not verified.
+     * Then it caches claims which expire within two seconds, and asserts that they are not served
+     * once they expire and that they are removed from the cache.
+     */
+    @Test
+    public void testExpiredToken() throws Exception {
+        final String expired = createTokenUtils(-1000).generateToken(user);
+        assertThat(tokenUtils.getVerifiedClaims(expired)).isNull();
+
+        final VerifiedClaimsCache cache = new VerifiedClaimsCache(CACHE_MAX_SIZE);
+        // expiration is kept in whole seconds, so it is set to a full second at least a second ahead
+        final Date expiration = new Date((System.currentTimeMillis() / 1000 + 2) * 1000);
+        final Claims claims = Jwts.claims().setSubject("user").setExpiration(expiration);
+        cache.put("token", claims);
+        assertThat(cache.get("token")).isSameAs(claims);
+
+        Thread.sleep(expiration.getTime() - System.currentTimeMillis() + 50);
+
+        assertThat(cache.get("token")).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    /**
+     * Tests maximal size of the cache
+     * <p>
+     * This test caches more tokens than the cache can hold, and asserts that the cache
+     * never grows above its maximal size, that tokens which expire first are evicted,
+     * and that the last cached token is kept.
+     */
+    @Test
+    public void testEvictionBound() {
+        final VerifiedClaimsCache cache = new VerifiedClaimsCache(CACHE_MAX_SIZE);
+        final long now = System.currentTimeMillis();
+
+        for (int i = 0; i < 3 * CACHE_MAX_SIZE; i++) {
+            cache.put("token-" + i, Jwts.claims().setSubject("user").setExpiration(new Date(now + EXPIRATION + i * 1000)));
+            assertThat(cache.size()).isLessThanOrEqualTo(CACHE_MAX_SIZE);
+        }
+
+        assertThat(cache.get("token-0")).isNull();
+        assertThat(cache.get("token-" + (3 * CACHE_MAX_SIZE - 1))).isNotNull();
+    }
+
+    private static TokenUtils createTokenUtils(long expiration) {
+        final TokenUtils tokenUtils = new TokenUtils();
+        ReflectionTestUtils.setField(tokenUtils, "secret", SECRET);
+        ReflectionTestUtils.setField(tokenUtils, "expiration", expiration);
+        ReflectionTestUtils.setField(tokenUtils, "cacheMaxSize", CACHE_MAX_SIZE);
+        tokenUtils.init();
+        return tokenUtils;
+    }
+}
@@ -6,6 +6,7 @@ import rs.acs.uns.sw.sct.announcements.AnnouncementControllerTest;
 import rs.acs.uns.sw.sct.comments.CommentControllerTest;
 import rs.acs.uns.sw.sct.companies.CompanyControllerTest;
 import rs.acs.uns.sw.sct.marks.MarkControllerTest;
+import rs.acs.uns.sw.sct.metrics.MetricsControllerTest;
 import rs.acs.uns.sw.sct.realestates.RealEstateControllerTest;
 import rs.acs.uns.sw.sct.reports.ReportControllerTest;
 import rs.acs.uns.sw.sct.users.UserControllerTest;
@@ -16,6 +17,7 @@ import rs.acs.uns.sw.sct.users.UserControllerTest;
         CommentControllerTest.class,
         CompanyControllerTest.class,
         MarkControllerTest.class,
+        MetricsControllerTest.class,
         RealEstateControllerTest.class,
         ReportControllerTest.class,
         UserControllerTest.class
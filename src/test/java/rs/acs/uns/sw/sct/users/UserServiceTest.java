@@ -7,6 +7,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
@@ -41,6 +43,9 @@ public class UserServiceTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserDetailsService userDetailsService;
+
     private User newUser;
     private User updatedUser;
     private User existingUser;
@@ -227,6 +232,7 @@ public class UserServiceTest {
         existingUser.setId(null);
         existingUser.setEmail(updatedUser.getEmail());
         userService.save(existingUser);
+        userRepository.flush();
         // rollback previous value
         existingUser.setId(USER_ID);
     }
@@ -246,6 +252,7 @@ public class UserServiceTest {
         existingUser.setId(null);
         existingUser.setUsername(updatedUser.getUsername());
         userService.save(existingUser);
+        userRepository.flush();
         // rollback previous id
         existingUser.setId(USER_ID);
     }
@@ -263,6 +270,7 @@ public class UserServiceTest {
     public void testAddNullFirstName() {
         newUser.setFirstName(null);
         userService.save(newUser);
+        userRepository.flush();
         // rollback previous first name
         newUser.setFirstName(NEW_USER_FIRST_NAME);
     }
@@ -280,6 +288,7 @@ public class UserServiceTest {
     public void testAddNullLastName() {
         newUser.setLastName(null);
         userService.save(newUser);
+        userRepository.flush();
         // rollback previous last name
         newUser.setLastName(NEW_USER_LAST_NAME);
     }
@@ -297,6 +306,7 @@ public class UserServiceTest {
     public void testAddNullType() {
         newUser.setType(null);
         userService.save(newUser);
+        userRepository.flush();
         // rollback previous type
         newUser.setType(NEW_USER_TYPE);
     }
@@ -314,6 +324,7 @@ public class UserServiceTest {
     public void testAddNullPassword() {
         newUser.setPassword(null);
         userService.save(newUser);
+        userRepository.flush();
         // rollback previous password
         newUser.setPassword(NEW_USER_PASSWORD);
     }
@@ -486,4 +497,51 @@ public class UserServiceTest {
             assertThat(user.getCompany().getName()).containsIgnoringCase(randomCompanyName);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests searching Users by username and phone number
+     * <p>
+     * This test saves a new User, then searches by its upper-cased username
+     * and its phone number. It asserts that the saved User is found, and that
+     * all of the returned results contain these values.
+     * @throws Exception
+     */
+    @Test
+    @Transactional
+    public void searchUsersByUsernameAndPhoneNumber() throws Exception {
+        User persisted = userRepository.saveAndFlush(newUser);
+
+        final String username = newUser.getUsername().toUpperCase();
+        final String phoneNumber = newUser.getPhoneNumber();
+
+        List<User> result = userService.findBySearchTerm(username, null, null, null, phoneNumber, null, PAGEABLE);
+
+        assertThat(result).extracting("id").contains(persisted.getId());
+        for (User user : result) {
+            assertThat(user.getUsername()).containsIgnoringCase(username);
+            assertThat(user.getPhoneNumber()).contains(phoneNumber);
+        }
+    }
+
+    /**
+     * Tests invalidation of cached user details
+     * <p>
+     * This test saves a new verified User and loads its details, so they are cached,
+     * then changes its password and saves it again. It asserts that details loaded
+     * afterwards contain the new password instead of the cached one.
+     */
+    @Test
+    @Transactional
+    public void testSaveInvalidatesUserDetails() {
+        User persisted = userService.save(newUser.verified(true));
+        UserDetails cached = userDetailsService.loadUserByUsername(persisted.getUsername());
+        assertThat(cached.getPassword()).isEqualTo(persisted.getPassword());
+
+        persisted.setPassword(UPDATED_USER_PASSWORD);
+        User updated = userService.save(persisted);
+
+        UserDetails reloaded = userDetailsService.loadUserByUsername(updated.getUsername());
+        assertThat(reloaded.getPassword()).isEqualTo(updated.getPassword());
+        assertThat(reloaded.getPassword()).isNotEqualTo(cached.getPassword());
+    }
+}
@@ -0,0 +1,124 @@
+package rs.acs.uns.sw.sct.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+public class TimerWheelTest {
+
+    private static final long TICK = 1000;
+    private static final int WHEEL_SIZE = 8;
+
+    private TimerWheel<String> wheel;
+    private long start;
+
+    /**
+     * Creates the wheel and advances it to the current time, so every test
+     * starts at the beginning of a known tick.
+     */
+    @Before
+    public void initTest() {
+        wheel = new TimerWheel<>(TICK, WHEEL_SIZE);
+        final long now = System.currentTimeMillis();
+        wheel.advance(now);
+        start = (now / TICK + 1) * TICK;
+    }
+
+    /**
+     * Tests rounding of deadlines and of the current time
+     * <p>
+     * This test schedules keys whose deadlines are at the start and in the middle of a tick, and asserts that
+     * deadlines are rounded up, so no key is fired before its deadline, and that the current time is rounded down.
+     */
+    @Test
+    public void testRounding() {
+        wheel.schedule("exact", start + 2 * TICK);
+        wheel.schedule("rounded", start + 2 * TICK + 1);
+
+        assertThat(wheel.advance(start + 2 * TICK - 1)).isEmpty();
+        assertThat(wheel.advance(start + 2 * TICK)).containsOnly("exact");
+        assertThat(wheel.advance(start + 3 * TICK - 1)).isEmpty();
+        assertThat(wheel.advance(start + 3 * TICK + TICK / 2)).containsOnly("rounded");
+        assertThat(wheel.size()).isZero();
+    }
+
+    /**
+     * Tests scheduling keys whose deadline has already passed
+     * <p>
+     * This test schedules a key in the past and asserts that it is fired on the next advance.
+     */
+    @Test
+    public void testPastDeadline() {
+        wheel.schedule("past", start - 10 * TICK);
+
+        assertThat(wheel.advance(start)).containsOnly("past");
+    }
+
+    /**
+     * Tests keys which are more than one turn of the wheel away
+     * <p>
+     * This test schedules two keys into the same slot, one turn apart, and asserts that the later one
+     * stays scheduled when the first one is fired, and is fired once its own tick is reached.
+     */
+    @Test
+    public void testNextTurn() {
+        wheel.schedule("first", start + 2 * TICK);
+        wheel.schedule("next-turn", start + (2 + WHEEL_SIZE) * TICK);
+
+        assertThat(wheel.advance(start + 2 * TICK)).containsOnly("first");
+        assertThat(wheel.size()).isEqualTo(1);
+        assertThat(wheel.advance(start + (1 + WHEEL_SIZE) * TICK)).isEmpty();
+        assertThat(wheel.advance(start + (2 + WHEEL_SIZE) * TICK)).containsOnly("next-turn");
+    }
+
+    /**
+     * Tests advancing the wheel by more than one turn at once
+     * <p>
+     * This test schedules keys several turns apart and advances the wheel far ahead, then asserts that
+     * every slot is visited only once, yet all passed keys are fired and later ones stay scheduled.
+     */
+    @Test
+    public void testAdvanceMoreThanOneTurn() {
+        wheel.schedule("first", start + TICK);
+        wheel.schedule("third-turn", start + (1 + 2 * WHEEL_SIZE) * TICK);
+        wheel.schedule("last", start + 5 * WHEEL_SIZE * TICK);
+
+        assertThat(wheel.advance(start + 3 * WHEEL_SIZE * TICK)).containsOnly("first", "third-turn");
+        assertThat(wheel.size()).isEqualTo(1);
+        assertThat(wheel.advance(start + 5 * WHEEL_SIZE * TICK)).containsOnly("last");
+    }
+
+    /**
+     * Tests rescheduling and cancelling keys
+     * <p>
+     * This test reschedules one key to a later tick and cancels another, then asserts that
+     * the first key is fired only at its new deadline and the cancelled one is never fired.
+     */
+    @Test
+    public void testRescheduleAndCancel() {
+        wheel.schedule("rescheduled", start + TICK);
+        wheel.schedule("cancelled", start + TICK);
+        wheel.schedule("rescheduled", start + 3 * TICK);
+        wheel.cancel("cancelled");
+
+        assertThat(wheel.size()).isEqualTo(1);
+        assertThat(wheel.advance(start + 2 * TICK)).isEmpty();
+        assertThat(wheel.advance(start + 3 * TICK)).containsOnly("rescheduled");
+        assertThat(wheel.size()).isZero();
+    }
+
+    /**
+     * Tests advancing the wheel to an earlier time
+     * <p>
+     * This test advances the wheel, then asserts that advancing it back fires nothing.
+     */
+    @Test
+    public void testAdvanceBackwards() {
+        wheel.advance(start + 2 * TICK);
+        wheel.schedule("key", start);
+
+        assertThat(wheel.advance(start)).isEmpty();
+        assertThat(wheel.advance(start + 3 * TICK)).containsOnly("key");
+    }
+}